@@ -1,9 +1,11 @@
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
 import config.Settings;
 import db.DatabaseManager;
+import db.StorageEngine;
 import experLogger.OperationLogger;
 import view.gui.*;
 
@@ -25,6 +27,11 @@ public class App {
             Logger = new OperationLogger("app.log", "ZooApplication", true);
             
             DatabaseManager.initializeLogger(Logger);
+            try {
+                DatabaseManager.setEngine(StorageEngine.create(settings.getStorageEngine(), Path.of(".")));
+            } catch (IllegalArgumentException e) {
+                Logger.logError("Invalid storage.engine, using " + DatabaseManager.getEngine().name(), e);
+            }
             
             Logger.logInfo("Program started by user: " + settings.getUsername());
             
@@ -5,7 +5,8 @@ import java.util.Properties;
 
 /**
  * Класс для работы с настройками приложения, загружаемыми из файла config.properties.
- * Настройки включают в себя имя пользователя, пароль, группу пользователя, режим отладки и режим автотестов.
+ * Настройки включают в себя имя пользователя, пароль, группу пользователя, режим отладки, режим автотестов
+ * и хранилище базы данных ({@code storage.engine}: memory, text, binary, mmap или compressed; по умолчанию mmap).
  */
 public class Settings {
      private String username;
@@ -13,6 +14,7 @@ public class Settings {
     private String userGroup;
     private boolean debugMode;
     private boolean autoTestMode;
+    private String storageEngine;
     private final Properties properties;
     private final String configFile = "config.properties";
 
@@ -32,12 +34,14 @@ public class Settings {
             userGroup = properties.getProperty("user.group");
             debugMode = Boolean.parseBoolean(properties.getProperty("debug.mode"));
             autoTestMode = Boolean.parseBoolean(properties.getProperty("auto.test.mode"));
+            storageEngine = properties.getProperty("storage.engine", "mmap");
         } catch (IOException e) {
             username = "guest";
             password = "password";
             userGroup = "user";
             debugMode = false;
             autoTestMode = false;
+            storageEngine = "mmap";
         }
     }
 
@@ -46,5 +50,6 @@ public class Settings {
     public String getUserGroup() { return userGroup; }
     public boolean isDebugMode() { return debugMode; }
     public boolean isAutoTestMode() { return autoTestMode; }
+    public String getStorageEngine() { return storageEngine; }
     public boolean isRoot() { return "root".equals(userGroup); }
 }
\ No newline at end of file
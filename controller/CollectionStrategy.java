@@ -0,0 +1,161 @@
+package controller;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Стратегия коллекций {@link ZooController}: тип списка неразмещённых животных, который
+ * возвращает расселение. Вольеры контроллер держит в {@link enclosure.EnclosureRegistry}
+ * независимо от стратегии, поэтому на само расселение она не влияет.
+ * Заменяет прежнюю пару ZooController (ArrayList) / ZooController_Link (LinkedList).
+ */
+public enum CollectionStrategy {
+    /** ArrayList с ростом по умолчанию. */
+    ARRAY_LIST {
+        @Override
+        public <T> List<T> newList(int expectedSize) {
+            return new ArrayList<>();
+        }
+    },
+    /** LinkedList (как в прежнем ZooController_Link). */
+    LINKED_LIST {
+        @Override
+        public <T> List<T> newList(int expectedSize) {
+            return new LinkedList<>();
+        }
+    },
+    /** Список поверх ArrayDeque: дешёвое добавление в конец, get(i) — линейный. */
+    ARRAY_DEQUE {
+        @Override
+        public <T> List<T> newList(int expectedSize) {
+            return new DequeList<>(new ArrayDeque<>(Math.max(expectedSize, 1)));
+        }
+    },
+    /** ArrayList, заранее выделенный под точный размер. */
+    PRESIZED_ARRAY {
+        @Override
+        public <T> List<T> newList(int expectedSize) {
+            return new ArrayList<>(expectedSize);
+        }
+    },
+    /**
+     * Неразмещённые животные хранятся как int[] индексов в массиве партии,
+     * наружу отдаётся неизменяемое представление без копирования ссылок.
+     */
+    INDEX_ARRAY {
+        @Override
+        public <T> List<T> newList(int expectedSize) {
+            return new ArrayList<>(expectedSize);
+        }
+
+        @Override
+        public <T> List<T> collectUnassigned(T[] batch, boolean[] placed, int unassignedCount) {
+            int[] idx = new int[unassignedCount];
+            int k = 0;
+            for (int i = 0; i < batch.length; i++) {
+                if (!placed[i]) idx[k++] = i;
+            }
+            return new IndexList<>(batch, idx);
+        }
+    };
+
+    /**
+     * Создать пустой список этой стратегии.
+     *
+     * @param expectedSize ожидаемое число элементов (подсказка)
+     */
+    public abstract <T> List<T> newList(int expectedSize);
+
+    /**
+     * Собрать элементы партии, которые не удалось разместить, в порядке партии.
+     *
+     * @param batch партия
+     * @param placed флаги размещения по индексам партии
+     * @param unassignedCount число неразмещённых
+     */
+    public <T> List<T> collectUnassigned(T[] batch, boolean[] placed, int unassignedCount) {
+        List<T> result = newList(unassignedCount);
+        for (int i = 0; i < batch.length; i++) {
+            if (!placed[i]) result.add(batch[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Адаптер List поверх ArrayDeque.
+     */
+    private static final class DequeList<T> extends AbstractList<T> {
+        private final ArrayDeque<T> deque;
+
+        DequeList(ArrayDeque<T> deque) {
+            this.deque = deque;
+        }
+
+        @Override
+        public boolean add(T t) {
+            deque.addLast(t);
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= deque.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + deque.size());
+            }
+            Iterator<T> it = deque.iterator();
+            for (int i = 0; i < index; i++) it.next();
+            return it.next();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return deque.iterator();
+        }
+
+        @Override
+        public int size() {
+            return deque.size();
+        }
+
+        @Override
+        public void clear() {
+            deque.clear();
+            modCount++;
+        }
+    }
+
+    /**
+     * Неизменяемое представление элементов массива по списку индексов.
+     */
+    private static final class IndexList<T> extends AbstractList<T> implements RandomAccess {
+        private final T[] items;
+        private final int[] idx;
+
+        IndexList(T[] items, int[] idx) {
+            this.items = items;
+            this.idx = idx;
+        }
+
+        @Override
+        public T get(int index) {
+            return items[idx[index]];
+        }
+
+        @Override
+        public int size() {
+            return idx.length;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(Arrays.stream(idx).mapToObj(i -> items[i]).toArray());
+        }
+    }
+}
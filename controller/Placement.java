@@ -0,0 +1,37 @@
+package controller;
+
+import enclosure.Enclosure;
+import model.Animal;
+
+/**
+ * Результат расселения одного животного: вольер, в который оно попало, или отказ.
+ */
+public final class Placement {
+    private final Animal animal;
+    private final Enclosure enclosure;
+
+    /**
+     * @param animal животное
+     * @param enclosure вольер или null, если места не нашлось
+     */
+    public Placement(Animal animal, Enclosure enclosure) {
+        this.animal = animal;
+        this.enclosure = enclosure;
+    }
+
+    public Animal getAnimal() { return animal; }
+
+    /**
+     * @return вольер или null для отклонённого животного
+     */
+    public Enclosure getEnclosure() { return enclosure; }
+
+    public boolean isPlaced() { return enclosure != null; }
+
+    @Override
+    public String toString() {
+        return isPlaced()
+            ? animal + " -> " + enclosure.getName()
+            : animal + " -> rejected";
+    }
+}
@@ -0,0 +1,112 @@
+package controller;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import model.Animal;
+
+/**
+ * Потоковое расселение поверх {@link Flow}: принимает животных от издателя
+ * и публикует по одному {@link Placement} на каждое животное.
+ * Каждое животное даёт ровно один результат, поэтому запрос подписчика
+ * request(n) напрямую передаётся вверх по потоку — животные не накапливаются,
+ * и память не растёт, сколько бы ни длился поток.
+ * Поддерживается один подписчик.
+ */
+public class PlacementProcessor implements Flow.Processor<Animal, Placement> {
+    private final ZooController controller;
+
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super Placement> downstream;
+    /** Спрос подписчика, накопленный до подключения к издателю. */
+    private long pendingDemand;
+    private boolean cancelled;
+
+    public PlacementProcessor(ZooController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Placement> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override public void request(long n) { }
+                    @Override public void cancel() { }
+                });
+                subscriber.onError(new IllegalStateException("PlacementProcessor supports a single subscriber"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancel();
+                    subscriber.onError(new IllegalArgumentException("request must be positive: " + n));
+                    return;
+                }
+                Flow.Subscription s;
+                synchronized (PlacementProcessor.this) {
+                    if (cancelled) return;
+                    s = upstream;
+                    if (s == null) {
+                        pendingDemand = addCapped(pendingDemand, n);
+                        return;
+                    }
+                }
+                s.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                Flow.Subscription s;
+                synchronized (PlacementProcessor.this) {
+                    cancelled = true;
+                    s = upstream;
+                }
+                if (s != null) s.cancel();
+            }
+        });
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long demand;
+        synchronized (this) {
+            if (upstream != null || cancelled) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            demand = pendingDemand;
+            pendingDemand = 0;
+        }
+        if (demand > 0) subscription.request(demand);
+    }
+
+    @Override
+    public void onNext(Animal animal) {
+        Placement result = controller.place(animal);
+        Flow.Subscriber<? super Placement> s = downstream;
+        if (s != null) s.onNext(result);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Flow.Subscriber<? super Placement> s = downstream;
+        if (s != null) s.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        Flow.Subscriber<? super Placement> s = downstream;
+        if (s != null) s.onComplete();
+    }
+
+    private static long addCapped(long a, long b) {
+        long r = a + b;
+        return r < 0 ? Long.MAX_VALUE : r;
+    }
+}
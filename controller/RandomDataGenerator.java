@@ -3,15 +3,23 @@ package controller;
 import enclosure.Enclosure;
 import enclosure.EnclosureType;
 import model.Animal;
-import model.Aquatic;
-import model.Feathered;
-import model.Hoofed;
-import model.ColdBlooded;
+import model.AnimalIds;
+import model.AnimalKind;
+import model.AnimalStorage;
+import model.NameDictionary;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Утилитный класс для генерации случайных Enclosure/Animal.
@@ -21,9 +29,14 @@ import java.util.Random;
  * Пример использования:
  *   List<Enclosure> enclosures = RandomDataGenerator.generateEnclosures(5, false); // ArrayList
  *   List<Animal> batch = RandomDataGenerator.generateAnimals(10, true); // LinkedList
+ *   Stream<Animal> big = RandomDataGenerator.stream(42L, 100_000_000L).parallel(); // воспроизводимо
+ *   RandomDataGenerator.fillColumnsParallel(42L, 0, kind, nameId, weight, age); // без объектов
+ *
+ * Статические методы берут ThreadLocalRandom — потоки-производители не делят один генератор.
  */
 public class RandomDataGenerator {
-    private static final Random RNG = new Random();
+    /** Размер блока воспроизводимого потока: у каждого блока свой SplittableRandom. */
+    static final int BLOCK = 4096;
 
     private static final String[] AQUA_NAMES = {"рыба", "карась", "щука", "сом", "тунец"};
     private static final String[] FEATHER_NAMES = {"воробей", "голубь", "петух", "утка", "ласточка"};
@@ -31,6 +44,22 @@ public class RandomDataGenerator {
     private static final String[] COLD_NAMES = {"ящерица", "змей", "геккон", "тритон", "угорь"};
     private static final String[] ENC_PREFIX = {"Aqua", "Net", "Open", "Infra", "Cage"};
 
+    /** id имён в общем словаре — животные ссылаются на общие строки, а не создают свои. */
+    private static final int[] AQUA_IDS = internAll(AQUA_NAMES);
+    private static final int[] FEATHER_IDS = internAll(FEATHER_NAMES);
+    private static final int[] HOOF_IDS = internAll(HOOF_NAMES);
+    private static final int[] COLD_IDS = internAll(COLD_NAMES);
+
+    /*
+     * Параметры по ординалу AnimalKind. Вес берётся целым числом сотых,
+     * поэтому округление не нужно:
+     * Aquatic 0.05..10.05, Feathered 0.05..5.05, Hoofed 20..420, ColdBlooded 0.01..20.
+     */
+    private static final int[][] NAME_IDS = {AQUA_IDS, FEATHER_IDS, HOOF_IDS, COLD_IDS};
+    private static final int[] MIN_CENTS = {5, 5, 2_000, 1};
+    private static final int[] SPAN_CENTS = {1_001, 501, 40_001, 2_000};
+    private static final int[] MAX_AGE = {10, 8, 20, 12};
+
     /**
      * Генерирует коллекцию вольеров.
      *
@@ -40,11 +69,12 @@ public class RandomDataGenerator {
      */
     public static List<Enclosure> generateEnclosures(int count, boolean useLinked) {
         List<Enclosure> list = useLinked ? new LinkedList<>() : new ArrayList<>();
+        RandomGenerator rng = ThreadLocalRandom.current();
         EnclosureType[] types = EnclosureType.values();
         for (int i = 0; i < count; i++) {
-            EnclosureType t = types[RNG.nextInt(types.length)];
+            EnclosureType t = types[rng.nextInt(types.length)];
             String name = choosePrefixForType(t) + "-" + (i + 1);
-            int capacity = 1 + RNG.nextInt(8); // вместимость 1..8
+            int capacity = 1 + rng.nextInt(8); // вместимость 1..8
             list.add(new Enclosure(name, t, capacity));
         }
         return list;
@@ -57,11 +87,12 @@ public class RandomDataGenerator {
      * @param count количество добавляемых вольеров
      */
     public static void fillEnclosures(List<Enclosure> target, int count) {
+        RandomGenerator rng = ThreadLocalRandom.current();
         EnclosureType[] types = EnclosureType.values();
         for (int i = 0; i < count; i++) {
-            EnclosureType t = types[RNG.nextInt(types.length)];
+            EnclosureType t = types[rng.nextInt(types.length)];
             String name = choosePrefixForType(t) + "-" + (target.size() + 1);
-            int capacity = 1 + RNG.nextInt(8);
+            int capacity = 1 + rng.nextInt(8);
             target.add(new Enclosure(name, t, capacity));
         }
     }
@@ -75,8 +106,9 @@ public class RandomDataGenerator {
      */
     public static List<Animal> generateAnimals(int count, boolean useLinked) {
         List<Animal> list = useLinked ? new LinkedList<>() : new ArrayList<>();
+        RandomGenerator rng = ThreadLocalRandom.current();
         for (int i = 0; i < count; i++) {
-            list.add(randomAnimal());
+            list.add(randomAnimal(rng, 0L));
         }
         return list;
     }
@@ -88,49 +120,231 @@ public class RandomDataGenerator {
      * @param count сколько добавить
      */
     public static void fillAnimals(List<Animal> target, int count) {
+        RandomGenerator rng = ThreadLocalRandom.current();
         for (int i = 0; i < count; i++) {
-            target.add(randomAnimal());
+            target.add(randomAnimal(rng, 0L));
         }
     }
 
-    /* ------------------ helpers ------------------ */
+    /**
+     * Воспроизводимый поток из count животных. Результат зависит только от seed:
+     * последовательный и параллельный поток дают одинаковых животных в одинаковом порядке.
+     * Id животных — непрерывный диапазон, зарезервированный при создании потока.
+     *
+     * @param seed зерно генерации
+     * @param count количество животных
+     * @return ленивый поток; для параллельной генерации вызовите parallel()
+     */
+    public static Stream<Animal> stream(long seed, long count) {
+        return StreamSupport.stream(spliterator(seed, count), false);
+    }
 
-    private static Animal randomAnimal() {
-        int kind = RNG.nextInt(4);
-        return switch (kind) {
-            case 0 -> randomAquatic();
-            case 1 -> randomFeathered();
-            case 2 -> randomHoofed();
-            default -> randomColdBlooded();
-        };
+    /**
+     * Делимый источник животных для {@link #stream(long, long)}.
+     * Делится только по границам блоков, поэтому разбиение не влияет на результат.
+     */
+    public static Spliterator<Animal> spliterator(long seed, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must be >= 0: " + count);
+        }
+        long baseId = AnimalIds.reserve(count);
+        return new AnimalSpliterator(seed, baseId, 0, count);
+    }
+
+    /**
+     * SplittableRandom для блока block: зерно смешивается с номером блока,
+     * чтобы соседние блоки не давали коррелированных последовательностей.
+     */
+    static SplittableRandom blockRandom(long seed, long block) {
+        return new SplittableRandom(mix64(seed + block * 0x9E3779B97F4A7C15L));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Источник строк [index, end); генератор пересоздаётся на каждой границе блока. */
+    private static final class AnimalSpliterator implements Spliterator<Animal> {
+        private final long seed;
+        private final long baseId;
+        private long index;
+        private final long end;
+        private SplittableRandom rng;
+
+        AnimalSpliterator(long seed, long baseId, long from, long end) {
+            this.seed = seed;
+            this.baseId = baseId;
+            this.index = from;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Animal> action) {
+            if (index >= end) {
+                return false;
+            }
+            action.accept(next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Animal> action) {
+            while (index < end) {
+                action.accept(next());
+            }
+        }
+
+        private Animal next() {
+            if (rng == null || index % BLOCK == 0) {
+                rng = blockRandom(seed, index / BLOCK);
+            }
+            Animal a = randomAnimal(rng, baseId + index);
+            index++;
+            return a;
+        }
+
+        @Override
+        public Spliterator<Animal> trySplit() {
+            // делим только нетронутый остаток и только по границе блока
+            if (index % BLOCK != 0) {
+                return null;
+            }
+            long blocks = (end - index) / BLOCK;
+            if (blocks < 2) {
+                return null;
+            }
+            long mid = index + (blocks / 2) * BLOCK;
+            AnimalSpliterator prefix = new AnimalSpliterator(seed, baseId, index, mid);
+            index = mid;
+            rng = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /* ------------------ bulk fill ------------------ */
+
+    /**
+     * Записывает строки [firstRow, firstRow + length) набора seed прямо в колонки —
+     * те же значения, что даёт {@link #stream(long, long)}, но без объекта на каждую строку.
+     * Строка firstRow + i попадает в позицию offset + i каждого массива; kind — ординал {@link AnimalKind}.
+     */
+    public static void fillColumns(long seed, long firstRow, byte[] kind, int[] nameId,
+                                   double[] weight, int[] age, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, kind.length);
+        Objects.checkFromIndexSize(offset, length, nameId.length);
+        Objects.checkFromIndexSize(offset, length, weight.length);
+        Objects.checkFromIndexSize(offset, length, age.length);
+        long row = firstRow;
+        int pos = offset;
+        while (length > 0) {
+            int inBlock = (int) (row % BLOCK);
+            int n = Math.min(length, BLOCK - inBlock);
+            SplittableRandom rng = blockRandom(seed, row / BLOCK);
+            for (int i = 0; i < inBlock; i++) {
+                skipRow(rng);
+            }
+            for (int end = pos + n; pos < end; pos++) {
+                int k = rng.nextInt(4);
+                int[] names = NAME_IDS[k];
+                kind[pos] = (byte) k;
+                nameId[pos] = names[rng.nextInt(names.length)];
+                weight[pos] = (MIN_CENTS[k] + rng.nextInt(SPAN_CENTS[k])) / 100.0;
+                age[pos] = 1 + rng.nextInt(MAX_AGE[k]);
+            }
+            row += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Параллельный вариант {@link #fillColumns}: заполняет массивы целиком строками начиная с firstRow.
+     * Работа делится по блокам генератора, результат не зависит от числа потоков.
+     */
+    public static void fillColumnsParallel(long seed, long firstRow, byte[] kind, int[] nameId,
+                                           double[] weight, int[] age) {
+        int n = kind.length;
+        if (nameId.length != n || weight.length != n || age.length != n) {
+            throw new IllegalArgumentException("column lengths differ");
+        }
+        long alignedStart = firstRow - firstRow % BLOCK;
+        long endRow = firstRow + n;
+        int segments = (int) ((endRow - alignedStart + BLOCK - 1) / BLOCK);
+        IntStream.range(0, segments).parallel().forEach(s -> {
+            long from = Math.max(firstRow, alignedStart + (long) s * BLOCK);
+            long to = Math.min(endRow, alignedStart + (long) (s + 1) * BLOCK);
+            fillColumns(seed, from, kind, nameId, weight, age, (int) (from - firstRow), (int) (to - from));
+        });
     }
 
-    private static Aquatic randomAquatic() {
-        String name = AQUA_NAMES[RNG.nextInt(AQUA_NAMES.length)];
-        double weight = round(0.05 + RNG.nextDouble() * 10.0); // 0.05..10.05
-        int age = 1 + RNG.nextInt(10);
-        return new Aquatic(name, weight, age);
+    /**
+     * Дописывает count строк набора seed в хранилище (колоночное или внекучевое).
+     * Значения идут через переиспользуемые буферы на один блок, объекты Animal не создаются.
+     */
+    public static void fillStorage(AnimalStorage target, long seed, long count) {
+        byte[] kind = new byte[BLOCK];
+        int[] nameId = new int[BLOCK];
+        double[] weight = new double[BLOCK];
+        int[] age = new int[BLOCK];
+        for (long row = 0; row < count; row += BLOCK) {
+            int n = (int) Math.min(BLOCK, count - row);
+            fillColumns(seed, row, kind, nameId, weight, age, 0, n);
+            for (int i = 0; i < n; i++) {
+                target.add(AnimalKind.ofOrdinal(kind[i]), nameId[i], weight[i], age[i]);
+            }
+        }
     }
 
-    private static Feathered randomFeathered() {
-        String name = FEATHER_NAMES[RNG.nextInt(FEATHER_NAMES.length)];
-        double weight = round(0.05 + RNG.nextDouble() * 5.0); // 0.05..5.05
-        int age = 1 + RNG.nextInt(8);
-        return new Feathered(name, weight, age);
+    /**
+     * Колоночный вариант {@link #fillEnclosures}: тип (ординал {@link EnclosureType}) и вместимость 1..8.
+     * Имена не формируются — при необходимости они выводятся из типа и номера строки.
+     */
+    public static void fillEnclosureColumns(long seed, byte[] type, int[] capacity) {
+        if (capacity.length != type.length) {
+            throw new IllegalArgumentException("column lengths differ");
+        }
+        SplittableRandom rng = new SplittableRandom(mix64(seed));
+        int types = EnclosureType.values().length;
+        for (int i = 0; i < type.length; i++) {
+            type[i] = (byte) rng.nextInt(types);
+            capacity[i] = 1 + rng.nextInt(8);
+        }
     }
 
-    private static Hoofed randomHoofed() {
-        String name = HOOF_NAMES[RNG.nextInt(HOOF_NAMES.length)];
-        double weight = round(20.0 + RNG.nextDouble() * 400.0); // 20..420 kg
-        int age = 1 + RNG.nextInt(20);
-        return new Hoofed(name, weight, age);
+    /* ------------------ helpers ------------------ */
+
+    /**
+     * Случайное животное из генератора rng. Каждое животное берёт из rng ровно четыре числа.
+     *
+     * @param id стабильный id; 0 — выдать новый из {@link AnimalIds}
+     */
+    private static Animal randomAnimal(RandomGenerator rng, long id) {
+        int k = rng.nextInt(4);
+        int[] names = NAME_IDS[k];
+        int name = names[rng.nextInt(names.length)];
+        double weight = (MIN_CENTS[k] + rng.nextInt(SPAN_CENTS[k])) / 100.0;
+        int age = 1 + rng.nextInt(MAX_AGE[k]);
+        AnimalKind kind = AnimalKind.ofOrdinal(k);
+        return id == 0L ? kind.create(name, weight, age) : kind.create(id, name, weight, age);
     }
 
-    private static ColdBlooded randomColdBlooded() {
-        String name = COLD_NAMES[RNG.nextInt(COLD_NAMES.length)];
-        double weight = round(0.01 + RNG.nextDouble() * 20.0); // 0.01..20
-        int age = 1 + RNG.nextInt(12);
-        return new ColdBlooded(name, weight, age);
+    /** Проходит строку, не сохраняя её: те же четыре выборки, что и при генерации. */
+    private static void skipRow(SplittableRandom rng) {
+        int k = rng.nextInt(4);
+        rng.nextInt(NAME_IDS[k].length);
+        rng.nextInt(SPAN_CENTS[k]);
+        rng.nextInt(MAX_AGE[k]);
     }
 
     private static String choosePrefixForType(EnclosureType t) {
@@ -143,7 +357,11 @@ public class RandomDataGenerator {
         };
     }
 
-    private static double round(double v) {
-        return Math.round(v * 100.0) / 100.0;
+    private static int[] internAll(String[] names) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = NameDictionary.global().intern(names[i]);
+        }
+        return ids;
     }
 }
@@ -1,35 +1,357 @@
 package controller;
 
 import enclosure.Enclosure;
+import enclosure.EnclosureRegistry;
+import enclosure.EnclosureType;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.concurrent.RecursiveAction;
 import model.Animal;
 
 /**
  * Контроллер, реализующий логику расселения партии животных по доступным вольерам.
  */
 public class ZooController {
-    /** Список доступных вольеров (локальная копия). */
-    private final List<Enclosure> enclosures;
+    /** Минимальный размер куска партии для отдельной fork-join задачи. */
+    private static final int BATCH_GRAIN = 1 << 14;
+    /** Минимальное число мест в диапазоне вольеров для отдельной fork-join задачи. */
+    private static final int SLOT_GRAIN = 1 << 14;
 
+    /** Стратегия коллекций контроллера: определяет только тип списка неразмещённых животных. */
+    private final CollectionStrategy strategy;
+    /** Очереди свободных вольеров по типам; через них идёт всё расселение. */
+    private final EnclosureRegistry registry;
     /**
-     * Создаёт контроллер с набором вольеров.
+     * Обратный индекс: животное -> вольер, в котором оно размещено.
+     * Animal не переопределяет equals/hashCode, поэтому ключи сравниваются по ссылке.
+     */
+    private final Map<Animal, Enclosure> placements = new ConcurrentHashMap<>();
+
+    /**
+     * Создаёт контроллер с набором вольеров (стратегия {@link CollectionStrategy#ARRAY_LIST}).
      */
     public ZooController(List<Enclosure> enclosures) {
-        this.enclosures = new ArrayList<>(enclosures);
+        this(enclosures, CollectionStrategy.ARRAY_LIST);
+    }
+
+    /**
+     * Создаёт контроллер с набором вольеров и заданной стратегией коллекций.
+     * Вольеры регистрируются в {@link EnclosureRegistry} в порядке списка; сам список не копируется.
+     * Животные, уже находящиеся в вольерах (например, восстановленные из базы),
+     * считаются размещёнными и повторно не расселяются.
+     */
+    public ZooController(List<Enclosure> enclosures, CollectionStrategy strategy) {
+        this.strategy = strategy;
+        this.registry = new EnclosureRegistry(enclosures);
+        for (Enclosure e : enclosures) {
+            e.forEachAnimal(a -> placements.put(a, e));
+        }
+    }
+
+    /**
+     * Стратегия коллекций этого контроллера.
+     */
+    public CollectionStrategy getStrategy() {
+        return strategy;
     }
 
     /**
      * Попытаться расселить каждое животное из пришедшей партии.
+     * Животное попадает в первый по порядку подходящий вольер со свободным местом.
+     *
+     * @return неразмещённые животные в порядке партии (коллекция стратегии)
      */
     public List<Animal> distributeAnimals(List<Animal> incomingBatch) {
-        List<Animal> unassigned = new ArrayList<>();
-        for (Animal a : incomingBatch) {
-            boolean placed = a.move(enclosures);
-            if (!placed) {
-                unassigned.add(a);
+        Animal[] batch = incomingBatch.toArray(new Animal[0]);
+        boolean[] placed = new boolean[batch.length];
+        int unassignedCount = 0;
+        for (int i = 0; i < batch.length; i++) {
+            placed[i] = placeInternal(batch[i]) != null;
+            if (!placed[i]) {
+                unassignedCount++;
+            }
+        }
+        return strategy.collectUnassigned(batch, placed, unassignedCount);
+    }
+
+    /**
+     * Расселить одно животное. Уже размещённое животное повторно не расселяется.
+     *
+     * @return результат размещения (вольер или отказ)
+     */
+    public Placement place(Animal a) {
+        return new Placement(a, placeInternal(a));
+    }
+
+    private Enclosure placeInternal(Animal a) {
+        Enclosure current = placements.get(a);
+        if (current != null) return current;
+        Enclosure e = registry.place(a);
+        if (e != null) placements.put(a, e);
+        return e;
+    }
+
+    /**
+     * Найти вольер, в котором размещено животное, за O(1).
+     *
+     * @return вольер или null, если животное не размещено этим контроллером
+     */
+    public Enclosure findEnclosure(Animal a) {
+        return placements.get(a);
+    }
+
+    /**
+     * Переселить животное в другой вольер.
+     *
+     * @param a животное (размещённое или нет)
+     * @param target новый вольер
+     * @return false если вольер не подходит по типу или в нём нет места
+     * @throws UnsupportedOperationException если животное в вольере, из которого нельзя убирать
+     *         ({@link enclosure.ConcurrentEnclosure}); ничего не меняется
+     */
+    public boolean moveAnimal(Animal a, Enclosure target) {
+        Enclosure current = placements.get(a);
+        if (current == target) return true;
+        requireRemovable(current);
+        if (!target.canAccept(a) || !target.addAnimal(a)) return false;
+        registry.occupy(target);
+        if (current != null && current.removeAnimal(a)) {
+            registry.release(current);
+        }
+        placements.put(a, target);
+        return true;
+    }
+
+    /**
+     * Выселить животное из вольера; освободившееся место снова доступно для расселения.
+     *
+     * @return true если животное было размещено
+     * @throws UnsupportedOperationException если из вольера нельзя убирать животных; ничего не меняется
+     */
+    public boolean evict(Animal a) {
+        Enclosure current = placements.get(a);
+        if (current == null) return false;
+        requireRemovable(current);
+        if (current.removeAnimal(a)) {
+            registry.release(current);
+        }
+        placements.remove(a);
+        return true;
+    }
+
+    private static void requireRemovable(Enclosure e) {
+        if (e != null && !e.isRemovable()) {
+            throw new UnsupportedOperationException("Enclosure " + e.getName() + " does not support removal");
+        }
+    }
+
+    /**
+     * Количество животных, размещённых через этот контроллер.
+     */
+    public int placedCount() {
+        return placements.size();
+    }
+
+    /**
+     * Потоковое расселение: животные берутся из итератора по одному,
+     * результат каждого размещения сразу передаётся в sink.
+     * Следующее животное запрашивается только после обработки предыдущего.
+     */
+    public void distribute(Iterator<Animal> arrivals, Consumer<? super Placement> sink) {
+        while (arrivals.hasNext()) {
+            sink.accept(place(arrivals.next()));
+        }
+    }
+
+    /**
+     * Потоковое расселение из {@link Stream}. Поток обрабатывается последовательно.
+     */
+    public void distribute(Stream<Animal> arrivals, Consumer<? super Placement> sink) {
+        distribute(arrivals.sequential().iterator(), sink);
+    }
+
+    /**
+     * Потоковое расселение из {@link Flow.Publisher} с обратным давлением:
+     * животные запрашиваются у издателя только по мере спроса подписчика на результаты.
+     *
+     * @return издатель результатов размещения (один подписчик)
+     */
+    public Flow.Publisher<Placement> distribute(Flow.Publisher<Animal> arrivals) {
+        PlacementProcessor processor = new PlacementProcessor(this);
+        arrivals.subscribe(processor);
+        return processor;
+    }
+
+    /**
+     * Параллельное расселение в общем fork-join пуле.
+     *
+     * @see #distributeAnimalsParallel(List, ForkJoinPool)
+     */
+    public List<Animal> distributeAnimalsParallel(List<Animal> incomingBatch) {
+        return distributeAnimalsParallel(incomingBatch, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Параллельное расселение партии. Даёт те же размещения, что и {@link #distributeAnimals}:
+     * партия разбивается по типам вольеров, и k-е по порядку животное типа занимает k-е свободное
+     * место в очереди вольеров этого типа. Поэтому вольеры можно делить на непересекающиеся
+     * диапазоны и заполнять их независимо, каждый диапазон — в своей задаче.
+     * Повтор одного и того же животного в партии (по ссылке) не занимает второе место:
+     * как и при последовательном расселении, он получает результат первого вхождения.
+     *
+     * @param incomingBatch партия животных
+     * @param pool пул, в котором выполняются задачи
+     * @return неразмещённые животные в порядке партии
+     */
+    public List<Animal> distributeAnimalsParallel(List<Animal> incomingBatch, ForkJoinPool pool) {
+        Animal[] batch = incomingBatch.toArray(new Animal[0]);
+        int n = batch.length;
+        EnclosureType[] types = EnclosureType.values();
+
+        int chunks = Math.max(1, Math.min((n + BATCH_GRAIN - 1) / BATCH_GRAIN, pool.getParallelism() * 4));
+        int chunkSize = n == 0 ? 0 : (n + chunks - 1) / chunks;
+
+        // 0. Первое вхождение каждого животного (ключи Animal сравниваются по ссылке)
+        Map<Animal, Integer> first = new ConcurrentHashMap<>(Math.max(16, n * 2));
+        List<RecursiveAction> dedupe = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            dedupe.add(action(() -> {
+                int from = chunk * chunkSize;
+                int to = Math.min(n, from + chunkSize);
+                for (int i = from; i < to; i++) {
+                    first.merge(batch[i], i, Math::min);
+                }
+            }));
+        }
+        invokeAll(pool, dedupe);
+
+        // 1. Классификация по типам и подсчёт по кускам партии
+        byte[] kinds = new byte[n];
+        boolean[] placed = new boolean[n];
+        // индекс первого вхождения для повторов, иначе -1
+        int[] duplicateOf = new int[n];
+        int[][] counts = new int[chunks][types.length];
+        List<RecursiveAction> classify = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            classify.add(action(() -> {
+                int from = chunk * chunkSize;
+                int to = Math.min(n, from + chunkSize);
+                for (int i = from; i < to; i++) {
+                    int firstIndex = first.get(batch[i]);
+                    duplicateOf[i] = firstIndex == i ? -1 : firstIndex;
+                    if (firstIndex != i) {
+                        kinds[i] = -1;
+                        continue;
+                    }
+                    if (placements.containsKey(batch[i])) {
+                        kinds[i] = -1;
+                        placed[i] = true;
+                        continue;
+                    }
+                    EnclosureType t = EnclosureRegistry.typeFor(batch[i]);
+                    kinds[i] = (byte) (t == null ? -1 : t.ordinal());
+                    if (t != null) counts[chunk][t.ordinal()]++;
+                }
+            }));
+        }
+        invokeAll(pool, classify);
+
+        // 2. Раскладка индексов по типам с сохранением порядка партии
+        int[][] byType = new int[types.length][];
+        int[][] offsets = new int[chunks][types.length];
+        for (int t = 0; t < types.length; t++) {
+            int total = 0;
+            for (int c = 0; c < chunks; c++) {
+                offsets[c][t] = total;
+                total += counts[c][t];
             }
+            byType[t] = new int[total];
+        }
+        List<RecursiveAction> scatter = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            scatter.add(action(() -> {
+                int[] pos = offsets[chunk].clone();
+                int from = chunk * chunkSize;
+                int to = Math.min(n, from + chunkSize);
+                for (int i = from; i < to; i++) {
+                    if (kinds[i] >= 0) byType[kinds[i]][pos[kinds[i]]++] = i;
+                }
+            }));
+        }
+        invokeAll(pool, scatter);
+
+        // 3. Заполнение непересекающихся диапазонов вольеров
+        int[] placedByType = new int[types.length];
+        List<RecursiveAction> fill = new ArrayList<>();
+        for (EnclosureType t : types) {
+            int[] idx = byType[t.ordinal()];
+            Enclosure[] open = registry.openEnclosures(t);
+            int rank = 0;
+            int from = 0;
+            int rangeStart = 0;
+            for (int j = 0; j < open.length && rank < idx.length; j++) {
+                rank = Math.min(idx.length, rank + open[j].freeSlots());
+                boolean last = j == open.length - 1 || rank == idx.length;
+                if (rank - rangeStart >= SLOT_GRAIN || last) {
+                    fill.add(fillRange(batch, idx, placed, open, from, j + 1, rangeStart, placements));
+                    from = j + 1;
+                    rangeStart = rank;
+                }
+            }
+            placedByType[t.ordinal()] = rank;
+        }
+        invokeAll(pool, fill);
+        for (EnclosureType t : types) {
+            registry.commitBulk(t, placedByType[t.ordinal()]);
+        }
+        int unassignedCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (duplicateOf[i] >= 0) placed[i] = placed[duplicateOf[i]];
+            if (!placed[i]) unassignedCount++;
         }
-        return unassigned;
+        return strategy.collectUnassigned(batch, placed, unassignedCount);
+    }
+
+    /**
+     * Задача заполнения вольеров open[from..to) животными с рангами начиная с firstRank.
+     */
+    private static RecursiveAction fillRange(Animal[] batch, int[] idx, boolean[] placed,
+                                             Enclosure[] open, int from, int to, int firstRank,
+                                             Map<Animal, Enclosure> placements) {
+        return action(() -> {
+            int rank = firstRank;
+            for (int j = from; j < to && rank < idx.length; j++) {
+                Enclosure e = open[j];
+                while (rank < idx.length && e.addAnimal(batch[idx[rank]])) {
+                    placed[idx[rank]] = true;
+                    placements.put(batch[idx[rank]], e);
+                    rank++;
+                }
+            }
+        });
+    }
+
+    private static RecursiveAction action(Runnable body) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                body.run();
+            }
+        };
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<RecursiveAction> tasks) {
+        if (tasks.isEmpty()) return;
+        pool.invoke(action(() -> RecursiveAction.invokeAll(tasks)));
     }
 }
@@ -0,0 +1,82 @@
+package db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import model.Animal;
+import model.NameDictionary;
+
+/**
+ * Двоичный формат файла животных (big-endian).
+ *
+ * Заголовок, 16 байт: магия {@code 0x895A4F4F} (4), версия (2), флаги (2), число записей (8).
+ * Запись: вид — ординал {@link model.AnimalKind} (1), id (8), вес (8, double), возраст (4),
+ * длина имени varint, байты имени в UTF-8.
+ * Первый байт магии не встречается в тексте UTF-8, поэтому формат файла определяется по нему
+ * ({@link DatabaseFormat#detect}).
+ */
+final class AnimalBinaryFormat {
+    static final int MAGIC = 0x895A4F4F;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    /** Вид, id, вес и возраст. */
+    static final int FIXED_BYTES = 1 + 8 + 8 + 4;
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private AnimalBinaryFormat() {
+    }
+
+    /**
+     * Записывает животных в файл, заменяя его содержимое.
+     */
+    static void write(List<Animal> animals, Path file) throws IOException {
+        Utf8NameCache names = new Utf8NameCache(NameDictionary.global());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES);
+            buf.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(animals.size());
+            for (Animal animal : animals) {
+                byte[] name = names.encode(animal.getNameId());
+                int need = FIXED_BYTES + 5 + name.length;
+                if (buf.remaining() < need) {
+                    drain(channel, buf);
+                    if (buf.capacity() < need) {
+                        buf = ByteBuffer.allocate(need);
+                    }
+                }
+                putRecord(buf, animal, name);
+            }
+            drain(channel, buf);
+        }
+    }
+
+    /** Записывает одну запись; в buf должно быть не меньше {@code FIXED_BYTES + 5 + name.length} байт. */
+    static void putRecord(ByteBuffer buf, Animal animal, byte[] name) {
+        buf.put((byte) animal.getKind().ordinal())
+           .putLong(animal.getId())
+           .putDouble(animal.getWeight())
+           .putInt(animal.getAge());
+        putVarint(buf, name.length);
+        buf.put(name);
+    }
+
+    static void putVarint(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+}
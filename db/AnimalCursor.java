@@ -0,0 +1,259 @@
+package db;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import model.Animal;
+import model.AnimalIds;
+import model.AnimalKind;
+import model.DirectBuffers;
+import model.NameDictionary;
+
+/**
+ * Последовательный курсор по файлу животных (текстовому, двоичному или сжатому) без загрузки списка целиком.
+ * Файл отображается в память окнами ограниченного размера, сжатый — распаковывается по одному блоку;
+ * поля текущей записи доступны как примитивы,
+ * объект {@link Animal} создаётся только по {@link #toAnimal()}. Память на обход постоянна.
+ *
+ * <pre>
+ * try (AnimalCursor cursor = DatabaseManager.openCursor(file)) {
+ *     while (cursor.next()) { ... cursor.weight() ... }
+ * }
+ * </pre>
+ *
+ * У строк старого текстового формата без id {@link #id()} и обработчик получают id 0;
+ * новый id, как при обычной загрузке, выдаётся только объекту из {@link #toAnimal()}.
+ * Курсор читает только сам файл: изменения из журнала {@code animals.db} не применяются, поэтому
+ * {@link DatabaseManager#openCursor} не открывает снимок с непустым журналом, а хранилище
+ * ({@link DatabaseManager#forEachAnimal(RecordVisitor)}) досылает изменения из журнала после снимка.
+ */
+public final class AnimalCursor implements AutoCloseable {
+    static final long DEFAULT_WINDOW = 64L << 20;
+
+    /**
+     * Обработчик записи при обходе. Получает поля записи как примитивы.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long id, byte kind, int nameId, double weight, int age);
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final DatabaseFormat format;
+    private final MappedLoader decoder = new MappedLoader();
+    private long window;
+    private MappedByteBuffer buf;
+    /* Сжатый файл: индекс блоков и столбцы текущего блока. */
+    private CompressedAnimalFormat.Index index;
+    private CompressedAnimalFormat.Block columns;
+    private Utf8NameCache names;
+    private int block = -1;
+    /** Смещение окна в файле. */
+    private long base;
+    /** Позиция следующей записи в окне (в сжатом файле — номер записи в блоке). */
+    private int pos;
+    /** Оставшиеся записи двоичного файла или текущего блока сжатого. */
+    private long remaining;
+    private boolean closed;
+
+    AnimalCursor(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    /** @param window начальный размер окна отображения, байт (растёт, если запись в него не помещается) */
+    AnimalCursor(Path file, long window) throws IOException {
+        this.format = DatabaseFormat.detect(file);
+        this.window = Math.max(AnimalBinaryFormat.HEADER_BYTES, Math.min(window, Integer.MAX_VALUE));
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            if (format == DatabaseFormat.COMPRESSED) {
+                index = CompressedAnimalFormat.Index.read(channel);
+                names = new Utf8NameCache(NameDictionary.global());
+                return;
+            }
+            map(0);
+            if (format == DatabaseFormat.BINARY) {
+                remaining = MappedLoader.binaryCount(buf);
+                pos = AnimalBinaryFormat.HEADER_BYTES;
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Переходит к следующей записи.
+     *
+     * @return false, если записи кончились
+     */
+    public boolean next() throws IOException {
+        if (closed) {
+            throw new IOException("Cursor is closed");
+        }
+        switch (format) {
+            case BINARY:
+                return nextBinary();
+            case COMPRESSED:
+                return nextCompressed();
+            default:
+                return nextLine();
+        }
+    }
+
+    /** Ординал {@link AnimalKind} текущей записи. */
+    public byte kindOrdinal() {
+        return (byte) decoder.kind;
+    }
+
+    public AnimalKind kind() {
+        return AnimalKind.ofOrdinal(decoder.kind);
+    }
+
+    /** Id текущей записи; 0 у строки старого формата без id, пока для неё не создан объект. */
+    public long id() {
+        return decoder.id;
+    }
+
+    public int nameId() {
+        return decoder.nameId;
+    }
+
+    public String name() {
+        return NameDictionary.global().name(decoder.nameId);
+    }
+
+    public double weight() {
+        return decoder.weight;
+    }
+
+    public int age() {
+        return decoder.age;
+    }
+
+    /** Новый объект животного для текущей записи; строке без id при первом вызове выдаётся новый id. */
+    public Animal toAnimal() {
+        if (!decoder.hasId) {
+            decoder.id = AnimalIds.next();
+            decoder.hasId = true;
+        }
+        return kind().create(decoder.id, decoder.nameId, decoder.weight, decoder.age);
+    }
+
+    /**
+     * Передаёт обработчику все оставшиеся записи.
+     *
+     * @return число переданных записей
+     */
+    public long forEachRemaining(RecordVisitor visitor) throws IOException {
+        long count = 0;
+        while (next()) {
+            visitor.visit(decoder.id, (byte) decoder.kind, decoder.nameId, decoder.weight, decoder.age);
+            count++;
+        }
+        return count;
+    }
+
+    /** Число пропущенных некорректных строк текстового файла. */
+    public int skipped() {
+        return decoder.skipped();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (buf != null) {
+            DirectBuffers.release(buf);
+            buf = null;
+        }
+        channel.close();
+    }
+
+    private boolean nextBinary() throws IOException {
+        while (remaining > 0) {
+            int end = decoder.decodeBinary(buf, pos, buf.limit());
+            if (end >= 0) {
+                pos = end;
+                remaining--;
+                return true;
+            }
+            if (base + buf.limit() == size) {
+                throw new EOFException("Truncated binary animals file");
+            }
+            advance();
+        }
+        return false;
+    }
+
+    private boolean nextCompressed() throws IOException {
+        while (remaining == 0) {
+            if (++block >= index.blocks()) {
+                block = index.blocks();
+                return false;
+            }
+            columns = CompressedAnimalFormat.read(channel, index, block, names);
+            pos = 0;
+            remaining = columns.rows;
+        }
+        decoder.kind = columns.kinds[pos];
+        decoder.id = columns.ids[pos];
+        decoder.hasId = true;
+        decoder.weight = columns.weights[pos];
+        decoder.age = columns.ages[pos];
+        decoder.nameId = columns.nameIds[pos];
+        pos++;
+        remaining--;
+        return true;
+    }
+
+    private boolean nextLine() throws IOException {
+        while (base + pos < size) {
+            int limit = buf.limit();
+            int end = pos;
+            while (end < limit && buf.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && base + limit < size) {
+                advance();
+                continue;
+            }
+            int from = pos;
+            int to = end > from && buf.get(end - 1) == '\r' ? end - 1 : end;
+            pos = end + 1;
+            if (to > from && decoder.decodeLine(buf, from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Сдвигает окно к текущей позиции; если запись не поместилась в целое окно — увеличивает его. */
+    private void advance() throws IOException {
+        if (pos == 0) {
+            if (window >= Integer.MAX_VALUE) {
+                throw new IOException("Record at offset " + base + " does not fit into a mapping window");
+            }
+            window = Math.min(window * 2, Integer.MAX_VALUE);
+        }
+        map(base + pos);
+    }
+
+    private void map(long offset) throws IOException {
+        if (buf != null) {
+            DirectBuffers.release(buf);
+            buf = null;
+        }
+        long length = Math.min(window, size - offset);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        base = offset;
+        pos = 0;
+    }
+}
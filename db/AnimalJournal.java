@@ -0,0 +1,659 @@
+package db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Animal;
+import model.AnimalKind;
+import model.DirectBuffers;
+import model.IdIndex;
+import model.NameDictionary;
+
+/**
+ * База животных в виде снимка (snapshot) и журнала изменений рядом с ним ({@code <снимок>.journal}).
+ *
+ * Сохранение сравнивает список с последним записанным состоянием по id и дописывает в журнал
+ * только операции ADD / UPDATE / REMOVE. Когда журнал разрастается, снимок переписывается целиком
+ * (уплотнение), а журнал удаляется. Загрузка читает снимок и применяет к нему журнал.
+ *
+ * Журнал (big-endian): заголовок — магия {@code 0x895A4F4A} (4), версия (2), резерв (2);
+ * запись — операция (1), id (8), для ADD/UPDATE далее вид (1), вес (8), возраст (4), длина имени varint, имя UTF-8.
+ * Недописанная последняя запись (сбой во время сохранения) при загрузке отбрасывается.
+ *
+ * Уплотнение: новый снимок пишется во временный файл {@code <снимок>.tmp} и сбрасывается на диск,
+ * затем рядом записывается метка {@code <снимок>.tmp.commit} с длиной временного файла, затем удаляется
+ * журнал, временный файл заменяет снимок, и метка удаляется. Если работа прервалась, при загрузке
+ * временный файл занимает место снимка, только если журнала уже нет, а метка есть и длина совпадает;
+ * иначе временный файл считается недописанным и удаляется.
+ */
+final class AnimalJournal {
+    static final int MAGIC = 0x895A4F4A;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    static final byte ADD = 1;
+    static final byte UPDATE = 2;
+    static final byte REMOVE = 3;
+
+    /** Уплотнять, когда в журнале больше операций, чем max(этого порога, половины живых записей). */
+    static final int COMPACT_MIN_OPS = 10_000;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path snapshot;
+    private final Path journal;
+    private final Path pending;
+    private final Path commitMark;
+
+    /* Последнее записанное состояние: id -> слот в колонках. */
+    private IdIndex slots = new IdIndex();
+    private long[] ids = new long[0];
+    private byte[] kinds = new byte[0];
+    private int[] nameIds = new int[0];
+    private double[] weights = new double[0];
+    private int[] ages = new int[0];
+    /** Поколение последнего сохранения, в котором слот встретился; -1 — слот свободен. */
+    private int[] seen = new int[0];
+    private int slotCount;
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private int generation;
+
+    /** false — состояние на диске неизвестно или не совпадает с колонками: следующее сохранение пишет снимок. */
+    private boolean tracking;
+    private long journalOps;
+    /** Длина корректной части журнала; хвост за ней отрезается перед дозаписью. */
+    private long journalLength = -1;
+    /**
+     * Размер и время изменения снимка и журнала, когда запомненное состояние совпадало с файлами;
+     * расхождение значит, что файлы переписал кто-то другой (например, другой процесс).
+     */
+    private final long[] stamp = new long[4];
+
+    /** Операции текущего сохранения. */
+    private ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+    private long opsCount;
+    private final Utf8NameCache names = new Utf8NameCache(NameDictionary.global());
+
+    /**
+     * Есть ли рядом со снимком непустой журнал: тогда файл снимка сам по себе устарел.
+     */
+    static boolean hasPendingJournal(Path snapshot) throws IOException {
+        Path journal = snapshot.resolveSibling(snapshot.getFileName() + ".journal");
+        return Files.exists(journal) && Files.size(journal) > HEADER_BYTES;
+    }
+
+    AnimalJournal(Path snapshot) {
+        this.snapshot = snapshot;
+        this.journal = snapshot.resolveSibling(snapshot.getFileName() + ".journal");
+        this.pending = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        this.commitMark = snapshot.resolveSibling(snapshot.getFileName() + ".tmp.commit");
+    }
+
+    /**
+     * Загружает снимок и применяет журнал; запомненное состояние становится базой для следующих сохранений.
+     */
+    synchronized List<Animal> load(MappedLoader loader) throws IOException {
+        tracking = false;
+        recover();
+        List<Animal> animals = Files.exists(snapshot) ? loader.loadAnimals(snapshot) : new ArrayList<>();
+        journalOps = 0;
+        journalLength = -1;
+        if (Files.exists(journal)) {
+            animals = replay(animals);
+        }
+        rebuild(animals);
+        stampFiles();
+        return animals;
+    }
+
+    /**
+     * Снимок, если журнал пуст и снимок отражает сохранённое состояние целиком; иначе null.
+     * Прерванное уплотнение перед этим завершается.
+     */
+    synchronized Path currentSnapshot() throws IOException {
+        recover();
+        return Files.exists(journal) && Files.size(journal) > HEADER_BYTES ? null : snapshot;
+    }
+
+    /**
+     * Передаёт обработчику записи запомненного состояния — последнего сохранённого или загруженного,
+     * то есть снимка с применённым журналом, — без чтения файлов и создания объектов.
+     *
+     * Перед этим размер и время изменения файлов сверяются с запомненными: если файлы переписаны
+     * в обход этого экземпляра, состояние больше не отслеживается.
+     *
+     * @return число записей или -1, если состояние не отслеживается (не было загрузки или сохранения,
+     * в списке повторялись id или файлы изменились)
+     */
+    synchronized long visitTracked(AnimalCursor.RecordVisitor visitor) throws IOException {
+        if (!trackingCurrent()) {
+            return -1;
+        }
+        long count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (seen[slot] >= 0) {
+                visitor.visit(ids[slot], kinds[slot], nameIds[slot], weights[slot], ages[slot]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Передаёт обработчику сохранённое состояние (снимок с применённым журналом) без загрузки списка:
+     * журнал читается в таблицу последних версий записей по id, снимок — курсором, и записи снимка,
+     * затронутые журналом, пропускаются; затем передаются записи журнала, оставшиеся после удалений.
+     * Порядок отличается от {@link #load}: изменённые и добавленные журналом записи идут последними.
+     * Памяти нужно на записи журнала, а не на всю базу; запомненное состояние не меняется.
+     *
+     * @return число записей
+     */
+    synchronized long visit(AnimalCursor.RecordVisitor visitor) throws IOException {
+        recover();
+        IdIndex changed = new IdIndex();
+        JournalColumns latest = new JournalColumns();
+        if (Files.exists(journal)) {
+            readJournal((op, id, kind, nameId, weight, age) -> {
+                int row = changed.get(id);
+                if (row == IdIndex.NO_SLOT) {
+                    row = latest.add(id);
+                    changed.put(id, row);
+                }
+                latest.set(row, op == REMOVE ? -1 : kind, nameId, weight, age);
+            });
+        }
+        long count = 0;
+        if (Files.exists(snapshot)) {
+            try (AnimalCursor cursor = new AnimalCursor(snapshot)) {
+                while (cursor.next()) {
+                    if (changed.get(cursor.id()) == IdIndex.NO_SLOT) {
+                        visitor.visit(cursor.id(), cursor.kindOrdinal(), cursor.nameId(), cursor.weight(), cursor.age());
+                        count++;
+                    }
+                }
+                DatabaseManager.logSkipped(cursor.skipped(), "animal");
+            }
+        }
+        for (int row = 0; row < latest.size; row++) {
+            if (latest.kinds[row] >= 0) {
+                visitor.visit(latest.ids[row], latest.kinds[row], latest.nameIds[row], latest.weights[row], latest.ages[row]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Последние версии записей журнала по порядку первого появления id; вид -1 — запись удалена. */
+    private static final class JournalColumns {
+        long[] ids = new long[16];
+        byte[] kinds = new byte[16];
+        int[] nameIds = new int[16];
+        double[] weights = new double[16];
+        int[] ages = new int[16];
+        int size;
+
+        int add(long id) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                nameIds = Arrays.copyOf(nameIds, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+            }
+            ids[size] = id;
+            return size++;
+        }
+
+        void set(int row, int kind, int nameId, double weight, int age) {
+            kinds[row] = (byte) kind;
+            nameIds[row] = nameId;
+            weights[row] = weight;
+            ages[row] = age;
+        }
+    }
+
+    /**
+     * Записывает изменения списка относительно последнего сохранённого состояния.
+     *
+     * @param format формат снимка, если понадобится уплотнение
+     * @return число операций, дописанных в журнал (или размер снимка, если он был переписан)
+     */
+    synchronized long save(List<Animal> animals, DatabaseFormat format) throws IOException {
+        if (!trackingCurrent()) {
+            // изменения относительно устаревшего состояния не ложатся на чужие файлы — только снимок целиком
+            compact(animals, format);
+            return animals.size();
+        }
+        boolean ok = false;
+        try {
+            ByteBuffer ops = diff(animals);
+            if (ops == null) {
+                // повторяющиеся id не выражаются операциями журнала — только снимком
+                compact(animals, format);
+                ok = true;
+                return animals.size();
+            }
+            long written = opsCount;
+            if (written > 0) {
+                append(ops);
+                journalOps += written;
+                stampFiles();
+            }
+            if (journalOps > Math.max(COMPACT_MIN_OPS, (slotCount - freeCount) / 2)) {
+                compact(animals, format);
+            }
+            ok = true;
+            return written;
+        } finally {
+            if (!ok) {
+                tracking = false;
+            }
+        }
+    }
+
+    /**
+     * Переписывает снимок целиком из списка и удаляет журнал.
+     */
+    synchronized void compact(List<Animal> animals, DatabaseFormat format) throws IOException {
+        tracking = false;
+        Files.deleteIfExists(commitMark);
+        DatabaseManager.writeAnimals(animals, pending, format);
+        long length;
+        try (FileChannel channel = FileChannel.open(pending, StandardOpenOption.WRITE)) {
+            channel.force(true);
+            length = channel.size();
+        }
+        writeCommitMark(length);
+        Files.deleteIfExists(journal);
+        promotePending();
+        Files.deleteIfExists(commitMark);
+        journalOps = 0;
+        journalLength = -1;
+        rebuild(animals);
+        stampFiles();
+    }
+
+    /** Отслеживается ли состояние и совпадают ли файлы с запомненными; при расхождении отслеживание снимается. */
+    private boolean trackingCurrent() throws IOException {
+        if (tracking && (stamp[0] != sizeOf(snapshot) || stamp[1] != timeOf(snapshot)
+                || stamp[2] != sizeOf(journal) || stamp[3] != timeOf(journal))) {
+            tracking = false;
+        }
+        return tracking;
+    }
+
+    private void stampFiles() throws IOException {
+        stamp[0] = sizeOf(snapshot);
+        stamp[1] = timeOf(snapshot);
+        stamp[2] = sizeOf(journal);
+        stamp[3] = timeOf(journal);
+    }
+
+    private static long sizeOf(Path file) throws IOException {
+        return Files.exists(file) ? Files.size(file) : -1;
+    }
+
+    private static long timeOf(Path file) throws IOException {
+        return Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : -1;
+    }
+
+    /** Завершает или откатывает прерванное уплотнение. */
+    private void recover() throws IOException {
+        if (Files.exists(pending)) {
+            if (!Files.exists(journal) && committed()) {
+                promotePending();
+            } else {
+                Files.delete(pending);
+            }
+        }
+        Files.deleteIfExists(commitMark);
+    }
+
+    /** Метка уплотнения: длина временного файла, записанная после его сброса на диск. */
+    private void writeCommitMark(long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(commitMark, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer mark = ByteBuffer.allocate(12).putInt(MAGIC).putLong(length);
+            mark.flip();
+            while (mark.hasRemaining()) {
+                channel.write(mark);
+            }
+            channel.force(true);
+        }
+    }
+
+    /** Дописан ли временный файл целиком: есть метка, и длина в ней совпадает с длиной файла. */
+    private boolean committed() throws IOException {
+        if (!Files.exists(commitMark) || Files.size(commitMark) != 12) {
+            return false;
+        }
+        ByteBuffer mark = ByteBuffer.wrap(Files.readAllBytes(commitMark));
+        return mark.getInt() == MAGIC && mark.getLong() == Files.size(pending);
+    }
+
+    private void promotePending() throws IOException {
+        try {
+            Files.move(pending, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(pending, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /* ------------------ сравнение ------------------ */
+
+    /**
+     * Сравнивает список с состоянием и обновляет состояние; операции копятся в {@link #out}.
+     *
+     * @return буфер операций или null, если в списке повторяются id
+     */
+    private ByteBuffer diff(List<Animal> animals) {
+        out.clear();
+        opsCount = 0;
+        int gen = ++generation;
+        for (Animal a : animals) {
+            long id = a.getId();
+            int slot = slots.get(id);
+            if (slot == IdIndex.NO_SLOT) {
+                slot = allocate(id);
+                store(slot, a);
+                seen[slot] = gen;
+                putRecord(ADD, a);
+            } else if (seen[slot] == gen) {
+                return null;
+            } else {
+                seen[slot] = gen;
+                if (differs(slot, a)) {
+                    store(slot, a);
+                    putRecord(UPDATE, a);
+                }
+            }
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (seen[slot] >= 0 && seen[slot] != gen) {
+                ensureOut(1 + 8);
+                out.put(REMOVE).putLong(ids[slot]);
+                opsCount++;
+                slots.remove(ids[slot]);
+                release(slot);
+            }
+        }
+        return out;
+    }
+
+    private boolean differs(int slot, Animal a) {
+        return kinds[slot] != a.getKind().ordinal()
+                || nameIds[slot] != a.getNameId()
+                || Double.doubleToLongBits(weights[slot]) != Double.doubleToLongBits(a.getWeight())
+                || ages[slot] != a.getAge();
+    }
+
+    private void putRecord(byte op, Animal a) {
+        byte[] name = names.encode(a.getNameId());
+        ensureOut(1 + 8 + AnimalBinaryFormat.FIXED_BYTES + 5 + name.length);
+        out.put(op)
+           .putLong(a.getId())
+           .put((byte) a.getKind().ordinal())
+           .putDouble(a.getWeight())
+           .putInt(a.getAge());
+        AnimalBinaryFormat.putVarint(out, name.length);
+        out.put(name);
+        opsCount++;
+    }
+
+    private void ensureOut(int need) {
+        if (out.remaining() < need) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + need));
+            out.flip();
+            out = bigger.put(out);
+        }
+    }
+
+    private void append(ByteBuffer ops) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            if (journalLength >= 0 && journalLength < end) {
+                channel.truncate(journalLength);
+                end = journalLength;
+            }
+            if (end < HEADER_BYTES) {
+                // пустой журнал или обрывок заголовка после сбоя при первой дозаписи
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                end = HEADER_BYTES;
+            }
+            ops.flip();
+            while (ops.hasRemaining()) {
+                end += channel.write(ops, end);
+            }
+            channel.force(false);
+            journalLength = end;
+        }
+        if (out.capacity() > BUFFER_BYTES * 16) {
+            out = ByteBuffer.allocate(BUFFER_BYTES);
+        }
+    }
+
+    /* ------------------ воспроизведение ------------------ */
+
+    private List<Animal> replay(List<Animal> animals) throws IOException {
+        IdIndex positions = new IdIndex(animals.size());
+        for (int i = 0; i < animals.size(); i++) {
+            positions.put(animals.get(i).getId(), i);
+        }
+        ArrayList<Animal> result = new ArrayList<>(animals);
+        boolean[] removed = {false};
+        long end = readJournal((op, id, kind, nameId, weight, age) -> {
+            int index = positions.get(id);
+            if (op == REMOVE) {
+                if (index != IdIndex.NO_SLOT) {
+                    result.set(index, null);
+                    positions.remove(id);
+                    removed[0] = true;
+                }
+            } else {
+                Animal animal = AnimalKind.ofOrdinal(kind).create(id, nameId, weight, age);
+                if (index == IdIndex.NO_SLOT) {
+                    positions.put(id, result.size());
+                    result.add(animal);
+                } else {
+                    result.set(index, animal);
+                }
+            }
+            journalOps++;
+        });
+        if (end < 0) {
+            return animals;
+        }
+        journalLength = end;
+        if (removed[0]) {
+            result.removeIf(a -> a == null);
+        }
+        return result;
+    }
+
+    /** Операция журнала; для REMOVE поля, кроме id, не заданы. */
+    private interface JournalOp {
+        void apply(byte op, long id, int kind, int nameId, double weight, int age);
+    }
+
+    /**
+     * Передаёт обработчику операции журнала по порядку до первой неполной записи.
+     * Журнал короче заголовка (сбой при первой дозаписи) операций не содержит и удаляется.
+     *
+     * @return конец последней целой записи или -1, если журнал удалён
+     */
+    private long readJournal(JournalOp handler) throws IOException {
+        if (Files.size(journal) < HEADER_BYTES) {
+            Files.delete(journal);
+            journalLength = -1;
+            return -1;
+        }
+        Utf8NameCache replayNames = new Utf8NameCache(NameDictionary.global());
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large, compaction required: " + journal);
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                if (buf.getInt(0) != MAGIC || buf.getShort(4) != VERSION) {
+                    throw new IOException("Not a journal file or unsupported version: " + journal);
+                }
+                int pos = HEADER_BYTES;
+                int limit = buf.limit();
+                byte[] name = new byte[64];
+                while (true) {
+                    int recordEnd = recordEnd(buf, pos, limit);
+                    if (recordEnd < 0) {
+                        break;
+                    }
+                    byte op = buf.get(pos);
+                    long id = buf.getLong(pos + 1);
+                    if (op == REMOVE) {
+                        handler.apply(op, id, -1, -1, 0, 0);
+                    } else {
+                        int p = pos + 9;
+                        int kind = buf.get(p);
+                        double weight = buf.getDouble(p + 1);
+                        int age = buf.getInt(p + 9);
+                        p += AnimalBinaryFormat.FIXED_BYTES - 8;
+                        int length = 0;
+                        for (int shift = 0; ; shift += 7) {
+                            byte b = buf.get(p++);
+                            length |= (b & 0x7F) << shift;
+                            if (b >= 0) {
+                                break;
+                            }
+                        }
+                        if (name.length < length) {
+                            name = new byte[length];
+                        }
+                        buf.get(p, name, 0, length);
+                        handler.apply(op, id, kind, replayNames.intern(name, 0, length), weight, age);
+                    }
+                    pos = recordEnd;
+                }
+                return pos;
+            } finally {
+                DirectBuffers.release(buf);
+            }
+        }
+    }
+
+    /**
+     * Конец записи, начинающейся в pos, или -1, если запись неполная или повреждена.
+     */
+    private static int recordEnd(ByteBuffer buf, int pos, int limit) throws IOException {
+        if (limit - pos < 9) {
+            return -1;
+        }
+        byte op = buf.get(pos);
+        if (op == REMOVE) {
+            return pos + 9;
+        }
+        if (op != ADD && op != UPDATE) {
+            return -1;
+        }
+        int p = pos + 9 + AnimalBinaryFormat.FIXED_BYTES - 8;
+        if (p > limit) {
+            return -1;
+        }
+        int kind = buf.get(pos + 9);
+        if (kind < 0 || kind >= AnimalKind.values().length) {
+            return -1;
+        }
+        int length = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (p >= limit) {
+                return -1;
+            }
+            byte b = buf.get(p++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length >= 0 && limit - p >= length ? p + length : -1;
+            }
+        }
+        return -1;
+    }
+
+    /* ------------------ состояние ------------------ */
+
+    private void rebuild(List<Animal> animals) {
+        slots = new IdIndex(animals.size());
+        int capacity = Math.max(16, animals.size());
+        ids = new long[capacity];
+        kinds = new byte[capacity];
+        nameIds = new int[capacity];
+        weights = new double[capacity];
+        ages = new int[capacity];
+        seen = new int[capacity];
+        slotCount = 0;
+        freeCount = 0;
+        generation = 1;
+        boolean duplicates = false;
+        for (Animal a : animals) {
+            int slot = slots.get(a.getId());
+            if (slot == IdIndex.NO_SLOT) {
+                slot = allocate(a.getId());
+            } else {
+                duplicates = true;
+            }
+            store(slot, a);
+            seen[slot] = generation;
+        }
+        tracking = !duplicates;
+    }
+
+    private int allocate(long id) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == ids.length) {
+                grow(Math.max(16, slotCount * 2));
+            }
+            slot = slotCount++;
+        }
+        ids[slot] = id;
+        slots.put(id, slot);
+        return slot;
+    }
+
+    private void release(int slot) {
+        seen[slot] = -1;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void store(int slot, Animal a) {
+        kinds[slot] = (byte) a.getKind().ordinal();
+        nameIds[slot] = a.getNameId();
+        weights[slot] = a.getWeight();
+        ages[slot] = a.getAge();
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        nameIds = Arrays.copyOf(nameIds, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        seen = Arrays.copyOf(seen, capacity);
+    }
+}
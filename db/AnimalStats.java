@@ -0,0 +1,175 @@
+package db;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import model.Animal;
+import model.AnimalKind;
+
+/**
+ * Агрегаты по животным, накапливаемые при просмотре записей: число по видам, средний,
+ * наименьший и наибольший вес, наибольший возраст, гистограмма возрастов.
+ * Как {@link AnimalCursor.RecordVisitor} принимает поля записи без создания объектов;
+ * частичные агрегаты кусков файла объединяются {@link #merge}.
+ * Экземпляр не потокобезопасен: у каждой задачи свой.
+ */
+public final class AnimalStats implements AnimalCursor.RecordVisitor {
+    /** Возрасты [0, HISTOGRAM_AGES) считаются в массиве, остальные — в отдельной таблице. */
+    private static final int HISTOGRAM_AGES = 256;
+
+    private static final AnimalKind[] KINDS = AnimalKind.values();
+
+    private final long[] counts = new long[KINDS.length];
+    private final double[] weightSums = new double[KINDS.length];
+    private final double[] minWeights = new double[KINDS.length];
+    private final double[] maxWeights = new double[KINDS.length];
+    private final int[] maxAges = new int[KINDS.length];
+    private final long[] ageCounts = new long[HISTOGRAM_AGES];
+    private final Map<Integer, Long> otherAges = new HashMap<>();
+
+    public AnimalStats() {
+        Arrays.fill(minWeights, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxWeights, Double.NEGATIVE_INFINITY);
+        Arrays.fill(maxAges, Integer.MIN_VALUE);
+    }
+
+    /** Агрегаты уже загруженного списка. */
+    public static AnimalStats of(Collection<? extends Animal> animals) {
+        AnimalStats stats = new AnimalStats();
+        for (Animal a : animals) {
+            stats.add(a.getKind().ordinal(), a.getWeight(), a.getAge());
+        }
+        return stats;
+    }
+
+    @Override
+    public void visit(long id, byte kind, int nameId, double weight, int age) {
+        add(kind, weight, age);
+    }
+
+    /** Учитывает одну запись; kind — ординал {@link AnimalKind}. */
+    void add(int kind, double weight, int age) {
+        counts[kind]++;
+        weightSums[kind] += weight;
+        if (weight < minWeights[kind]) {
+            minWeights[kind] = weight;
+        }
+        if (weight > maxWeights[kind]) {
+            maxWeights[kind] = weight;
+        }
+        if (age > maxAges[kind]) {
+            maxAges[kind] = age;
+        }
+        if (age >= 0 && age < HISTOGRAM_AGES) {
+            ageCounts[age]++;
+        } else {
+            otherAges.merge(age, 1L, Long::sum);
+        }
+    }
+
+    /** Добавляет к этим агрегатам другие (например, соседнего куска файла). */
+    public AnimalStats merge(AnimalStats other) {
+        for (int k = 0; k < KINDS.length; k++) {
+            counts[k] += other.counts[k];
+            weightSums[k] += other.weightSums[k];
+            minWeights[k] = Math.min(minWeights[k], other.minWeights[k]);
+            maxWeights[k] = Math.max(maxWeights[k], other.maxWeights[k]);
+            maxAges[k] = Math.max(maxAges[k], other.maxAges[k]);
+        }
+        for (int age = 0; age < HISTOGRAM_AGES; age++) {
+            ageCounts[age] += other.ageCounts[age];
+        }
+        other.otherAges.forEach((age, n) -> otherAges.merge(age, n, Long::sum));
+        return this;
+    }
+
+    public long count() {
+        long total = 0;
+        for (long n : counts) {
+            total += n;
+        }
+        return total;
+    }
+
+    public long count(AnimalKind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /** Число животных по видам; виды без животных не включаются. */
+    public Map<AnimalKind, Long> countByKind() {
+        Map<AnimalKind, Long> result = new EnumMap<>(AnimalKind.class);
+        for (AnimalKind kind : KINDS) {
+            if (counts[kind.ordinal()] > 0) {
+                result.put(kind, counts[kind.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    /** Средний вес; NaN, если животных нет. */
+    public double averageWeight() {
+        double sum = 0;
+        for (double s : weightSums) {
+            sum += s;
+        }
+        return sum / count();
+    }
+
+    /** Средний вес животных вида; NaN, если их нет. */
+    public double averageWeight(AnimalKind kind) {
+        return weightSums[kind.ordinal()] / counts[kind.ordinal()];
+    }
+
+    /** Наименьший вес; +∞, если животных нет. */
+    public double minWeight() {
+        double min = Double.POSITIVE_INFINITY;
+        for (double w : minWeights) {
+            min = Math.min(min, w);
+        }
+        return min;
+    }
+
+    /** Наибольший вес; −∞, если животных нет. */
+    public double maxWeight() {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double w : maxWeights) {
+            max = Math.max(max, w);
+        }
+        return max;
+    }
+
+    /** Наибольший возраст; {@link Integer#MIN_VALUE}, если животных нет. */
+    public int maxAge() {
+        int max = Integer.MIN_VALUE;
+        for (int a : maxAges) {
+            max = Math.max(max, a);
+        }
+        return max;
+    }
+
+    /** Наибольший возраст животных вида; {@link Integer#MIN_VALUE}, если их нет. */
+    public int maxAge(AnimalKind kind) {
+        return maxAges[kind.ordinal()];
+    }
+
+    /** Число животных каждого встретившегося возраста, по возрастанию возраста. */
+    public SortedMap<Integer, Long> ageHistogram() {
+        SortedMap<Integer, Long> histogram = new TreeMap<>(otherAges);
+        for (int age = 0; age < HISTOGRAM_AGES; age++) {
+            if (ageCounts[age] > 0) {
+                histogram.put(age, ageCounts[age]);
+            }
+        }
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AnimalStats{count=%d, byKind=%s, avgWeight=%.2f, maxAge=%d}",
+                count(), countByKind(), averageWeight(), maxAge());
+    }
+}
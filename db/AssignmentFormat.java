@@ -0,0 +1,144 @@
+package db;
+
+import enclosure.Enclosure;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import model.Animal;
+import model.IdIndex;
+
+/**
+ * Двоичная секция размещения животных по вольерам (big-endian): список смежности
+ * «номер вольера в файле вольеров → id животных».
+ *
+ * Заголовок: магия {@code 0x895A4F45} (4), версия (2), резерв (2), число вольеров (4).
+ * Далее для каждого вольера по порядку: число животных varint и их id —
+ * zigzag-varint разности с предыдущим id (соседние id обычно близки, поэтому выходит 1–3 байта на животное).
+ */
+final class AssignmentFormat {
+    static final int MAGIC = 0x895A4F45;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 12;
+
+    private AssignmentFormat() {
+    }
+
+    /**
+     * Кодирует текущее размещение животных в вольерах.
+     */
+    static byte[] encode(List<Enclosure> enclosures) {
+        int animals = 0;
+        for (Enclosure e : enclosures) {
+            animals += e.size();
+        }
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + enclosures.size() * 5 + animals * 10);
+        buf.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(enclosures.size());
+        IdBuffer ids = new IdBuffer();
+        for (Enclosure e : enclosures) {
+            ids.size = 0;
+            e.forEachAnimal(ids);
+            if (buf.remaining() < 5 + ids.size * 10) {
+                ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2 + ids.size * 10);
+                buf.flip();
+                buf = bigger.put(buf);
+            }
+            putVarLong(buf, ids.size);
+            long previous = 0;
+            for (int i = 0; i < ids.size; i++) {
+                long delta = ids.ids[i] - previous;
+                putVarLong(buf, (delta << 1) ^ (delta >> 63));
+                previous = ids.ids[i];
+            }
+        }
+        buf.flip();
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    /** id животных одного вольера: собирается заново для каждого вольера без выделений. */
+    private static final class IdBuffer implements Consumer<Animal> {
+        long[] ids = new long[16];
+        int size;
+
+        @Override
+        public void accept(Animal a) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = a.getId();
+        }
+    }
+
+    /**
+     * Возвращает животных в вольеры одним проходом: индекс id → животное строится один раз.
+     * Животные, которых нет в списке или которых вольер не принимает, пропускаются.
+     *
+     * @return число восстановленных размещений
+     * @throws IOException если секция повреждена или относится к другому набору вольеров
+     */
+    static int restore(ByteBuffer buf, List<Enclosure> enclosures, List<Animal> animals) throws IOException {
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC) {
+            throw new IOException("Not an enclosure assignment file");
+        }
+        short version = buf.getShort();
+        buf.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported enclosure assignment version: " + version);
+        }
+        int count = buf.getInt();
+        if (count != enclosures.size()) {
+            throw new IOException("Assignments describe " + count + " enclosures, loaded " + enclosures.size());
+        }
+
+        IdIndex byId = new IdIndex(animals.size());
+        for (int i = 0; i < animals.size(); i++) {
+            byId.put(animals.get(i).getId(), i);
+        }
+        int restored = 0;
+        try {
+            for (Enclosure e : enclosures) {
+                int members = (int) getVarLong(buf);
+                long id = 0;
+                for (int m = 0; m < members; m++) {
+                    long zigzag = getVarLong(buf);
+                    id += (zigzag >>> 1) ^ -(zigzag & 1);
+                    int index = byId.get(id);
+                    if (index == IdIndex.NO_SLOT) {
+                        continue;
+                    }
+                    Animal a = animals.get(index);
+                    if (e.canAccept(a) && e.addAnimal(a)) {
+                        byId.remove(id); // одно животное — один вольер
+                        restored++;
+                    }
+                }
+            }
+        } catch (RuntimeException ex) {
+            throw new IOException("Corrupt enclosure assignment file", ex);
+        }
+        return restored;
+    }
+
+    private static void putVarLong(ByteBuffer buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buf) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt varint");
+    }
+}
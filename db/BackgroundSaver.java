@@ -0,0 +1,165 @@
+package db;
+
+import enclosure.Enclosure;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import model.Animal;
+
+/**
+ * Асинхронное сохранение базы одним фоновым потоком-писателем.
+ * {@link #save} снимает состояние (копии списка животных и вольеров с размещением — в памяти,
+ * без ввода-вывода) и сразу возвращает {@link CompletableFuture}; запись идёт в потоке {@code db-writer}.
+ * Пока запись не началась, следующие запросы заменяют ожидающее состояние и получают ту же future,
+ * поэтому серия сохранений сливается в одну запись последнего состояния.
+ * Пишет в хранилище, заданное при создании, или в текущее хранилище {@link DatabaseManager#getEngine()}.
+ */
+public final class BackgroundSaver implements AutoCloseable {
+    private final Thread writer;
+    /** null — текущее хранилище DatabaseManager на момент записи. */
+    private final StorageEngine engine;
+    /** Ожидающее записи состояние и его future; null — нечего писать. */
+    private Snapshot pending;
+    private CompletableFuture<Void> pendingDone;
+    /** Future записи, выполняющейся сейчас. */
+    private CompletableFuture<Void> running;
+    private long writes;
+    private boolean closed;
+
+    public BackgroundSaver() {
+        this(null);
+    }
+
+    public BackgroundSaver(StorageEngine engine) {
+        this.engine = engine;
+        writer = new Thread(this::run, "db-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Ставит сохранение животных и вольеров в очередь.
+     *
+     * @return future, завершающаяся после записи этого или более нового состояния;
+     * ошибка записи передаётся через неё
+     */
+    public CompletableFuture<Void> save(List<Animal> animals, List<Enclosure> enclosures) {
+        Snapshot snapshot = new Snapshot(new ArrayList<>(animals), copy(enclosures));
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Saver is closed"));
+            }
+            pending = snapshot;
+            if (pendingDone == null) {
+                pendingDone = new CompletableFuture<>();
+                notifyAll();
+            }
+            return pendingDone;
+        }
+    }
+
+    /**
+     * Future, завершающаяся, когда записаны все уже поставленные сохранения.
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        if (pendingDone != null) {
+            return pendingDone;
+        }
+        return running != null ? running : CompletableFuture.completedFuture(null);
+    }
+
+    /** true, пока есть незаписанное или записываемое состояние. */
+    public synchronized boolean isDirty() {
+        return pendingDone != null || running != null;
+    }
+
+    /** Число выполненных записей (после слияния запросов). */
+    public synchronized long writes() {
+        return writes;
+    }
+
+    /**
+     * Дописывает поставленные сохранения и останавливает поток-писатель.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> last;
+        synchronized (this) {
+            closed = true;
+            last = flush();
+            notifyAll();
+        }
+        last.handle((ignored, error) -> null).join();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Snapshot snapshot;
+            CompletableFuture<Void> done;
+            synchronized (this) {
+                while (pending == null && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                snapshot = pending;
+                done = pendingDone;
+                pending = null;
+                pendingDone = null;
+                running = done;
+            }
+            try {
+                StorageEngine target = engine != null ? engine : DatabaseManager.getEngine();
+                target.saveAnimals(snapshot.animals);
+                target.saveEnclosures(snapshot.enclosures);
+                finish(done, null);
+            } catch (IOException | RuntimeException e) {
+                finish(done, e);
+            }
+        }
+    }
+
+    private void finish(CompletableFuture<Void> done, Throwable error) {
+        synchronized (this) {
+            running = null;
+            writes++;
+        }
+        if (error == null) {
+            done.complete(null);
+        } else {
+            done.completeExceptionally(error);
+        }
+    }
+
+    /** Копии вольеров с теми же животными; дальнейшие изменения оригиналов на них не влияют. */
+    private static List<Enclosure> copy(List<Enclosure> enclosures) {
+        List<Enclosure> copies = new ArrayList<>(enclosures.size());
+        for (Enclosure enclosure : enclosures) {
+            Enclosure copy = new Enclosure(enclosure.getName(), enclosure.getType(), enclosure.getCapacity());
+            enclosure.forEachAnimal(copy::addAnimal);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static final class Snapshot {
+        final List<Animal> animals;
+        final List<Enclosure> enclosures;
+
+        Snapshot(List<Animal> animals, List<Enclosure> enclosures) {
+            this.animals = animals;
+            this.enclosures = enclosures;
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package db;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import model.Animal;
+import model.AnimalKind;
+import model.NameDictionary;
+
+/**
+ * Сжатый блоками формат файла животных (big-endian).
+ *
+ * Заголовок, 16 байт: магия {@code 0x895A4F43} (4), версия (2), флаги (2), число записей (8).
+ * Далее блоки до {@code blockRows} записей, каждый сжат {@link Deflater} независимо.
+ * Внутри блока записи разложены по столбцам, чтобы похожие значения шли подряд:
+ * виды (по байту), id (zigzag-varlong разности с предыдущим), вес, возраст (zigzag-varint),
+ * имена (varint длина + UTF-8). Вес с не более чем двумя знаками после точки хранится
+ * как varlong {@code zigzag(копейки) << 1}, любой другой — {@code 1} и 8 байт double.
+ * После блоков — индекс, на каждый блок {@value #INDEX_ENTRY_BYTES} байт: смещение в файле (8),
+ * длина сжатого (4), длина распакованного (4), номер первой записи (8), число записей (4).
+ * Концевик, 16 байт: смещение индекса (8), число блоков (4), магия (4).
+ *
+ * Блоки распаковываются независимо: загрузка распаковывает их параллельно,
+ * чтение диапазона записей — только пересекающиеся с ним блоки.
+ */
+final class CompressedAnimalFormat {
+    static final int MAGIC = 0x895A4F43;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int INDEX_ENTRY_BYTES = 8 + 4 + 4 + 8 + 4;
+    static final int TRAILER_BYTES = 16;
+    static final int DEFAULT_BLOCK_ROWS = 1 << 16;
+    /** Больше копеек double не хранит точно после деления на 100. */
+    private static final long MAX_CENTS = 1L << 50;
+
+    private CompressedAnimalFormat() {
+    }
+
+    /**
+     * Записывает животных в файл, заменяя его содержимое.
+     */
+    static void write(List<Animal> animals, Path file) throws IOException {
+        write(animals, file, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * @param blockRows число записей в блоке
+     */
+    static void write(List<Animal> animals, Path file, int blockRows) throws IOException {
+        Utf8NameCache names = new Utf8NameCache(NameDictionary.global());
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(animals.size());
+            AnimalBinaryFormat.drain(channel, header);
+
+            BlockWriter blocks = new BlockWriter(channel, deflater, HEADER_BYTES);
+            for (int from = 0; from < animals.size(); from += blockRows) {
+                List<Animal> block = animals.subList(from, Math.min(animals.size(), from + blockRows));
+                blocks.write(encode(block, names), from, block.size());
+            }
+            blocks.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Раскладывает записи блока по столбцам. */
+    private static ByteSink encode(List<Animal> block, Utf8NameCache names) {
+        ByteSink out = new ByteSink(block.size() * 16);
+        for (Animal animal : block) {
+            out.put(animal.getKind().ordinal());
+        }
+        long previous = 0;
+        for (Animal animal : block) {
+            out.putVarlong(zigzag(animal.getId() - previous));
+            previous = animal.getId();
+        }
+        for (Animal animal : block) {
+            double weight = animal.getWeight();
+            long cents = Math.round(weight * 100);
+            if (Math.abs(cents) < MAX_CENTS
+                    && Double.doubleToRawLongBits(cents / 100.0) == Double.doubleToRawLongBits(weight)) {
+                out.putVarlong(zigzag(cents) << 1);
+            } else {
+                out.putVarlong(1);
+                out.putLong(Double.doubleToRawLongBits(weight));
+            }
+        }
+        for (Animal animal : block) {
+            out.putVarlong(zigzag(animal.getAge()));
+        }
+        for (Animal animal : block) {
+            byte[] name = names.encode(animal.getNameId());
+            out.putVarlong(name.length);
+            out.put(name);
+        }
+        return out;
+    }
+
+    /**
+     * Загружает всех животных; блоки распаковываются и разбираются параллельно на пуле.
+     */
+    static List<Animal> load(Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Index index = Index.read(channel);
+            return decode(channel, index, 0, index.blocks(), 0, index.count, pool);
+        }
+    }
+
+    /**
+     * Загружает записи с номерами [from, to); распаковываются только блоки, пересекающие диапазон.
+     */
+    static List<Animal> loadRange(Path file, long from, long to, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Index index = Index.read(channel);
+            from = Math.max(0, from);
+            to = Math.min(index.count, to);
+            if (from >= to) {
+                return new ArrayList<>();
+            }
+            return decode(channel, index, index.blockOf(from), index.blockOf(to - 1) + 1, from, to, pool);
+        }
+    }
+
+    /** Распаковывает блоки [firstBlock, endBlock) и оставляет записи с номерами [from, to). */
+    private static List<Animal> decode(FileChannel channel, Index index, int firstBlock, int endBlock,
+                                       long from, long to, ForkJoinPool pool) throws IOException {
+        int blocks = endBlock - firstBlock;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Animal>[] parts = new List[blocks];
+        if (blocks <= 1 || pool.getParallelism() <= 1) {
+            Utf8NameCache names = new Utf8NameCache(NameDictionary.global());
+            for (int b = 0; b < blocks; b++) {
+                parts[b] = decodeBlock(channel, index, firstBlock + b, from, to, names);
+            }
+        } else {
+            List<RecursiveAction> tasks = new ArrayList<>(blocks);
+            for (int b = 0; b < blocks; b++) {
+                int part = b;
+                tasks.add(action(() -> {
+                    try {
+                        parts[part] = decodeBlock(channel, index, firstBlock + part, from, to,
+                                new Utf8NameCache(NameDictionary.global()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            try {
+                pool.invoke(action(() -> RecursiveAction.invokeAll(tasks)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        List<Animal> animals = new ArrayList<>((int) (to - from));
+        for (List<Animal> part : parts) {
+            animals.addAll(part);
+        }
+        return animals;
+    }
+
+    private static List<Animal> decodeBlock(FileChannel channel, Index index, int block, long from, long to,
+                                            Utf8NameCache names) throws IOException {
+        Block columns = read(channel, index, block, names);
+        long first = index.firstRow[block];
+        int start = (int) (Math.max(from, first) - first);
+        int end = (int) (Math.min(to, first + columns.rows) - first);
+        List<Animal> part = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            part.add(AnimalKind.ofOrdinal(columns.kinds[i])
+                    .create(columns.ids[i], columns.nameIds[i], columns.weights[i], columns.ages[i]));
+        }
+        return part;
+    }
+
+    /**
+     * Читает, распаковывает и разбирает блок по столбцам.
+     * При names == null имена только пропускаются, {@link Block#nameIds} не заполняется.
+     */
+    static Block read(FileChannel channel, Index index, int block, Utf8NameCache names) throws IOException {
+        byte[] raw = inflate(channel, index, block);
+        int rows = index.rows[block];
+        Block columns = new Block(rows);
+        int[] pos = {0};
+        try {
+            for (int i = 0; i < rows; i++) {
+                int kind = raw[pos[0]++];
+                if (kind < 0 || kind >= AnimalKind.values().length) {
+                    throw new IOException("Corrupt record kind " + kind + " in compressed block " + block);
+                }
+                columns.kinds[i] = (byte) kind;
+            }
+            long id = 0;
+            for (int i = 0; i < rows; i++) {
+                id += unzigzag(varlong(raw, pos));
+                columns.ids[i] = id;
+            }
+            for (int i = 0; i < rows; i++) {
+                long weight = varlong(raw, pos);
+                if (weight == 1) {
+                    columns.weights[i] = Double.longBitsToDouble(ByteBuffer.wrap(raw, pos[0], 8).getLong());
+                    pos[0] += 8;
+                } else {
+                    columns.weights[i] = unzigzag(weight >>> 1) / 100.0;
+                }
+            }
+            for (int i = 0; i < rows; i++) {
+                columns.ages[i] = (int) unzigzag(varlong(raw, pos));
+            }
+            for (int i = 0; i < rows; i++) {
+                int length = (int) varlong(raw, pos);
+                if (length < 0 || length > raw.length - pos[0]) {
+                    throw new IOException("Corrupt name in compressed block " + block);
+                }
+                if (names != null) {
+                    columns.nameIds[i] = names.intern(raw, pos[0], length);
+                }
+                pos[0] += length;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt compressed block " + block, e);
+        }
+        if (pos[0] != raw.length) {
+            throw new IOException("Corrupt compressed block " + block);
+        }
+        return columns;
+    }
+
+    private static byte[] inflate(FileChannel channel, Index index, int block) throws IOException {
+        byte[] compressed = new byte[index.compressed[block]];
+        readFully(channel, ByteBuffer.wrap(compressed), index.offset[block]);
+        byte[] raw = new byte[index.raw[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int got = inflater.inflate(raw, n, raw.length - n);
+                if (got == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += got;
+            }
+            if (n != raw.length || !inflater.finished()) {
+                throw new IOException("Corrupt compressed block " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed block " + block, e);
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+
+    private static long varlong(byte[] buf, int[] pos) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt varint in compressed block");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) {
+                throw new EOFException("Truncated compressed animals file");
+            }
+            position += n;
+        }
+    }
+
+    private static RecursiveAction action(Runnable body) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                body.run();
+            }
+        };
+    }
+
+    /**
+     * Индекс блоков файла.
+     */
+    static final class Index {
+        final long count;
+        final long[] offset;
+        final int[] compressed;
+        final int[] raw;
+        final long[] firstRow;
+        final int[] rows;
+
+        private Index(long count, int blocks) {
+            this.count = count;
+            offset = new long[blocks];
+            compressed = new int[blocks];
+            raw = new int[blocks];
+            firstRow = new long[blocks];
+            rows = new int[blocks];
+        }
+
+        int blocks() {
+            return offset.length;
+        }
+
+        /** Блок, содержащий запись с номером row. */
+        int blockOf(long row) {
+            int b = Arrays.binarySearch(firstRow, row);
+            return b >= 0 ? b : -b - 2;
+        }
+
+        static Index read(FileChannel channel) throws IOException {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new EOFException("Truncated compressed animals file");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            short version = header.getShort(4);
+            if (header.getInt(0) != MAGIC || version != VERSION) {
+                throw new IOException("Unsupported compressed animals version: " + version);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            readFully(channel, trailer, size - TRAILER_BYTES);
+            long indexOffset = trailer.getLong(0);
+            int blocks = trailer.getInt(8);
+            if (trailer.getInt(12) != MAGIC || blocks < 0 || indexOffset < HEADER_BYTES
+                    || indexOffset + (long) blocks * INDEX_ENTRY_BYTES != size - TRAILER_BYTES) {
+                throw new EOFException("Truncated compressed animals file");
+            }
+            ByteBuffer entries = ByteBuffer.allocate(blocks * INDEX_ENTRY_BYTES);
+            readFully(channel, entries, indexOffset);
+            entries.flip();
+            Index index = new Index(header.getLong(8), blocks);
+            long expectedRow = 0;
+            for (int b = 0; b < blocks; b++) {
+                index.offset[b] = entries.getLong();
+                index.compressed[b] = entries.getInt();
+                index.raw[b] = entries.getInt();
+                index.firstRow[b] = entries.getLong();
+                index.rows[b] = entries.getInt();
+                if (index.firstRow[b] != expectedRow || index.offset[b] + index.compressed[b] > indexOffset) {
+                    throw new IOException("Corrupt compressed block index at block " + b);
+                }
+                expectedRow += index.rows[b];
+            }
+            if (expectedRow != index.count) {
+                throw new IOException("Compressed block index covers " + expectedRow + " of " + index.count + " records");
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Столбцы распакованного блока.
+     */
+    static final class Block {
+        final int rows;
+        final byte[] kinds;
+        final long[] ids;
+        final double[] weights;
+        final int[] ages;
+        final int[] nameIds;
+
+        Block(int rows) {
+            this.rows = rows;
+            kinds = new byte[rows];
+            ids = new long[rows];
+            weights = new double[rows];
+            ages = new int[rows];
+            nameIds = new int[rows];
+        }
+    }
+
+    /** Растущий буфер байт блока до сжатия. */
+    private static final class ByteSink {
+        byte[] buf;
+        int length;
+
+        ByteSink(int capacity) {
+            buf = new byte[Math.max(64, capacity)];
+        }
+
+        void put(int b) {
+            ensure(1);
+            buf[length++] = (byte) b;
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, length, bytes.length);
+            length += bytes.length;
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        void putVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[length++] = (byte) value;
+        }
+
+        private void ensure(int more) {
+            if (length + more > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(length + more, buf.length * 2));
+            }
+        }
+    }
+
+    /** Сжимает блоки по мере заполнения и копит индекс. */
+    private static final class BlockWriter {
+        private final FileChannel channel;
+        private final Deflater deflater;
+        private long position;
+        private ByteBuffer index = ByteBuffer.allocate(INDEX_ENTRY_BYTES * 64);
+        private int blocks;
+        private byte[] out = new byte[64 << 10];
+
+        BlockWriter(FileChannel channel, Deflater deflater, long position) {
+            this.channel = channel;
+            this.deflater = deflater;
+            this.position = position;
+        }
+
+        /** Сжимает и дописывает блок. */
+        void write(ByteSink raw, long firstRow, int rows) throws IOException {
+            int rawLength = raw.length;
+            deflater.reset();
+            deflater.setInput(raw.buf, 0, rawLength);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            ByteBuffer block = ByteBuffer.wrap(out, 0, length);
+            while (block.hasRemaining()) {
+                position += channel.write(block, position);
+            }
+            if (index.remaining() < INDEX_ENTRY_BYTES) {
+                ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2);
+                index.flip();
+                index = grown.put(index);
+            }
+            index.putLong(position - length).putInt(length).putInt(rawLength).putLong(firstRow).putInt(rows);
+            blocks++;
+        }
+
+        /** Пишет индекс и концевик. */
+        void finish() throws IOException {
+            long indexOffset = position;
+            index.flip();
+            while (index.hasRemaining()) {
+                position += channel.write(index, position);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            trailer.putLong(indexOffset).putInt(blocks).putInt(MAGIC).flip();
+            while (trailer.hasRemaining()) {
+                position += channel.write(trailer, position);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Формат файла животных.
+ */
+public enum DatabaseFormat {
+    /** Текст {@code Type|name|weight|age|id} — для импорта/экспорта и ручного просмотра. */
+    TEXT,
+    /** Версионированный двоичный формат {@link AnimalBinaryFormat} — основной для сохранения. */
+    BINARY,
+    /** Двоичные записи, сжатые независимыми блоками ({@link CompressedAnimalFormat}) — для резервных копий. */
+    COMPRESSED;
+
+    /**
+     * Формат существующего файла по магии в первых 4 байтах; всё остальное считается текстом.
+     */
+    static DatabaseFormat detect(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && channel.read(head) > 0) {
+                // дочитываем магию
+            }
+            if (head.hasRemaining()) {
+                return TEXT;
+            }
+            int magic = head.getInt(0);
+            return magic == AnimalBinaryFormat.MAGIC ? BINARY
+                    : magic == CompressedAnimalFormat.MAGIC ? COMPRESSED : TEXT;
+        }
+    }
+}
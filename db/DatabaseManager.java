@@ -1,23 +1,29 @@
 package db;
 
 import enclosure.Enclosure;
-import enclosure.EnclosureType;
 import experLogger.OperationLogger;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import model.Animal;
-import model.Aquatic;
-import model.ColdBlooded;
-import model.Feathered;
-import model.Hoofed;
 
 /**
- * Менеджер базы данных для сохранения и загрузки животных и вольеров
+ * Менеджер базы данных для сохранения и загрузки животных и вольеров.
+ * Сохранение и загрузка базы приложения идут через текущее хранилище ({@link StorageEngine});
+ * по умолчанию это {@code mmap} — двоичный animals.db в текущем каталоге, читаемый отображением в память.
+ * Для резервных копий есть сжатый блоками формат ({@link DatabaseFormat#COMPRESSED}).
+ * При загрузке формат файла определяется автоматически, поэтому прежние текстовые базы читаются как раньше.
+ * Размещение животных по вольерам хранится отдельно в assignments.db ({@link AssignmentFormat}).
  */
 public class DatabaseManager {
-    private static final String ANIMALS_DB = "animals.db";
-    private static final String ENCLOSURES_DB = "enclosures.db";
     private static OperationLogger logger;
+    private static volatile DatabaseFormat animalsFormat = DatabaseFormat.BINARY;
+    private static volatile StorageEngine engine = StorageEngine.create(StorageEngine.MMAP, Path.of("."));
 
     /**
      * Инициализирует логгер для операций с базой данных.
@@ -27,15 +33,65 @@ public class DatabaseManager {
     }
 
     /**
-     * Сохраняет список животных в файл базы данных.
+     * Хранилище, через которое сохраняется и загружается база приложения.
+     */
+    public static void setEngine(StorageEngine storage) {
+        engine = Objects.requireNonNull(storage);
+        if (logger != null) {
+            logger.logInfo("Storage engine: " + storage.name());
+        }
+    }
+
+    public static StorageEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Формат, в котором сохраняются животные (по умолчанию {@link DatabaseFormat#BINARY});
+     * для файлового хранилища меняет и формат снимка.
+     */
+    public static void setAnimalsFormat(DatabaseFormat format) {
+        animalsFormat = Objects.requireNonNull(format);
+        if (engine instanceof FileStorageEngine) {
+            ((FileStorageEngine) engine).setFormat(format);
+        }
+    }
+
+    public static DatabaseFormat getAnimalsFormat() {
+        return animalsFormat;
+    }
+
+    /**
+     * Сохраняет список животных в текущее хранилище.
+     * Файловое хранилище дописывает в журнал только изменения с прошлого сохранения или загрузки
+     * (см. {@link AnimalJournal}).
      */
     public static void saveAnimals(List<Animal> animals) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ANIMALS_DB))) {
-            for (Animal animal : animals) {
-                writer.println(serializeAnimal(animal));
+        try {
+            engine.saveAnimals(animals);
+        } catch (IOException e) {
+            if (logger != null) {
+                logger.logError("Failed to save animals to database", e);
             }
+        }
+    }
+
+    /**
+     * Сохраняет список животных в указанный файл в текущем формате.
+     */
+    public static void saveAnimals(List<Animal> animals, String file) {
+        saveAnimals(animals, file, animalsFormat);
+    }
+
+    /**
+     * Сохраняет список животных в указанный файл в заданном формате
+     * (TEXT — экспорт в текст).
+     */
+    public static void saveAnimals(List<Animal> animals, String file, DatabaseFormat format) {
+        try {
+            writeAnimals(animals, Path.of(file), format);
             if (logger != null) {
-                logger.logInfo("Saved " + animals.size() + " animals to database");
+                logger.logInfo("Saved " + animals.size() + " animals to database (" + format + ")");
             }
         } catch (IOException e) {
             if (logger != null) {
@@ -45,18 +101,30 @@ public class DatabaseManager {
     }
 
     /**
-     * Загружает список животных из файла базы данных.
+     * Загружает список животных из текущего хранилища.
      */
     public static List<Animal> loadAnimals() {
         List<Animal> animals = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(ANIMALS_DB))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Animal animal = deserializeAnimal(line);
-                if (animal != null) {
-                    animals.add(animal);
-                }
+        try {
+            animals = engine.loadAnimals();
+        } catch (IOException e) {
+            if (logger != null) {
+                logger.logError("Failed to load animals from database", e);
             }
+        }
+        return animals;
+    }
+
+    /**
+     * Загружает список животных из указанного файла; формат (текст или двоичный) определяется по содержимому.
+     * Файл читается через отображение в память ({@link MappedLoader}).
+     */
+    public static List<Animal> loadAnimals(String file) {
+        List<Animal> animals = new ArrayList<>();
+        try {
+            MappedLoader loader = new MappedLoader();
+            animals = loader.loadAnimals(Path.of(file));
+            logSkipped(loader, "animal");
             if (logger != null) {
                 logger.logInfo("Loaded " + animals.size() + " animals from database");
             }
@@ -69,102 +137,272 @@ public class DatabaseManager {
     }
 
     /**
-     * Сохраняет список вольеров в файл базы данных.
+     * Загружает текстовый файл животных, разбирая его кусками параллельно на пуле fork-join;
+     * порядок животных совпадает с порядком строк файла. Двоичный файл читается последовательно.
      */
-    public static void saveEnclosures(List<Enclosure> enclosures) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ENCLOSURES_DB))) {
-            for (Enclosure enclosure : enclosures) {
-                writer.println(serializeEnclosure(enclosure));
+    public static List<Animal> loadAnimalsParallel(String file, ForkJoinPool pool) {
+        return loadAnimalsParallel(file, pool, ParallelTextLoader.DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * То же, что {@link #loadAnimalsParallel(String, ForkJoinPool)}, с заданным размером куска в байтах.
+     */
+    public static List<Animal> loadAnimalsParallel(String file, ForkJoinPool pool, long chunkBytes) {
+        List<Animal> animals = new ArrayList<>();
+        try {
+            if (detectFormat(file) != DatabaseFormat.TEXT) {
+                return loadAnimals(file);
+            }
+            ParallelTextLoader loader = new ParallelTextLoader(pool, chunkBytes);
+            animals = loader.loadAnimals(Path.of(file));
+            if (loader.skipped() > 0 && logger != null) {
+                logger.logError("Skipped " + loader.skipped() + " malformed animal records", null);
             }
             if (logger != null) {
-                logger.logInfo("Saved " + enclosures.size() + " enclosures to database");
+                logger.logInfo("Loaded " + animals.size() + " animals from database in parallel");
             }
-            System.out.println("✓ Вольеры сохранены в базу данных: " + enclosures.size() + " вольеров");
         } catch (IOException e) {
             if (logger != null) {
-                logger.logError("Failed to save enclosures to database", e);
+                logger.logError("Failed to load animals from database", e);
             }
-            System.out.println("✗ Ошибка сохранения вольеров: " + e.getMessage());
         }
+        return animals;
     }
 
     /**
-     * Загружает список вольеров из файла базы данных.
+     * Загружает записи файла с номерами [from, to). В сжатом файле распаковываются только блоки,
+     * пересекающие диапазон; файлы других форматов читаются курсором до конца диапазона.
+     * Как и {@link #openCursor}, не читает снимок с непустым журналом.
      */
-    public static List<Enclosure> loadEnclosures() {
-        List<Enclosure> enclosures = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(ENCLOSURES_DB))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Enclosure enclosure = deserializeEnclosure(line);
-                if (enclosure != null) {
-                    enclosures.add(enclosure);
+    public static List<Animal> loadAnimalRange(String file, long from, long to) {
+        List<Animal> animals = new ArrayList<>();
+        try {
+            requireCompacted(Path.of(file));
+            if (detectFormat(file) == DatabaseFormat.COMPRESSED) {
+                animals = CompressedAnimalFormat.loadRange(Path.of(file), from, to, ForkJoinPool.commonPool());
+            } else {
+                try (AnimalCursor cursor = openCursor(file)) {
+                    for (long row = 0; row < to && cursor.next(); row++) {
+                        if (row >= from) {
+                            animals.add(cursor.toAnimal());
+                        }
+                    }
                 }
             }
-            if (logger != null) {
-                logger.logInfo("Loaded " + enclosures.size() + " enclosures from database");
-            }
         } catch (IOException e) {
             if (logger != null) {
-                logger.logError("Failed to load enclosures from database", e);
+                logger.logError("Failed to load animals from database", e);
             }
         }
-        return enclosures;
+        return animals;
     }
 
-    private static String serializeAnimal(Animal animal) {
-        return String.format("%s|%s|%.2f|%d", 
-            animal.getClass().getSimpleName(),
-            animal.getName(),
-            animal.getWeight(),
-            animal.getAge());
+    /**
+     * Открывает курсор по файлу животных; записи читаются по одной, без загрузки списка целиком.
+     * Курсор нужно закрыть. Курсор читает только сам файл, поэтому снимок с непустым журналом
+     * (animals.db после сохранений без уплотнения) не открывается: для него есть
+     * {@link #forEachAnimal(AnimalCursor.RecordVisitor)}, который применяет журнал.
+     *
+     * @throws IOException если рядом с файлом лежит непустой журнал
+     */
+    public static AnimalCursor openCursor(String file) throws IOException {
+        requireCompacted(Path.of(file));
+        return new AnimalCursor(Path.of(file));
     }
 
-    private static Animal deserializeAnimal(String data) {
-        try {
-            String[] parts = data.split("\\|");
-            if (parts.length == 4) {
-                String type = parts[0];
-                String name = parts[1];
-                double weight = Double.parseDouble(parts[2]);
-                int age = Integer.parseInt(parts[3]);
-                
-                switch (type) {
-                    case "Aquatic": return new Aquatic(name, weight, age);
-                    case "Feathered": return new Feathered(name, weight, age);
-                    case "Hoofed": return new Hoofed(name, weight, age);
-                    case "ColdBlooded": return new ColdBlooded(name, weight, age);
+    /**
+     * Передаёт обработчику поля каждой записи файла животных; объекты {@link Animal} не создаются.
+     * Снимок с непустым журналом не читается, как в {@link #openCursor}.
+     *
+     * @return число записей
+     */
+    public static long forEachAnimal(String file, AnimalCursor.RecordVisitor visitor) throws IOException {
+        try (AnimalCursor cursor = openCursor(file)) {
+            long count = cursor.forEachRemaining(visitor);
+            logSkipped(cursor.skipped(), "animal");
+            return count;
+        }
+    }
+
+    /**
+     * Передаёт обработчику поля каждого животного текущего хранилища с учётом журнала;
+     * объекты по возможности не создаются.
+     *
+     * @return число записей
+     */
+    public static long forEachAnimal(AnimalCursor.RecordVisitor visitor) throws IOException {
+        return engine.forEachAnimal(visitor);
+    }
+
+    /**
+     * Агрегаты по животным текущего хранилища: число по видам, средний вес, гистограмма возрастов и др.
+     */
+    public static AnimalStats aggregate() throws IOException {
+        return engine.aggregate();
+    }
+
+    /**
+     * Агрегаты по файлу животных, вычисленные при его просмотре на общем пуле fork-join:
+     * файл разбирается кусками параллельно, объекты {@link Animal} не создаются.
+     * Снимок с непустым журналом не читается, как в {@link #openCursor}.
+     */
+    public static AnimalStats aggregate(String file) throws IOException {
+        return aggregate(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * То же, что {@link #aggregate(String)}, на заданном пуле.
+     */
+    public static AnimalStats aggregate(String file, ForkJoinPool pool) throws IOException {
+        requireCompacted(Path.of(file));
+        ScanAggregator aggregator = new ScanAggregator(pool);
+        AnimalStats stats = aggregator.aggregate(Path.of(file));
+        logSkipped(aggregator.skipped(), "animal");
+        return stats;
+    }
+
+    /**
+     * Ленивый поток животных файла: записи читаются по мере потребления.
+     * Файл освобождается при закрытии потока, поэтому поток нужно использовать в try-with-resources.
+     * Ошибки чтения передаются как {@link UncheckedIOException}. Снимок с непустым журналом
+     * не читается, как в {@link #openCursor}.
+     */
+    public static Stream<Animal> streamAnimals(String file) throws IOException {
+        AnimalCursor cursor = openCursor(file);
+        Spliterator<Animal> records = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Animal> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+                action.accept(cursor.toAnimal());
+                return true;
+            }
+        };
+        return StreamSupport.stream(records, false).onClose(() -> {
+            try {
+                cursor.close();
+                logSkipped(cursor.skipped(), "animal");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Определяет формат существующего файла животных.
+     */
+    public static DatabaseFormat detectFormat(String file) throws IOException {
+        return DatabaseFormat.detect(Path.of(file));
+    }
+
+    static void writeAnimals(List<Animal> animals, Path file, DatabaseFormat format) throws IOException {
+        if (format == DatabaseFormat.BINARY) {
+            AnimalBinaryFormat.write(animals, file);
+        } else if (format == DatabaseFormat.COMPRESSED) {
+            CompressedAnimalFormat.write(animals, file);
+        } else {
+            writeText(animals, file);
+        }
+    }
+
+    private static void writeText(List<Animal> animals, Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file.toFile(), StandardCharsets.UTF_8))) {
+            for (Animal animal : animals) {
+                writer.println(serializeAnimal(animal));
+            }
+        }
+    }
+
+    private static void logSkipped(MappedLoader loader, String what) {
+        logSkipped(loader.skipped(), what);
+    }
+
+    static void logSkipped(int skipped, String what) {
+        if (skipped > 0 && logger != null) {
+            logger.logError("Skipped " + skipped + " malformed " + what + " records", null);
+        }
+    }
+
+    /** Файловые курсоры видят только сам файл: снимок с непустым журналом для них устарел. */
+    private static void requireCompacted(Path file) throws IOException {
+        if (AnimalJournal.hasPendingJournal(file)) {
+            throw new IOException(file + " has uncompacted journal changes; read it through the storage engine");
+        }
+    }
+
+    static void logInfo(String message) {
+        if (logger != null) {
+            logger.logInfo(message);
+        }
+    }
+
+    static void logError(String message, Exception e) {
+        if (logger != null) {
+            logger.logError(message, e);
+        }
+    }
+
+    /**
+     * Сохраняет список вольеров и размещение животных в текущее хранилище.
+     * Файловое хранилище не переписывает файлы, если вольеры не менялись с прошлого сохранения или загрузки.
+     */
+    public static void saveEnclosures(List<Enclosure> enclosures) {
+        try {
+            if (engine.saveEnclosures(enclosures)) {
+                System.out.println("✓ Вольеры сохранены в базу данных: " + enclosures.size() + " вольеров");
+            } else {
+                System.out.println("✓ Вольеры не изменились: " + enclosures.size() + " вольеров");
             }
-        } catch (Exception e) {
+        } catch (IOException e) {
             if (logger != null) {
-                logger.logError("Error deserializing animal: " + data, e);
+                logger.logError("Failed to save enclosures to database", e);
             }
+            System.out.println("✗ Ошибка сохранения вольеров: " + e.getMessage());
         }
-        return null;
     }
 
-    private static String serializeEnclosure(Enclosure enclosure) {
-        return String.format("%s|%s|%d",
-            enclosure.getName(),
-            enclosure.getType().name(),
-            enclosure.getCapacity());
+    /**
+     * Загружает список вольеров из текущего хранилища (без животных).
+     */
+    public static List<Enclosure> loadEnclosures() {
+        return loadEnclosures(List.of());
     }
 
-    private static Enclosure deserializeEnclosure(String data) {
+    /**
+     * Загружает вольеры и возвращает в них животных из animals по сохранённому размещению.
+     * Животные, которых нет в списке, пропускаются; остальных можно расселить как обычно —
+     * {@link controller.ZooController} не трогает уже размещённых.
+     */
+    public static List<Enclosure> loadEnclosures(List<Animal> animals) {
         try {
-            String[] parts = data.split("\\|");
-            if (parts.length == 3) {
-                String name = parts[0];
-                EnclosureType type = EnclosureType.valueOf(parts[1]);
-                int capacity = Integer.parseInt(parts[2]);
-                return new Enclosure(name, type, capacity);
-            }
-        } catch (Exception e) {
+            return engine.loadEnclosures(animals);
+        } catch (IOException e) {
             if (logger != null) {
-                logger.logError("Error deserializing enclosure: " + data, e);
+                logger.logError("Failed to load enclosures from database", e);
             }
+            return new ArrayList<>();
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    private static String serializeAnimal(Animal animal) {
+        return String.format(Locale.ROOT, "%s|%s|%.2f|%d|%d", 
+            animal.getKind().getTypeName(),
+            animal.getName(),
+            animal.getWeight(),
+            animal.getAge(),
+            animal.getId());
+    }
+
+    static String serializeEnclosure(Enclosure enclosure) {
+        return String.format("%s|%s|%d",
+            enclosure.getName(),
+            enclosure.getType().name(),
+            enclosure.getCapacity());
+    }
+}
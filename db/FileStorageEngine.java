@@ -0,0 +1,202 @@
+package db;
+
+import enclosure.Enclosure;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import model.Animal;
+
+/**
+ * Файловое хранилище: animals.db (снимок и журнал, {@link AnimalJournal}), enclosures.db
+ * и assignments.db ({@link AssignmentFormat}) в одном каталоге.
+ * Бэкенды различаются форматом снимка и тем, читается ли файл отображением в память.
+ * Вольеры и размещение переписываются только при изменениях с прошлого сохранения или загрузки.
+ */
+final class FileStorageEngine implements StorageEngine {
+    static final String ANIMALS_DB = "animals.db";
+    static final String ENCLOSURES_DB = "enclosures.db";
+    static final String ASSIGNMENTS_DB = "assignments.db";
+
+    private final String name;
+    private final Path animalsFile;
+    private final Path enclosuresFile;
+    private final Path assignmentsFile;
+    private final boolean mapped;
+    private final AnimalJournal journal;
+    private volatile DatabaseFormat format;
+    /** Строки последнего сохранённого или загруженного состояния вольеров. */
+    private List<String> savedEnclosures;
+    /** Содержимое assignments.db после последнего сохранения или загрузки. */
+    private byte[] savedAssignments;
+
+    /**
+     * @param format формат, в котором переписывается снимок животных
+     * @param mapped false — читать файлы каналом в буфер, без отображения в память
+     */
+    FileStorageEngine(String name, Path directory, DatabaseFormat format, boolean mapped) {
+        this.name = name;
+        this.animalsFile = directory.resolve(ANIMALS_DB);
+        this.enclosuresFile = directory.resolve(ENCLOSURES_DB);
+        this.assignmentsFile = directory.resolve(ASSIGNMENTS_DB);
+        this.format = Objects.requireNonNull(format);
+        this.mapped = mapped;
+        this.journal = new AnimalJournal(animalsFile);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    DatabaseFormat format() {
+        return format;
+    }
+
+    void setFormat(DatabaseFormat format) {
+        this.format = Objects.requireNonNull(format);
+    }
+
+    /**
+     * В журнал дописываются только изменения с прошлого сохранения или загрузки;
+     * снимок переписывается целиком при уплотнении и при первом сохранении без предшествующей загрузки.
+     */
+    @Override
+    public void saveAnimals(List<Animal> animals) throws IOException {
+        long written = journal.save(animals, format);
+        DatabaseManager.logInfo("Saved " + animals.size() + " animals to database (" + written + " records written)");
+    }
+
+    @Override
+    public List<Animal> loadAnimals() throws IOException {
+        MappedLoader loader = loader();
+        List<Animal> animals = journal.load(loader);
+        DatabaseManager.logSkipped(loader.skipped(), "animal");
+        DatabaseManager.logInfo("Loaded " + animals.size() + " animals from database");
+        return animals;
+    }
+
+    /**
+     * После загрузки или сохранения в этом процессе записи берутся из состояния журнала в памяти,
+     * если с тех пор размер и время изменения снимка и журнала не поменялись. Иначе снимок читается курсором, а изменения из журнала передаются тому же обработчику
+     * ({@link AnimalJournal#visit}) — без загрузки списка.
+     */
+    @Override
+    public long forEachAnimal(AnimalCursor.RecordVisitor visitor) throws IOException {
+        long tracked = journal.visitTracked(visitor);
+        if (tracked >= 0) {
+            return tracked;
+        }
+        return journal.visit(visitor);
+    }
+
+    /**
+     * Агрегаты по состоянию журнала в памяти, если оно отслеживается (см. {@link #forEachAnimal}).
+     * Иначе при пустом журнале они считаются по снимку без создания объектов, параллельно по кускам файла
+     * ({@link ScanAggregator}), а при непустом — при обходе снимка с журналом, как в {@link #forEachAnimal}.
+     */
+    @Override
+    public AnimalStats aggregate() throws IOException {
+        AnimalStats stats = new AnimalStats();
+        if (journal.visitTracked(stats) >= 0) {
+            return stats;
+        }
+        Path snapshot = journal.currentSnapshot();
+        if (snapshot == null) {
+            journal.visit(stats);
+            return stats;
+        }
+        if (!Files.exists(snapshot)) {
+            return new AnimalStats();
+        }
+        ScanAggregator aggregator = new ScanAggregator(ForkJoinPool.commonPool());
+        stats = aggregator.aggregate(snapshot);
+        DatabaseManager.logSkipped(aggregator.skipped(), "animal");
+        return stats;
+    }
+
+    /** Вызывается и из фонового потока записи, поэтому только пишет в журнал приложения, не в консоль. */
+    @Override
+    public boolean saveEnclosures(List<Enclosure> enclosures) throws IOException {
+        List<String> lines = new ArrayList<>(enclosures.size());
+        for (Enclosure enclosure : enclosures) {
+            lines.add(DatabaseManager.serializeEnclosure(enclosure));
+        }
+        return writeEnclosures(lines, AssignmentFormat.encode(enclosures));
+    }
+
+    private synchronized boolean writeEnclosures(List<String> lines, byte[] assignments) throws IOException {
+        boolean changed = !lines.equals(savedEnclosures) || !Files.exists(enclosuresFile);
+        if (changed) {
+            savedEnclosures = null;
+            try (PrintWriter writer = new PrintWriter(new FileWriter(enclosuresFile.toFile(), StandardCharsets.UTF_8))) {
+                for (String line : lines) {
+                    writer.println(line);
+                }
+                if (writer.checkError()) {
+                    throw new IOException("Failed to write " + enclosuresFile);
+                }
+            }
+            savedEnclosures = lines;
+            DatabaseManager.logInfo("Saved " + lines.size() + " enclosures to database");
+        }
+        saveAssignments(assignments);
+        return changed;
+    }
+
+    /** Сохраняет размещение животных по вольерам, если оно изменилось. */
+    private void saveAssignments(byte[] bytes) throws IOException {
+        if (Arrays.equals(bytes, savedAssignments) && Files.exists(assignmentsFile)) {
+            return;
+        }
+        savedAssignments = null;
+        Files.write(assignmentsFile, bytes);
+        savedAssignments = bytes;
+        DatabaseManager.logInfo("Saved enclosure assignments (" + bytes.length + " bytes)");
+    }
+
+    @Override
+    public synchronized List<Enclosure> loadEnclosures(List<Animal> animals) throws IOException {
+        savedEnclosures = null;
+        savedAssignments = null;
+        if (!Files.exists(enclosuresFile)) {
+            return new ArrayList<>();
+        }
+        MappedLoader loader = loader();
+        List<Enclosure> enclosures = loader.loadEnclosures(enclosuresFile);
+        if (loader.skipped() == 0) {
+            List<String> lines = new ArrayList<>(enclosures.size());
+            for (Enclosure enclosure : enclosures) {
+                lines.add(DatabaseManager.serializeEnclosure(enclosure));
+            }
+            savedEnclosures = lines;
+        }
+        DatabaseManager.logSkipped(loader.skipped(), "enclosure");
+        DatabaseManager.logInfo("Loaded " + enclosures.size() + " enclosures from database");
+        if (animals.isEmpty() || !Files.exists(assignmentsFile)) {
+            return enclosures;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(assignmentsFile);
+            int restored = AssignmentFormat.restore(ByteBuffer.wrap(bytes), enclosures, animals);
+            savedAssignments = bytes;
+            DatabaseManager.logInfo("Restored " + restored + " enclosure assignments");
+        } catch (IOException e) {
+            // вольеры без размещения лучше, чем никаких: животных можно расселить заново
+            DatabaseManager.logError("Failed to restore enclosure assignments", e);
+        }
+        return enclosures;
+    }
+
+    private MappedLoader loader() {
+        return new MappedLoader(MappedLoader.DEFAULT_WINDOW, mapped);
+    }
+}
@@ -0,0 +1,524 @@
+package db;
+
+import enclosure.Enclosure;
+import enclosure.EnclosureType;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import model.Animal;
+import model.AnimalKind;
+import model.DirectBuffers;
+import model.NameDictionary;
+
+/**
+ * Загрузка баз животных и вольеров через отображение файла в память ({@link FileChannel#map}).
+ * Файл отображается окнами до 2 ГБ; окно обрабатывается до последней целой записи,
+ * следующее окно начинается с первой необработанной. Числа и вид разбираются прямо из байтов,
+ * имена животных сопоставляются со словарём через {@link Utf8NameCache} — строки на запись не создаются.
+ * После обработки окно сразу снимается с отображения, чтобы файл можно было перезаписать.
+ * Большие текстовые файлы на многоядерной машине разбираются параллельно ({@link ParallelTextLoader}).
+ * Сжатый файл ({@link CompressedAnimalFormat}) читается по блокам, а не отображением.
+ * Без отображения (mapped=false) файл читается каналом в буфер в куче — те же разборщики,
+ * но без {@code mmap}; так работает бэкенд {@code binary} ({@link StorageEngine}).
+ *
+ * Один экземпляр — одна загрузка: после неё {@link #skipped()} возвращает число пропущенных строк.
+ */
+final class MappedLoader {
+    static final long DEFAULT_WINDOW = Integer.MAX_VALUE;
+    /** Начальный размер буфера чтения без отображения. */
+    static final int READ_BUFFER_BYTES = 1 << 20;
+
+    private static final byte[][] KIND_NAMES = utf8(AnimalKind.values());
+    private static final byte[][] ENCLOSURE_TYPE_NAMES = utf8(EnclosureType.values());
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final long window;
+    private final boolean mapped;
+    private final Utf8NameCache names = new Utf8NameCache(NameDictionary.global());
+    private byte[] scratch = new byte[256];
+    /** Концы полей текущей строки. */
+    private final int[] cuts = new int[5];
+    private int skipped;
+    /** false — имена не сопоставляются со словарём, {@link #nameId} остаётся -1 (агрегаты). */
+    private boolean resolveNames = true;
+
+    /* Поля последней разобранной записи животного (decodeLine / decodeBinary). */
+    /** Ординал {@link AnimalKind}. */
+    int kind;
+    int nameId;
+    double weight;
+    int age;
+    long id;
+    /** false — строка старого формата без id. */
+    boolean hasId;
+
+    MappedLoader() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /** @param window наибольший размер окна отображения, байт */
+    MappedLoader(long window) {
+        this(window, true);
+    }
+
+    /**
+     * @param window наибольший размер окна отображения (или буфера чтения), байт
+     * @param mapped false — читать файл каналом в буфер, без отображения в память
+     */
+    MappedLoader(long window, boolean mapped) {
+        this.window = window;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Разбор без имён: для запросов, которым нужны только вид, вес и возраст.
+     */
+    MappedLoader withoutNames() {
+        resolveNames = false;
+        nameId = -1;
+        return this;
+    }
+
+    /** Число пропущенных некорректных строк текстового файла. */
+    int skipped() {
+        return skipped;
+    }
+
+    /**
+     * Загружает животных; формат (текст, двоичный или сжатый) определяется по магии в начале файла.
+     */
+    List<Animal> loadAnimals(Path file) throws IOException {
+        DatabaseFormat format = DatabaseFormat.detect(file);
+        if (format == DatabaseFormat.COMPRESSED) {
+            return CompressedAnimalFormat.load(file, ForkJoinPool.commonPool());
+        }
+        List<Animal> animals = new ArrayList<>();
+        if (format == DatabaseFormat.BINARY) {
+            long[] remaining = {-1};
+            scan(file, (buf, last) -> parseBinary(buf, last, animals, remaining));
+            if (remaining[0] != 0) {
+                throw new EOFException("Truncated binary animals file");
+            }
+        } else if (Files.size(file) >= ParallelTextLoader.MIN_PARALLEL_BYTES
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ParallelTextLoader parallel = new ParallelTextLoader(ForkJoinPool.commonPool());
+            animals.addAll(parallel.loadAnimals(file));
+            skipped += parallel.skipped();
+        } else {
+            scan(file, (buf, last) -> parseAnimalLines(buf, last, animals));
+        }
+        return animals;
+    }
+
+    /**
+     * Разбирает строки животных окна; при last=false — только до последней целой строки.
+     *
+     * @return число обработанных байт
+     */
+    int parseAnimalLines(ByteBuffer buf, boolean last, List<Animal> out) {
+        return parseLines(buf, last, (b, from, to) -> {
+            Animal animal = parseAnimal(b, from, to);
+            if (animal != null) {
+                out.add(animal);
+            }
+        });
+    }
+
+    /**
+     * Разбирает строки животных окна и передаёт поля каждой корректной записи обработчику;
+     * у строк старого формата без id передаётся id 0.
+     *
+     * @return число обработанных байт
+     */
+    int visitAnimalLines(ByteBuffer buf, boolean last, AnimalCursor.RecordVisitor visitor) {
+        return parseLines(buf, last, (b, from, to) -> {
+            if (decodeLine(b, from, to)) {
+                visitor.visit(id, (byte) kind, nameId, weight, age);
+            }
+        });
+    }
+
+    /**
+     * Загружает вольеры из текстового файла {@code name|TYPE|capacity}.
+     */
+    List<Enclosure> loadEnclosures(Path file) throws IOException {
+        List<Enclosure> enclosures = new ArrayList<>();
+        scan(file, (buf, last) -> parseLines(buf, last, (b, from, to) -> {
+            Enclosure enclosure = parseEnclosure(b, from, to);
+            if (enclosure != null) {
+                enclosures.add(enclosure);
+            }
+        }));
+        return enclosures;
+    }
+
+    /* ------------------ окна ------------------ */
+
+    /** Разбор одного окна; возвращает число обработанных байт с начала окна. */
+    private interface WindowParser {
+        int parse(ByteBuffer buf, boolean last) throws IOException;
+    }
+
+    private interface LineParser {
+        void parse(ByteBuffer buf, int from, int to);
+    }
+
+    private void scan(Path file, WindowParser parser) throws IOException {
+        if (!mapped) {
+            read(file, parser);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long pos = 0;
+            while (pos < size) {
+                long length = Math.min(window, size - pos);
+                boolean last = pos + length == size;
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                int used;
+                try {
+                    used = parser.parse(buf, last);
+                } finally {
+                    DirectBuffers.release(buf);
+                }
+                if (used == 0 && !last) {
+                    throw new IOException("Record at offset " + pos + " does not fit into a mapping window");
+                }
+                if (last) {
+                    break;
+                }
+                pos += used;
+            }
+        }
+    }
+
+    /**
+     * Чтение без отображения: буфер заполняется из канала, необработанный хвост переносится
+     * в начало; если запись не помещается в буфер, он удваивается (не больше окна).
+     */
+    private void read(Path file, WindowParser parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(READ_BUFFER_BYTES, Math.max(1, Math.min(size, window))));
+            long offset = 0;
+            boolean last = false;
+            while (size > 0) {
+                while (buf.hasRemaining() && !last) {
+                    int n = channel.read(buf);
+                    last = n < 0 || channel.position() >= size;
+                }
+                buf.flip();
+                int used = parser.parse(buf, last);
+                if (last) {
+                    return;
+                }
+                if (used == 0 && buf.limit() == buf.capacity()) {
+                    if (buf.capacity() >= window || buf.capacity() >= Integer.MAX_VALUE / 2) {
+                        throw new IOException("Record at offset " + offset + " does not fit into a read buffer");
+                    }
+                    ByteBuffer bigger = ByteBuffer.allocate((int) Math.min(window, buf.capacity() * 2L));
+                    buf = bigger.put(buf);
+                    continue;
+                }
+                offset += used;
+                buf.position(used);
+                buf.compact();
+            }
+        }
+    }
+
+    /** Передаёт каждую целую строку окна; последняя строка файла может быть без перевода строки. */
+    private int parseLines(ByteBuffer buf, boolean last, LineParser lines) {
+        int limit = buf.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && buf.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && !last) {
+                return start;
+            }
+            int to = end > start && buf.get(end - 1) == '\r' ? end - 1 : end;
+            if (to > start) {
+                lines.parse(buf, start, to);
+            }
+            start = end + 1;
+        }
+        return limit;
+    }
+
+    private int parseBinary(ByteBuffer buf, boolean last, List<Animal> animals, long[] remaining) throws IOException {
+        int limit = buf.limit();
+        int pos = 0;
+        if (remaining[0] < 0) {
+            remaining[0] = binaryCount(buf);
+            pos = AnimalBinaryFormat.HEADER_BYTES;
+        }
+        while (remaining[0] > 0) {
+            int end = decodeBinary(buf, pos, limit);
+            if (end < 0) {
+                return pos;
+            }
+            animals.add(AnimalKind.ofOrdinal(kind).create(id, nameId, weight, age));
+            remaining[0]--;
+            pos = end;
+        }
+        return remaining[0] == 0 ? limit : pos;
+    }
+
+    /** Проверяет заголовок двоичного файла в начале buf и возвращает число записей. */
+    static long binaryCount(ByteBuffer buf) throws IOException {
+        if (buf.limit() < AnimalBinaryFormat.HEADER_BYTES) {
+            throw new EOFException("Truncated binary animals header");
+        }
+        short version = buf.getShort(4);
+        if (version != AnimalBinaryFormat.VERSION) {
+            throw new IOException("Unsupported binary animals version: " + version);
+        }
+        return buf.getLong(8);
+    }
+
+    /* ------------------ строки ------------------ */
+
+    /** {@code Type|name|weight|age[|id]}; 4 поля — старый формат без id. */
+    private Animal parseAnimal(ByteBuffer buf, int from, int to) {
+        if (!decodeLine(buf, from, to)) {
+            return null;
+        }
+        AnimalKind animalKind = AnimalKind.ofOrdinal(kind);
+        return hasId ? animalKind.create(id, nameId, weight, age) : animalKind.create(nameId, weight, age);
+    }
+
+    /* ------------------ разбор одной записи ------------------ */
+
+    /**
+     * Разбирает текстовую строку животного в поля последней записи ({@link #kind}, {@link #id} ...).
+     *
+     * @return false для некорректной строки (она учитывается в {@link #skipped()})
+     */
+    boolean decodeLine(ByteBuffer buf, int from, int to) {
+        int count = fields(buf, from, to, 5);
+        if (count < 4) {
+            skipped++;
+            return false;
+        }
+        try {
+            int k = match(KIND_NAMES, buf, from, cuts[0]);
+            if (k < 0) {
+                throw new NumberFormatException("unknown type");
+            }
+            int nameStart = cuts[0] + 1;
+            int nameLength = cuts[1] - nameStart;
+            double w = parseDecimal(buf, cuts[1] + 1, cuts[2]);
+            int a = (int) parseLong(buf, cuts[2] + 1, cuts[3], Integer.MIN_VALUE, Integer.MAX_VALUE);
+            hasId = count == 5;
+            id = hasId ? parseLong(buf, cuts[3] + 1, cuts[4], Long.MIN_VALUE, Long.MAX_VALUE) : 0;
+            kind = k;
+            weight = w;
+            age = a;
+            if (resolveNames) {
+                nameId = names.intern(bytes(buf, nameStart, nameLength), 0, nameLength);
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            skipped++;
+            return false;
+        }
+    }
+
+    /**
+     * Разбирает двоичную запись, начинающуюся с pos, в поля последней записи.
+     *
+     * @return позиция за записью или -1, если запись не помещается до limit
+     */
+    int decodeBinary(ByteBuffer buf, int pos, int limit) throws IOException {
+        if (limit - pos <= AnimalBinaryFormat.FIXED_BYTES) {
+            return -1;
+        }
+        int p = pos + AnimalBinaryFormat.FIXED_BYTES;
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (p >= limit) {
+                return -1;
+            }
+            b = buf.get(p++);
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 35);
+        if (b < 0 || length < 0) {
+            throw new IOException("Corrupt varint at record offset " + pos);
+        }
+        if (limit - p < length) {
+            return -1;
+        }
+        int k = buf.get(pos);
+        if (k < 0 || k >= KIND_NAMES.length) {
+            throw new IOException("Corrupt record kind " + k);
+        }
+        kind = k;
+        hasId = true;
+        id = buf.getLong(pos + 1);
+        weight = buf.getDouble(pos + 9);
+        age = buf.getInt(pos + 17);
+        if (resolveNames) {
+            nameId = names.intern(bytes(buf, p, length), 0, length);
+        }
+        return p + length;
+    }
+
+    /** {@code name|TYPE|capacity}. */
+    private Enclosure parseEnclosure(ByteBuffer buf, int from, int to) {
+        if (fields(buf, from, to, 3) != 3) {
+            skipped++;
+            return null;
+        }
+        try {
+            int type = match(ENCLOSURE_TYPE_NAMES, buf, cuts[0] + 1, cuts[1]);
+            if (type < 0) {
+                throw new NumberFormatException("unknown type");
+            }
+            int nameLength = cuts[0] - from;
+            String name = new String(bytes(buf, from, nameLength), 0, nameLength, StandardCharsets.UTF_8);
+            int capacity = (int) parseLong(buf, cuts[1] + 1, cuts[2], Integer.MIN_VALUE, Integer.MAX_VALUE);
+            return new Enclosure(name, EnclosureType.values()[type], capacity);
+        } catch (IllegalArgumentException e) {
+            skipped++;
+            return null;
+        }
+    }
+
+    /**
+     * Делит строку на поля по '|': cuts[i] — позиция конца поля i.
+     *
+     * @return число полей или -1, если их больше max
+     */
+    private int fields(ByteBuffer buf, int from, int to, int max) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == '|') {
+                if (n == max - 1) {
+                    return -1;
+                }
+                cuts[n++] = i;
+            }
+        }
+        cuts[n++] = to;
+        return n;
+    }
+
+    private static int match(byte[][] candidates, ByteBuffer buf, int from, int to) {
+        int length = to - from;
+        for (int c = 0; c < candidates.length; c++) {
+            byte[] name = candidates[c];
+            if (name.length != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && buf.get(from + i) == name[i]) {
+                i++;
+            }
+            if (i == length) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Десятичное число вида {@code [-]digits[.digits]} без создания строки.
+     * Пока мантисса точно представима в double, одно деление на точную степень десяти даёт
+     * тот же результат, что {@link Double#parseDouble}; иначе разбор передаётся ему.
+     */
+    static double parseDecimal(ByteBuffer buf, int from, int to) {
+        int i = from;
+        boolean negative = i < to && buf.get(i) == '-';
+        if (negative || (i < to && buf.get(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < to; i++) {
+            byte c = buf.get(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15 || fraction == POW10.length - 1) {
+                    return slowDecimal(buf, from, to);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                return slowDecimal(buf, from, to);
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("empty number");
+        }
+        double value = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static double slowDecimal(ByteBuffer buf, int from, int to) {
+        byte[] text = new byte[to - from];
+        buf.get(from, text);
+        return Double.parseDouble(new String(text, StandardCharsets.ISO_8859_1));
+    }
+
+    static long parseLong(ByteBuffer buf, int from, int to, long min, long max) {
+        int i = from;
+        boolean negative = i < to && buf.get(i) == '-';
+        if (negative || (i < to && buf.get(i) == '+')) {
+            i++;
+        }
+        if (i == to || to - i > 18) {
+            throw new NumberFormatException("bad integer length");
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            byte c = buf.get(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("bad digit");
+            }
+            value = value * 10 + (c - '0');
+        }
+        value = negative ? -value : value;
+        if (value < min || value > max) {
+            throw new NumberFormatException("out of range");
+        }
+        return value;
+    }
+
+    /** Копирует байты buf[from, from + length) в переиспользуемый буфер. */
+    private byte[] bytes(ByteBuffer buf, int from, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buf.get(from, scratch, 0, length);
+        return scratch;
+    }
+
+    private static byte[][] utf8(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            String name = values[i] instanceof AnimalKind kind ? kind.getTypeName() : values[i].name();
+            names[i] = name.getBytes(StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+}
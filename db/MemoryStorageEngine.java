@@ -0,0 +1,58 @@
+package db;
+
+import enclosure.Enclosure;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import model.Animal;
+
+/**
+ * Хранилище в памяти процесса: копия списка животных и описания вольеров с размещением
+ * в том же виде, что assignments.db. Ничего не пишет на диск — для тестов и временных сессий.
+ * Животные неизменяемы, поэтому копируется только список.
+ */
+final class MemoryStorageEngine implements StorageEngine {
+    private List<Animal> animals = List.of();
+    /** Пустые копии сохранённых вольеров: имя, тип, вместимость. */
+    private List<Enclosure> enclosures = List.of();
+    private byte[] assignments;
+
+    @Override
+    public String name() {
+        return MEMORY;
+    }
+
+    @Override
+    public synchronized void saveAnimals(List<Animal> animals) {
+        this.animals = new ArrayList<>(animals);
+    }
+
+    @Override
+    public synchronized List<Animal> loadAnimals() {
+        return new ArrayList<>(animals);
+    }
+
+    @Override
+    public synchronized boolean saveEnclosures(List<Enclosure> enclosures) {
+        List<Enclosure> copies = new ArrayList<>(enclosures.size());
+        for (Enclosure enclosure : enclosures) {
+            copies.add(new Enclosure(enclosure.getName(), enclosure.getType(), enclosure.getCapacity()));
+        }
+        this.enclosures = copies;
+        this.assignments = AssignmentFormat.encode(enclosures);
+        return true;
+    }
+
+    @Override
+    public synchronized List<Enclosure> loadEnclosures(List<Animal> animals) throws IOException {
+        List<Enclosure> result = new ArrayList<>(enclosures.size());
+        for (Enclosure enclosure : enclosures) {
+            result.add(new Enclosure(enclosure.getName(), enclosure.getType(), enclosure.getCapacity()));
+        }
+        if (assignments != null && !animals.isEmpty()) {
+            AssignmentFormat.restore(ByteBuffer.wrap(assignments), result, animals);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,154 @@
+package db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Animal;
+import model.DirectBuffers;
+
+/**
+ * Параллельная загрузка текстовой базы животных.
+ * Файл делится на диапазоны байтов примерно по {@code chunkBytes}, границы сдвигаются
+ * на начало следующей строки. Каждый диапазон отображается в память и разбирается отдельной
+ * задачей fork-join со своим {@link MappedLoader}; результаты склеиваются в порядке файла.
+ *
+ * Строки старого формата без id получают новые id в порядке завершения задач,
+ * а не в порядке файла.
+ */
+final class ParallelTextLoader {
+    /** Меньшие файлы быстрее разобрать в одном потоке. */
+    static final long MIN_PARALLEL_BYTES = 16L << 20;
+    static final long DEFAULT_CHUNK_BYTES = 16L << 20;
+
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    ParallelTextLoader(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_BYTES);
+    }
+
+    ParallelTextLoader(ForkJoinPool pool, long chunkBytes) {
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /** Число пропущенных некорректных строк. */
+    int skipped() {
+        return skipped.get();
+    }
+
+    List<Animal> loadAnimals(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = lineAlignedBounds(channel);
+            int chunks = bounds.length - 1;
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            List<Animal>[] parts = new List[chunks];
+
+            List<RecursiveAction> tasks = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                int chunk = c;
+                tasks.add(action(() -> parts[chunk] = parseChunk(channel, bounds[chunk], bounds[chunk + 1])));
+            }
+            try {
+                pool.invoke(action(() -> RecursiveAction.invokeAll(tasks)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            int total = 0;
+            for (List<Animal> part : parts) {
+                total += part.size();
+            }
+            List<Animal> animals = new ArrayList<>(total);
+            for (List<Animal> part : parts) {
+                animals.addAll(part);
+            }
+            return animals;
+        }
+    }
+
+    private List<Animal> parseChunk(FileChannel channel, long from, long to) {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new UncheckedIOException(new IOException("Line at offset " + from + " is longer than 2 GB"));
+        }
+        List<Animal> part = new ArrayList<>((int) ((to - from) / 32));
+        MappedLoader loader = new MappedLoader();
+        MappedByteBuffer buf = null;
+        try {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            loader.parseAnimalLines(buf, true, part);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DirectBuffers.release(buf);
+        }
+        skipped.addAndGet(loader.skipped());
+        return part;
+    }
+
+    /**
+     * Границы диапазонов: 0, начала строк около k * chunkBytes, размер файла.
+     */
+    long[] lineAlignedBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long previous = 0;
+        for (long nominal = chunkBytes; nominal < size; nominal += chunkBytes) {
+            if (nominal <= previous) {
+                continue; // длинная строка уже перекрыла эту границу
+            }
+            long lineStart = nextLineStart(channel, nominal, size, probe);
+            if (lineStart >= size) {
+                break;
+            }
+            bounds.add(lineStart);
+            previous = lineStart;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /** Позиция сразу после первого '\n' начиная с pos - 1 (pos — уже начало строки, если перед ним '\n'). */
+    private static long nextLineStart(FileChannel channel, long pos, long size, ByteBuffer probe) throws IOException {
+        long at = pos - 1;
+        while (at < size) {
+            probe.clear();
+            int n = channel.read(probe, at);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += n;
+        }
+        return size;
+    }
+
+    private static RecursiveAction action(Runnable body) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                body.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,241 @@
+package db;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.DirectBuffers;
+
+/**
+ * Агрегаты ({@link AnimalStats}) по файлу животных, вычисляемые при просмотре файла:
+ * объекты {@link model.Animal} не создаются, имена не сопоставляются со словарём.
+ * Файл делится на куски, каждый просматривается отдельной задачей fork-join со своими агрегатами,
+ * затем агрегаты объединяются в порядке файла — результат не зависит от числа потоков.
+ * <ul>
+ *   <li>текст — диапазоны байтов по границам строк, как в {@link ParallelTextLoader};</li>
+ *   <li>двоичный — записи переменной длины, поэтому сначала один поток проходит по длинам записей
+ *       и отмечает начало каждых {@value #CHUNK_ROWS} записей, затем куски разбираются параллельно;</li>
+ *   <li>сжатый — каждый блок отдельно, столбец имён пропускается.</li>
+ * </ul>
+ */
+final class ScanAggregator {
+    static final int CHUNK_ROWS = 1 << 18;
+
+    private final ForkJoinPool pool;
+    private final long chunkBytes;
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    ScanAggregator(ForkJoinPool pool) {
+        this(pool, ParallelTextLoader.DEFAULT_CHUNK_BYTES);
+    }
+
+    /** @param chunkBytes примерный размер куска текстового файла */
+    ScanAggregator(ForkJoinPool pool, long chunkBytes) {
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /** Число пропущенных некорректных строк текстового файла. */
+    int skipped() {
+        return skipped.get();
+    }
+
+    AnimalStats aggregate(Path file) throws IOException {
+        DatabaseFormat format = DatabaseFormat.detect(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (format == DatabaseFormat.COMPRESSED) {
+                return compressed(channel);
+            }
+            return format == DatabaseFormat.BINARY ? binary(channel) : text(channel);
+        }
+    }
+
+    /* ------------------ форматы ------------------ */
+
+    private AnimalStats text(FileChannel channel) throws IOException {
+        long[] bounds = new ParallelTextLoader(pool, chunkBytes).lineAlignedBounds(channel);
+        return run(bounds.length - 1, (part, stats) -> {
+            MappedLoader loader = new MappedLoader().withoutNames();
+            MappedByteBuffer buf = map(channel, bounds[part], bounds[part + 1]);
+            try {
+                loader.visitAnimalLines(buf, true, stats);
+            } finally {
+                DirectBuffers.release(buf);
+            }
+            skipped.addAndGet(loader.skipped());
+        });
+    }
+
+    private AnimalStats binary(FileChannel channel) throws IOException {
+        long[] bounds = binaryBounds(channel);
+        long count = bounds[bounds.length - 1];
+        int chunks = bounds.length - 2;
+        return run(chunks, (part, stats) -> {
+            long rows = part < chunks - 1 ? CHUNK_ROWS : count - (long) CHUNK_ROWS * (chunks - 1);
+            MappedLoader loader = new MappedLoader().withoutNames();
+            MappedByteBuffer buf = map(channel, bounds[part], bounds[part + 1]);
+            try {
+                int pos = 0;
+                for (long r = 0; r < rows; r++) {
+                    pos = loader.decodeBinary(buf, pos, buf.limit());
+                    if (pos < 0) {
+                        throw new EOFException("Truncated binary animals file");
+                    }
+                    stats.add(loader.kind, loader.weight, loader.age);
+                }
+            } finally {
+                DirectBuffers.release(buf);
+            }
+        });
+    }
+
+    /**
+     * Начала кусков по {@link #CHUNK_ROWS} записей, конец последней записи и (последним элементом) число записей.
+     */
+    private static long[] binaryBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long count;
+        MappedByteBuffer header = map(channel, 0, Math.min(size, AnimalBinaryFormat.HEADER_BYTES));
+        try {
+            count = MappedLoader.binaryCount(header);
+        } finally {
+            DirectBuffers.release(header);
+        }
+        List<Long> bounds = new ArrayList<>();
+        long pos = AnimalBinaryFormat.HEADER_BYTES;
+        long row = 0;
+        while (row < count) {
+            long windowEnd = Math.min(size, pos + Integer.MAX_VALUE);
+            MappedByteBuffer buf = map(channel, pos, windowEnd);
+            int p = 0;
+            try {
+                int limit = buf.limit();
+                while (row < count) {
+                    int end = recordEnd(buf, p, limit);
+                    if (end < 0) {
+                        break; // запись продолжится в следующем окне
+                    }
+                    if (row % CHUNK_ROWS == 0) {
+                        bounds.add(pos + p);
+                    }
+                    p = end;
+                    row++;
+                }
+            } finally {
+                DirectBuffers.release(buf);
+            }
+            if (row < count && windowEnd == size) {
+                throw new EOFException("Truncated binary animals file");
+            }
+            if (row < count && p == 0) {
+                throw new IOException("Record at offset " + pos + " does not fit into a mapping window");
+            }
+            pos += p;
+        }
+        if (bounds.isEmpty()) {
+            bounds.add(pos);
+        }
+        long[] result = new long[bounds.size() + 2];
+        for (int i = 0; i < bounds.size(); i++) {
+            result[i] = bounds.get(i);
+        }
+        result[bounds.size()] = pos;
+        result[bounds.size() + 1] = count;
+        return result;
+    }
+
+    /** Конец двоичной записи, начинающейся с p, по длине имени; -1, если запись не помещается до limit. */
+    private static int recordEnd(ByteBuffer buf, int p, int limit) throws IOException {
+        int at = p + AnimalBinaryFormat.FIXED_BYTES;
+        int length = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (at >= limit) {
+                return -1;
+            }
+            byte b = buf.get(at++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (length < 0) {
+                    break;
+                }
+                return limit - at >= length ? at + length : -1;
+            }
+        }
+        throw new IOException("Corrupt varint at record offset " + p);
+    }
+
+    private AnimalStats compressed(FileChannel channel) throws IOException {
+        CompressedAnimalFormat.Index index = CompressedAnimalFormat.Index.read(channel);
+        return run(index.blocks(), (block, stats) -> {
+            CompressedAnimalFormat.Block columns = CompressedAnimalFormat.read(channel, index, block, null);
+            for (int i = 0; i < columns.rows; i++) {
+                stats.add(columns.kinds[i], columns.weights[i], columns.ages[i]);
+            }
+        });
+    }
+
+    /* ------------------ куски ------------------ */
+
+    /** Просмотр одного куска с накоплением в его агрегаты. */
+    private interface ChunkScan {
+        void scan(int part, AnimalStats stats) throws IOException;
+    }
+
+    private AnimalStats run(int parts, ChunkScan scan) throws IOException {
+        AnimalStats[] results = new AnimalStats[parts];
+        List<RecursiveAction> tasks = new ArrayList<>(parts);
+        for (int p = 0; p < parts; p++) {
+            int part = p;
+            tasks.add(action(() -> {
+                AnimalStats stats = new AnimalStats();
+                try {
+                    scan.scan(part, stats);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                results[part] = stats;
+            }));
+        }
+        try {
+            if (parts <= 1 || pool.getParallelism() <= 1) {
+                for (RecursiveAction task : tasks) {
+                    task.invoke();
+                }
+            } else {
+                pool.invoke(action(() -> RecursiveAction.invokeAll(tasks)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        AnimalStats total = new AnimalStats();
+        for (AnimalStats part : results) {
+            total.merge(part);
+        }
+        return total;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new IOException("Chunk at offset " + from + " is larger than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    private static RecursiveAction action(Runnable body) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                body.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package db;
+
+import enclosure.Enclosure;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import model.Animal;
+
+/**
+ * Хранилище животных и вольеров. Бэкенды взаимозаменяемы и выбираются по имени
+ * ({@code storage.engine} в config.properties, см. {@link #create}):
+ * <ul>
+ *   <li>{@code memory} — только в памяти процесса, без файлов;</li>
+ *   <li>{@code text} — текстовый animals.db, чтение через отображение в память;</li>
+ *   <li>{@code binary} — двоичный animals.db, чтение каналом в буфер;</li>
+ *   <li>{@code mmap} — двоичный animals.db, чтение через отображение в память (по умолчанию);</li>
+ *   <li>{@code compressed} — animals.db, сжатый блоками.</li>
+ * </ul>
+ * Файловые бэкенды читают снимок любого формата, так что смена бэкенда не теряет базу:
+ * формат меняется при следующем полном переписывании снимка.
+ */
+public interface StorageEngine {
+    String MEMORY = "memory";
+    String TEXT = "text";
+    String BINARY = "binary";
+    String MMAP = "mmap";
+    String COMPRESSED = "compressed";
+
+    /** Все имена бэкендов в порядке объявления. */
+    List<String> NAMES = List.of(MEMORY, TEXT, BINARY, MMAP, COMPRESSED);
+
+    /** Имя бэкенда, как в config.properties. */
+    String name();
+
+    /** Сохраняет список животных целиком (бэкенд может записать только изменения). */
+    void saveAnimals(List<Animal> animals) throws IOException;
+
+    /** Загружает сохранённых животных; пустой список, если сохранений не было. */
+    List<Animal> loadAnimals() throws IOException;
+
+    /**
+     * Передаёт обработчику поля каждого сохранённого животного.
+     * По умолчанию — через {@link #loadAnimals()}; файловые бэкенды читают снимок курсором без объектов.
+     *
+     * @return число записей
+     */
+    default long forEachAnimal(AnimalCursor.RecordVisitor visitor) throws IOException {
+        List<Animal> animals = loadAnimals();
+        for (Animal a : animals) {
+            visitor.visit(a.getId(), (byte) a.getKind().ordinal(), a.getNameId(), a.getWeight(), a.getAge());
+        }
+        return animals.size();
+    }
+
+    /**
+     * Агрегаты по сохранённым животным: число по видам, вес, возраст.
+     * По умолчанию — через {@link #forEachAnimal}; файловые бэкенды считают их при параллельном просмотре снимка.
+     */
+    default AnimalStats aggregate() throws IOException {
+        AnimalStats stats = new AnimalStats();
+        forEachAnimal(stats);
+        return stats;
+    }
+
+    /**
+     * Сохраняет вольеры и размещение в них животных.
+     *
+     * @return false, если вольеры не изменились с прошлого сохранения или загрузки и не переписывались
+     */
+    boolean saveEnclosures(List<Enclosure> enclosures) throws IOException;
+
+    /**
+     * Загружает вольеры и возвращает в них животных из animals по сохранённому размещению;
+     * животные, которых нет в списке, пропускаются.
+     */
+    List<Enclosure> loadEnclosures(List<Animal> animals) throws IOException;
+
+    /**
+     * Создаёт бэкенд по имени; файлы файловых бэкендов лежат в directory.
+     *
+     * @throws IllegalArgumentException если имя неизвестно
+     */
+    static StorageEngine create(String name, Path directory) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case MEMORY -> new MemoryStorageEngine();
+            case TEXT -> new FileStorageEngine(TEXT, directory, DatabaseFormat.TEXT, true);
+            case BINARY -> new FileStorageEngine(BINARY, directory, DatabaseFormat.BINARY, false);
+            case MMAP -> new FileStorageEngine(MMAP, directory, DatabaseFormat.BINARY, true);
+            case COMPRESSED -> new FileStorageEngine(COMPRESSED, directory, DatabaseFormat.COMPRESSED, true);
+            default -> throw new IllegalArgumentException(
+                    "Unknown storage engine: " + name + " (expected one of " + NAMES + ")");
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package db;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import model.NameDictionary;
+
+/**
+ * Кэш UTF-8 представлений имён словаря на время одного чтения/записи файла.
+ * При записи имя кодируется один раз на id, при чтении повторяющиеся байты имени
+ * сопоставляются с уже известным id без создания строки.
+ */
+final class Utf8NameCache {
+    private final NameDictionary dictionary;
+    /** id имени -> байты UTF-8. */
+    private byte[][] encoded = new byte[64][];
+    /** Открытая адресация: id + 1, 0 — пусто. */
+    private int[] table = new int[64];
+    private int used;
+
+    Utf8NameCache(NameDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Байты UTF-8 имени с данным id.
+     */
+    byte[] encode(int nameId) {
+        if (nameId >= encoded.length) {
+            encoded = Arrays.copyOf(encoded, Math.max(nameId + 1, encoded.length * 2));
+        }
+        byte[] bytes = encoded[nameId];
+        if (bytes == null) {
+            bytes = dictionary.name(nameId).getBytes(StandardCharsets.UTF_8);
+            encoded[nameId] = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * id имени, записанного байтами buf[off, off + len). Строка создаётся только для нового имени.
+     */
+    int intern(byte[] buf, int off, int len) {
+        int mask = table.length - 1;
+        int i = hash(buf, off, len) & mask;
+        for (int slot; (slot = table[i]) != 0; i = (i + 1) & mask) {
+            byte[] known = encode(slot - 1);
+            if (Arrays.equals(known, 0, known.length, buf, off, off + len)) {
+                return slot - 1;
+            }
+        }
+        int id = dictionary.intern(new String(buf, off, len, StandardCharsets.UTF_8));
+        byte[] bytes = encode(id);
+        if (!Arrays.equals(bytes, 0, bytes.length, buf, off, off + len)) {
+            // некорректный UTF-8: строка раскодирована с заменами, кэшировать по сырым байтам нельзя
+            return id;
+        }
+        table[i] = id + 1;
+        if (++used * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        int[] old = table;
+        table = new int[old.length * 2];
+        int mask = table.length - 1;
+        for (int slot : old) {
+            if (slot != 0) {
+                byte[] bytes = encode(slot - 1);
+                int i = hash(bytes, 0, bytes.length) & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = slot;
+            }
+        }
+    }
+
+    private static int hash(byte[] buf, int off, int len) {
+        int h = 0x811C9DC5;
+        for (int i = off, end = off + len; i < end; i++) {
+            h = (h ^ buf[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
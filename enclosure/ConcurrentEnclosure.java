@@ -0,0 +1,130 @@
+package enclosure;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import model.Animal;
+
+/**
+ * Потокобезопасный вольер без глобальной блокировки.
+ * Место резервируется атомарным счётчиком (CAS), после чего животное записывается
+ * в заранее выделенный слот. Счётчик никогда не превышает вместимость,
+ * поэтому вольер не переполняется при одновременном заселении из многих потоков.
+ */
+public class ConcurrentEnclosure extends Enclosure {
+    /** Число занятых (зарезервированных) слотов. */
+    private final AtomicInteger reserved = new AtomicInteger();
+    /** Слоты для животных, размер равен вместимости. */
+    private final AtomicReferenceArray<Animal> slots;
+    /** Живое представление занятых слотов. */
+    private final List<Animal> animalsView = new SlotsView();
+
+    /**
+     * Создаёт новый потокобезопасный вольер.
+     */
+    public ConcurrentEnclosure(String name, EnclosureType type, int capacity) {
+        super(name, type, capacity);
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Резервирует слот через CAS и записывает в него животное.
+     *
+     * @return false если свободных слотов не осталось
+     */
+    @Override
+    public boolean addAnimal(Animal a) {
+        Objects.requireNonNull(a, "animal");
+        int slot;
+        do {
+            slot = reserved.get();
+            if (slot >= getCapacity()) return false;
+        } while (!reserved.compareAndSet(slot, slot + 1));
+        slots.set(slot, a);
+        return true;
+    }
+
+    /**
+     * Вольер работает только на заселение: освобождение слота сломало бы
+     * монотонность счётчика, на которой держится резервирование.
+     */
+    @Override
+    public boolean removeAnimal(Animal a) {
+        throw new UnsupportedOperationException("ConcurrentEnclosure is append-only");
+    }
+
+    @Override
+    public boolean isRemovable() {
+        return false;
+    }
+
+    @Override
+    public int freeSlots() {
+        return getCapacity() - reserved.get();
+    }
+
+    /**
+     * Копия списка животных. Слоты, зарезервированные, но ещё не записанные
+     * другим потоком, пропускаются.
+     */
+    @Override
+    public List<Animal> getAnimals() {
+        int n = reserved.get();
+        List<Animal> copy = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Animal a = slots.get(i);
+            if (a != null) copy.add(a);
+        }
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return reserved.get();
+    }
+
+    /**
+     * Обход записанных слотов; ещё не записанные слоты пропускаются.
+     */
+    @Override
+    public void forEachAnimal(Consumer<? super Animal> action) {
+        int n = reserved.get();
+        for (int i = 0; i < n; i++) {
+            Animal a = slots.get(i);
+            if (a != null) action.accept(a);
+        }
+    }
+
+    /**
+     * Живое представление слотов. Слот, зарезервированный другим потоком,
+     * может на короткое время читаться как null.
+     */
+    @Override
+    public List<Animal> animalsView() {
+        return animalsView;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConcurrentEnclosure[%s - %s] capacity=%d current=%d",
+            getName(), getType(), getCapacity(), reserved.get());
+    }
+
+    private final class SlotsView extends AbstractList<Animal> implements RandomAccess {
+        @Override
+        public Animal get(int index) {
+            Objects.checkIndex(index, size());
+            return slots.get(index);
+        }
+
+        @Override
+        public int size() {
+            return reserved.get();
+        }
+    }
+}
@@ -1,12 +1,10 @@
 package enclosure;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import model.Animal;
-import model.Aquatic;
-import model.ColdBlooded;
-import model.Feathered;
-import model.Hoofed;
 
 /**
  * Класс, представляющий вольер в зоопарке.
@@ -20,6 +18,8 @@ public class Enclosure {
     private final int capacity;
     /** Текущий список животных (внутренний). */
     private final List<Animal> animals = new ArrayList<>();
+    /** Неизменяемое живое представление списка животных. */
+    private final List<Animal> animalsView = Collections.unmodifiableList(animals);
 
     /**
      * Создаёт новый вольер.
@@ -54,19 +54,25 @@ public class Enclosure {
      * @return максимальное количество животных
      */
     public int getCapacity(){ return capacity; }
+
+    /**
+     * Количество свободных мест в вольере.
+     *
+     * @return capacity минус текущее число животных
+     */
+    public int freeSlots(){ return capacity - animals.size(); }
+
+    /**
+     * Текущее количество животных в вольере.
+     */
+    public int size(){ return animals.size(); }
     
 
     /**
-     * Проверяет, подходит ли этот вольер для данного животного по типу/классу
+     * Проверяет, подходит ли этот вольер для данного животного: AND маски типа и бита вида.
      */
     public boolean canAccept(Animal a) {
-        return switch (type) {
-            case AQUARIUM -> a instanceof Aquatic;
-            case NET_COVERED -> a instanceof Feathered;
-            case OPEN -> a instanceof Hoofed;
-            case INFRARED -> a instanceof ColdBlooded;
-            default -> false;
-        };
+        return (type.acceptMask() & a.getKind().mask()) != 0;
     }
 
     /**
@@ -78,6 +84,28 @@ public class Enclosure {
         return true;
     }
 
+    /**
+     * Убрать животное из вольера (сравнение по ссылке).
+     *
+     * @return true если животное было в вольере
+     */
+    public boolean removeAnimal(Animal a) {
+        for (int i = 0; i < animals.size(); i++) {
+            if (animals.get(i) == a) {
+                animals.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Можно ли убирать животных из вольера ({@link #removeAnimal}).
+     */
+    public boolean isRemovable() {
+        return true;
+    }
+
     /**
      * Получить копию списка животных, содержащихся в вольере.
      * Возвращается новая коллекция для защиты внутреннего состояния.
@@ -88,9 +116,26 @@ public class Enclosure {
         return new ArrayList<>(animals);
     }
 
+    /**
+     * Обойти животных вольера без создания копии списка.
+     */
+    public void forEachAnimal(Consumer<? super Animal> action) {
+        for (int i = 0; i < animals.size(); i++) {
+            action.accept(animals.get(i));
+        }
+    }
+
+    /**
+     * Живое представление животных вольера только для чтения.
+     * Не копирует список; изменения вольера сразу видны через представление.
+     */
+    public List<Animal> animalsView() {
+        return animalsView;
+    }
+
     @Override
     public String toString() {
         return String.format("Enclosure[%s - %s] capacity=%d current=%d",
-            name, type, capacity, animals.size());
+            name, type, capacity, size());
     }
 }
@@ -0,0 +1,152 @@
+package enclosure;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import model.Animal;
+
+/**
+ * Реестр вольеров, сгруппированных по типу.
+ * Для каждого типа хранится очередь вольеров, в которых ещё есть свободные места,
+ * в исходном порядке регистрации. Заполненные вольеры удаляются из очереди,
+ * поэтому размещение одного животного стоит амортизированно O(1).
+ * Вольер стоит в очереди не больше одного раза; вольеры, не зарегистрированные
+ * в реестре, в учёте мест не участвуют.
+ */
+public class EnclosureRegistry {
+    /** Очереди вольеров со свободными местами по типам. */
+    private final EnumMap<EnclosureType, ArrayDeque<Enclosure>> open = new EnumMap<>(EnclosureType.class);
+    /** Суммарное число свободных мест по типам (индекс — ordinal типа). */
+    private final int[] freeByType = new int[EnclosureType.values().length];
+    /** Зарегистрированные вольеры (по ссылке). */
+    private final Set<Enclosure> known = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Вольеры, стоящие сейчас в очередях (по ссылке). */
+    private final Set<Enclosure> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Создаёт реестр и регистрирует переданные вольеры в порядке обхода коллекции.
+     */
+    public EnclosureRegistry(Collection<Enclosure> enclosures) {
+        for (EnclosureType t : EnclosureType.values()) {
+            open.put(t, new ArrayDeque<>());
+        }
+        for (Enclosure e : enclosures) {
+            register(e);
+        }
+    }
+
+    /**
+     * Добавляет вольер в конец очереди своего типа, если в нём есть свободные места.
+     * Повторная регистрация того же вольера ничего не меняет.
+     */
+    public void register(Enclosure e) {
+        if (!known.add(e)) return;
+        int free = e.freeSlots();
+        if (free <= 0) return;
+        enqueue(e);
+        freeByType[e.getType().ordinal()] += free;
+    }
+
+    /**
+     * Размещает животное в первом подходящем вольере со свободным местом.
+     *
+     * @param a животное
+     * @return вольер, в который помещено животное, или null если места нет
+     */
+    public Enclosure place(Animal a) {
+        EnclosureType t = typeFor(a);
+        if (t == null) return null;
+        ArrayDeque<Enclosure> queue = open.get(t);
+        Enclosure e;
+        while ((e = queue.peekFirst()) != null) {
+            if (e.addAnimal(a)) {
+                freeByType[t.ordinal()]--;
+                if (e.freeSlots() <= 0) dequeueFirst(queue);
+                return e;
+            }
+            // вольер заполнили в обход реестра — просто убираем его из очереди
+            dequeueFirst(queue);
+        }
+        freeByType[t.ordinal()] = 0;
+        return null;
+    }
+
+    /**
+     * Учитывает животное, добавленное в зарегистрированный вольер в обход {@link #place}.
+     * Если вольер заполнился, он будет убран из очереди при следующем размещении.
+     */
+    public void occupy(Enclosure e) {
+        if (!known.contains(e)) return;
+        freeByType[e.getType().ordinal()]--;
+    }
+
+    /**
+     * Учитывает освободившееся место в зарегистрированном вольере. Вольер, которого
+     * нет в очереди, возвращается в её конец; стоящий в очереди остаётся на месте.
+     */
+    public void release(Enclosure e) {
+        if (!known.contains(e)) return;
+        if (e.freeSlots() > 0) {
+            enqueue(e);
+        }
+        freeByType[e.getType().ordinal()]++;
+    }
+
+    private void enqueue(Enclosure e) {
+        if (queued.add(e)) {
+            open.get(e.getType()).addLast(e);
+        }
+    }
+
+    private void dequeueFirst(ArrayDeque<Enclosure> queue) {
+        queued.remove(queue.pollFirst());
+    }
+
+    /**
+     * Снимок очереди свободных вольеров заданного типа (в порядке заполнения).
+     */
+    public Enclosure[] openEnclosures(EnclosureType t) {
+        return open.get(t).toArray(new Enclosure[0]);
+    }
+
+    /**
+     * Синхронизирует очередь после пакетного размещения в обход {@link #place}:
+     * убирает заполненные вольеры из головы очереди и уменьшает счётчик свободных мест.
+     *
+     * @param t тип вольеров
+     * @param placed сколько животных было размещено
+     */
+    public void commitBulk(EnclosureType t, int placed) {
+        ArrayDeque<Enclosure> queue = open.get(t);
+        while (!queue.isEmpty() && queue.peekFirst().freeSlots() <= 0) {
+            dequeueFirst(queue);
+        }
+        freeByType[t.ordinal()] = queue.isEmpty() ? 0 : freeByType[t.ordinal()] - placed;
+    }
+
+    /**
+     * Суммарное число свободных мест в вольерах заданного типа.
+     */
+    public int freeSlots(EnclosureType t) {
+        return freeByType[t.ordinal()];
+    }
+
+    /**
+     * Есть ли свободные вольеры заданного типа.
+     */
+    public boolean hasFree(EnclosureType t) {
+        return !open.get(t).isEmpty();
+    }
+
+    /**
+     * Определяет тип вольера, подходящий животному, по тегу вида.
+     *
+     * @return тип вольера или null, если вид не принимает ни один тип
+     */
+    public static EnclosureType typeFor(Animal a) {
+        return EnclosureType.forKind(a.getKind());
+    }
+}
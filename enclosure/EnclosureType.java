@@ -1,15 +1,57 @@
 package enclosure;
 
+import model.AnimalKind;
+
 /**
  * Типы вольеров, используемые в модели.
+ * Каждый тип хранит маску видов животных, которых он принимает.
  */
 public enum EnclosureType {
     /** Водный аквариум (для водоплавающих). */
-    AQUARIUM,
+    AQUARIUM(AnimalKind.AQUATIC),
     /** Накрытый сеткой вольер (для птиц). */
-    NET_COVERED,
+    NET_COVERED(AnimalKind.FEATHERED),
     /** Открытый наземный вольер (для копытных). */
-    OPEN,
+    OPEN(AnimalKind.HOOFED),
     /** Вольер с инфракрасным освещением (для хладнокровных). */
-    INFRARED
+    INFRARED(AnimalKind.COLD_BLOODED);
+
+    /** Тип вольера для каждого вида (индекс — ordinal вида). */
+    private static final EnclosureType[] BY_KIND = new EnclosureType[AnimalKind.values().length];
+
+    static {
+        for (EnclosureType t : values()) {
+            for (AnimalKind k : AnimalKind.values()) {
+                if (t.accepts(k) && BY_KIND[k.ordinal()] == null) BY_KIND[k.ordinal()] = t;
+            }
+        }
+    }
+
+    /** Маска принимаемых видов (OR битов {@link AnimalKind#mask()}). */
+    private final int acceptMask;
+
+    EnclosureType(AnimalKind... accepted) {
+        int mask = 0;
+        for (AnimalKind k : accepted) mask |= k.mask();
+        this.acceptMask = mask;
+    }
+
+    /**
+     * Маска видов животных, которых принимает вольер этого типа.
+     */
+    public int acceptMask() { return acceptMask; }
+
+    /**
+     * Принимает ли вольер этого типа животных данного вида.
+     */
+    public boolean accepts(AnimalKind kind) {
+        return (acceptMask & kind.mask()) != 0;
+    }
+
+    /**
+     * Тип вольера, в который расселяются животные данного вида.
+     */
+    public static EnclosureType forKind(AnimalKind kind) {
+        return BY_KIND[kind.ordinal()];
+    }
 }
@@ -0,0 +1,89 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import model.Animal;
+import model.AnimalIndex;
+import model.AnimalKind;
+
+/**
+ * Запросы к популяции животных: линейный просмотр списка против {@link AnimalIndex}.
+ * Запросы: копытные тяжелее 300 кг, возраст 3..4, 10 самых тяжёлых, поиск по имени;
+ * отдельно — построение индекса и стоимость добавления/удаления одного животного.
+ *
+ * Запуск: java -Xmx4g -cp out experLogger.AnimalIndexBenchmark [животных, по умолчанию 2000000] [повторов, по умолчанию 20]
+ */
+public class AnimalIndexBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        List<Animal> animals = RandomDataGenerator.stream(42L, rows).collect(Collectors.toList());
+        String name = animals.get(0).getName();
+        double over = Math.nextUp(300.0);
+
+        long start = System.nanoTime();
+        AnimalIndex index = new AnimalIndex(animals);
+        System.out.printf("rows=%,d build %,d ms%n", rows, (System.nanoTime() - start) / 1_000_000);
+
+        for (int round = 1; round <= 2; round++) {
+            report("heavy hoofed", repeats,
+                    () -> scan(animals, a -> a.getKind() == AnimalKind.HOOFED && a.getWeight() >= over),
+                    () -> index.byWeight(AnimalKind.HOOFED, over, Double.MAX_VALUE).size());
+            report("age 3..4", repeats,
+                    () -> scan(animals, a -> a.getAge() >= 3 && a.getAge() <= 4),
+                    () -> index.byAge(null, 3, 4).size());
+            report("top-10 weight", repeats,
+                    () -> animals.stream().sorted((a, b) -> Double.compare(b.getWeight(), a.getWeight()))
+                            .limit(10).collect(Collectors.toList()).size(),
+                    () -> index.heaviest(null, 10).size());
+            report("by name", repeats,
+                    () -> scan(animals, a -> a.getName().equalsIgnoreCase(name)),
+                    () -> index.byName(name).size());
+        }
+
+        List<Animal> extra = RandomDataGenerator.stream(7L, 10_000).collect(Collectors.toList());
+        start = System.nanoTime();
+        extra.forEach(index::add);
+        extra.forEach(a -> index.remove(a.getId()));
+        System.out.printf("add+remove %,d animals: %,.1f us per animal%n", extra.size(),
+                (System.nanoTime() - start) / 1e3 / extra.size());
+    }
+
+    private interface Query {
+        int run();
+    }
+
+    private interface Filter {
+        boolean test(Animal animal);
+    }
+
+    private static int scan(List<Animal> animals, Filter filter) {
+        List<Animal> result = new ArrayList<>();
+        for (Animal animal : animals) {
+            if (filter.test(animal)) {
+                result.add(animal);
+            }
+        }
+        return result.size();
+    }
+
+    private static void report(String label, int repeats, Query linear, Query indexed) {
+        long linearNanos = time(linear, repeats);
+        long indexedNanos = time(indexed, repeats);
+        System.out.printf("%-14s found %,9d  linear %,9.2f ms  index %,9.3f ms  x%.0f%n", label, indexed.run(),
+                linearNanos / 1e6, indexedNanos / 1e6, (double) linearNanos / Math.max(1, indexedNanos));
+    }
+
+    private static long time(Query query, int repeats) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < repeats; i++) {
+            long start = System.nanoTime();
+            query.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
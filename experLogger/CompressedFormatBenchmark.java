@@ -0,0 +1,50 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import db.DatabaseFormat;
+import db.DatabaseManager;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import model.Animal;
+
+/**
+ * Размер файла, запись, полная загрузка и чтение диапазона из 1000 записей в середине файла
+ * для текстового, двоичного и сжатого блоками форматов.
+ * Сжатый файл загружается параллельно по блокам на общем пуле fork-join.
+ *
+ * Запуск: java -Xmx4g -cp out experLogger.CompressedFormatBenchmark [животных, по умолчанию 5000000] [повторов, по умолчанию 3]
+ */
+public class CompressedFormatBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        List<Animal> animals = RandomDataGenerator.stream(42L, rows).collect(Collectors.toList());
+        System.out.printf("rows=%,d parallelism=%d%n", rows, ForkJoinPool.commonPool().getParallelism());
+
+        for (DatabaseFormat format : DatabaseFormat.values()) {
+            File file = File.createTempFile("compressed-bench", "." + format.name().toLowerCase());
+            file.deleteOnExit();
+            for (int r = 1; r <= rounds; r++) {
+                long start = System.nanoTime();
+                DatabaseManager.saveAnimals(animals, file.getPath(), format);
+                long save = System.nanoTime() - start;
+
+                System.gc();
+                start = System.nanoTime();
+                int loaded = DatabaseManager.loadAnimals(file.getPath()).size();
+                long load = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                int ranged = DatabaseManager.loadAnimalRange(file.getPath(), rows / 2, rows / 2 + 1000).size();
+                long range = System.nanoTime() - start;
+
+                System.out.printf("#%d %-10s %,13d bytes  save %,6d ms  load %,6d ms (%,d)  range %,8.2f ms (%d)%n",
+                        r, format, file.length(), save / 1_000_000, load / 1_000_000, loaded, range / 1e6, ranged);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import db.DatabaseFormat;
+import db.DatabaseManager;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import model.Animal;
+
+/**
+ * Сравнение текстового и двоичного форматов базы животных:
+ * время сохранения и загрузки (лучшее из нескольких повторов), размер файла.
+ *
+ * Запуск: java -Xmx4g -cp out experLogger.DatabaseFormatBenchmark [животных, по умолчанию 1000000] [повторов, по умолчанию 3]
+ */
+public class DatabaseFormatBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        List<Animal> animals = RandomDataGenerator.stream(42L, rows).collect(Collectors.toList());
+
+        System.out.printf("rows=%,d%n", rows);
+        long[] text = run(animals, DatabaseFormat.TEXT, rounds);
+        long[] binary = run(animals, DatabaseFormat.BINARY, rounds);
+        System.out.printf("speedup: save x%.1f, load x%.1f, size x%.2f%n",
+                (double) text[0] / Math.max(1, binary[0]),
+                (double) text[1] / Math.max(1, binary[1]),
+                (double) text[2] / binary[2]);
+    }
+
+    /** @return время сохранения (мс), загрузки (мс) и размер файла (байт) */
+    private static long[] run(List<Animal> animals, DatabaseFormat format, int rounds) throws IOException {
+        File file = File.createTempFile("format-bench", "." + format.name().toLowerCase());
+        file.deleteOnExit();
+
+        long saveMs = Long.MAX_VALUE;
+        long loadMs = Long.MAX_VALUE;
+        int loadedRows = 0;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            DatabaseManager.saveAnimals(animals, file.getPath(), format);
+            saveMs = Math.min(saveMs, (System.nanoTime() - start) / 1_000_000);
+
+            start = System.nanoTime();
+            List<Animal> loaded = DatabaseManager.loadAnimals(file.getPath());
+            loadMs = Math.min(loadMs, (System.nanoTime() - start) / 1_000_000);
+            loadedRows = loaded.size();
+            loaded = null;
+            System.gc();
+        }
+
+        System.out.printf("%-6s save %,7d ms  load %,7d ms  size %,12d bytes  rows %,d%n",
+                format, saveMs, loadMs, file.length(), loadedRows);
+        return new long[] {saveMs, loadMs, file.length()};
+    }
+}
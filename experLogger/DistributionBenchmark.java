@@ -0,0 +1,65 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import controller.ZooController;
+import enclosure.Enclosure;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import model.Animal;
+
+/**
+ * Бенчмарк масштабирования параллельного расселения.
+ * Запускает {@link ZooController#distributeAnimalsParallel(List, ForkJoinPool)} на 1, 2, 4 и N потоках
+ * и сравнивает время и результат с последовательным {@link ZooController#distributeAnimals}.
+ *
+ * Запуск: java -cp out experLogger.DistributionBenchmark [размер партии] [повторы]
+ */
+public class DistributionBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        List<Animal> batch = RandomDataGenerator.generateAnimals(size, false);
+        // Средняя вместимость 4.5 — вольеров хватает примерно на 90% партии
+        List<Enclosure> template = RandomDataGenerator.generateEnclosures(size / 5, false);
+
+        long seqNanos = Long.MAX_VALUE;
+        int seqUnassigned = 0;
+        for (int r = 0; r < repeats; r++) {
+            ZooController c = new ZooController(copyOf(template));
+            long t0 = System.nanoTime();
+            seqUnassigned = c.distributeAnimals(batch).size();
+            seqNanos = Math.min(seqNanos, System.nanoTime() - t0);
+        }
+        System.out.printf("animals=%d enclosures=%d%n", size, template.size());
+        System.out.printf("sequential: %8.1f ms, unassigned=%d%n", seqNanos / 1e6, seqUnassigned);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : new int[]{1, 2, 4, cores}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long best = Long.MAX_VALUE;
+            int unassigned = 0;
+            for (int r = 0; r < repeats; r++) {
+                ZooController c = new ZooController(copyOf(template));
+                long t0 = System.nanoTime();
+                unassigned = c.distributeAnimalsParallel(batch, pool).size();
+                best = Math.min(best, System.nanoTime() - t0);
+            }
+            pool.shutdown();
+            System.out.printf("parallel %2d: %8.1f ms, speedup x%.2f, unassigned=%d%s%n",
+                    threads, best / 1e6, (double) seqNanos / best, unassigned,
+                    unassigned == seqUnassigned ? "" : "  (MISMATCH)");
+        }
+    }
+
+    /** Пустые вольеры с той же конфигурацией, что и в шаблоне. */
+    private static List<Enclosure> copyOf(List<Enclosure> template) {
+        List<Enclosure> copy = new ArrayList<>(template.size());
+        for (Enclosure e : template) {
+            copy.add(new Enclosure(e.getName(), e.getType(), e.getCapacity()));
+        }
+        return copy;
+    }
+}
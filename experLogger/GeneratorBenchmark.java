@@ -0,0 +1,86 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import java.util.concurrent.ForkJoinPool;
+import model.Animal;
+
+/**
+ * Скорость воспроизводимой генерации животных: последовательный поток против параллельного.
+ * Животные не накапливаются — считается контрольная сумма полей, которая должна совпасть
+ * у обоих режимов (проверка воспроизводимости на большом объёме).
+ *
+ * Режим columns пишет те же строки прямо в переиспользуемые колонки (без объектов).
+ *
+ * Запуск: java -cp out experLogger.GeneratorBenchmark [животных] [seed] [objects|columns|both]
+ */
+public class GeneratorBenchmark {
+
+    public static void main(String[] args) {
+        long count = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        String mode = args.length > 2 ? args[2] : "both";
+        int cores = ForkJoinPool.commonPool().getParallelism();
+
+        System.out.printf("count=%,d seed=%d parallelism=%d%n", count, seed, cores);
+        long seqSum = 0;
+        if (!"columns".equals(mode)) {
+            seqSum = run("sequential", count, seed, false);
+            long parSum = run("parallel", count, seed, true);
+            System.out.println(seqSum == parSum ? "checksum: identical" : "checksum: MISMATCH");
+        }
+        if (!"objects".equals(mode)) {
+            long colSum = runColumns(count, seed);
+            if (!"columns".equals(mode)) {
+                System.out.println(seqSum == colSum ? "columns checksum: identical" : "columns checksum: MISMATCH");
+            }
+        }
+    }
+
+    private static long runColumns(long count, long seed) {
+        int chunk = (int) Math.min(count, 1 << 22);
+        byte[] kind = new byte[chunk];
+        int[] nameId = new int[chunk];
+        double[] weight = new double[chunk];
+        int[] age = new int[chunk];
+
+        long start = System.nanoTime();
+        long sum = 0;
+        for (long row = 0; row < count; row += chunk) {
+            int n = (int) Math.min(chunk, count - row);
+            if (n == chunk) {
+                RandomDataGenerator.fillColumnsParallel(seed, row, kind, nameId, weight, age);
+            } else {
+                RandomDataGenerator.fillColumns(seed, row, kind, nameId, weight, age, 0, n);
+            }
+            for (int i = 0; i < n; i++) {
+                sum += digest(weight[i], age[i], nameId[i], kind[i]);
+            }
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        double perSec = count * 1000.0 / Math.max(1, ms);
+        System.out.printf("%-10s %,8d ms  %,.0f rows/s  checksum=%x%n", "columns", ms, perSec, sum);
+        return sum;
+    }
+
+    private static long run(String label, long count, long seed, boolean parallel) {
+        long start = System.nanoTime();
+        var stream = RandomDataGenerator.stream(seed, count);
+        if (parallel) {
+            stream = stream.parallel();
+        }
+        long sum = stream.mapToLong(GeneratorBenchmark::digest).sum();
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        double perSec = count * 1000.0 / Math.max(1, ms);
+        System.out.printf("%-10s %,8d ms  %,.0f animals/s  checksum=%x%n", label, ms, perSec, sum);
+        return sum;
+    }
+
+    private static long digest(Animal a) {
+        return digest(a.getWeight(), a.getAge(), a.getNameId(), a.getKind().ordinal());
+    }
+
+    private static long digest(double weight, int age, int nameId, int kind) {
+        long h = Double.doubleToLongBits(weight) * 31 + age;
+        return (h * 31 + nameId) * 31 + kind;
+    }
+}
@@ -0,0 +1,82 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import db.DatabaseFormat;
+import db.DatabaseManager;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import model.Animal;
+import model.AnimalKind;
+import model.NameDictionary;
+
+/**
+ * Загрузка текстовой и двоичной базы через отображение в память ({@link DatabaseManager#loadAnimals(String)})
+ * и параллельная загрузка текста кусками ({@link DatabaseManager#loadAnimalsParallel(String, ForkJoinPool)})
+ * против прежнего построчного чтения BufferedReader + split + parseDouble.
+ * Первый замер каждого режима выполняется в только что запущенной JVM (холодный JIT);
+ * чтобы мерить и холодный дисковый кэш, перед запуском сбросьте page cache ОС.
+ *
+ * Запуск: java -Xmx4g -cp out experLogger.MappedLoadBenchmark [животных, по умолчанию 5000000] [повторов, по умолчанию 3]
+ */
+public class MappedLoadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        File text = File.createTempFile("mapped-bench", ".txt");
+        File binary = File.createTempFile("mapped-bench", ".bin");
+        text.deleteOnExit();
+        binary.deleteOnExit();
+        List<Animal> animals = RandomDataGenerator.stream(42L, rows).collect(Collectors.toList());
+        DatabaseManager.saveAnimals(animals, text.getPath(), DatabaseFormat.TEXT);
+        DatabaseManager.saveAnimals(animals, binary.getPath(), DatabaseFormat.BINARY);
+        animals = null;
+
+        System.out.printf("rows=%,d text=%,d bytes binary=%,d bytes parallelism=%d%n", rows, text.length(),
+                binary.length(), ForkJoinPool.commonPool().getParallelism());
+        for (int r = 1; r <= rounds; r++) {
+            report("reader/text", r, text, () -> readLines(text.getPath()));
+            report("mapped/text", r, text, () -> DatabaseManager.loadAnimals(text.getPath()));
+            report("mapped/bin", r, binary, () -> DatabaseManager.loadAnimals(binary.getPath()));
+            report("parallel/txt", r, text,
+                    () -> DatabaseManager.loadAnimalsParallel(text.getPath(), ForkJoinPool.commonPool()));
+        }
+    }
+
+    private interface Loader {
+        List<Animal> load() throws IOException;
+    }
+
+    private static void report(String label, int round, File file, Loader loader) throws IOException {
+        System.gc();
+        long start = System.nanoTime();
+        int loaded = loader.load().size();
+        long ms = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("#%d %-12s %,7d ms  %,8.1f MB/s  rows %,d%n",
+                round, label, ms, file.length() / 1e3 / ms, loaded);
+    }
+
+    /** Прежний загрузчик: строка за строкой с split и parseDouble. */
+    private static List<Animal> readLines(String file) throws IOException {
+        List<Animal> animals = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                int nameId = NameDictionary.global().intern(parts[1]);
+                AnimalKind kind = AnimalKind.fromTypeName(parts[0]);
+                animals.add(kind.create(Long.parseLong(parts[4]), nameId,
+                        Double.parseDouble(parts[2]), Integer.parseInt(parts[3])));
+            }
+        }
+        return animals;
+    }
+}
@@ -0,0 +1,65 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import db.DatabaseManager;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import model.Animal;
+import model.NameDictionary;
+
+/**
+ * Оценка экономии памяти от словаря имён при загрузке базы.
+ * Сохраняет N строк во временный файл, загружает их через {@link DatabaseManager#loadAnimals(String)}
+ * и измеряет удерживаемую кучу. Затем к загруженным животным добавляется по отдельной строке-имени
+ * на каждую запись — ровно то, что удерживал прежний загрузчик, — и измеряется разница.
+ *
+ * Запуск: java -Xmx3g -cp out experLogger.NameDictionaryBenchmark [строк, по умолчанию 5000000]
+ */
+public class NameDictionaryBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+
+        File file = File.createTempFile("names-bench", ".db");
+        file.deleteOnExit();
+        DatabaseManager.saveAnimals(RandomDataGenerator.generateAnimals(rows, false), file.getPath());
+
+        long base = usedHeap();
+        List<Animal> loaded = DatabaseManager.loadAnimals(file.getPath());
+        long withDictionary = usedHeap() - base;
+
+        // Прежняя модель: у каждой записи своя строка имени
+        String[] perRowNames = new String[loaded.size()];
+        long arrayOnly = usedHeap() - base;
+        for (int i = 0; i < perRowNames.length; i++) {
+            perRowNames[i] = new String(loaded.get(i).getName().toCharArray());
+        }
+        long withPerRowStrings = usedHeap() - base;
+        long perRowStringBytes = withPerRowStrings - arrayOnly;
+
+        System.out.printf("rows loaded:                 %d%n", loaded.size());
+        System.out.printf("distinct names:              %d%n", NameDictionary.global().size());
+        System.out.printf("retained with dictionary:    %8.1f MB (%.1f bytes/row)%n",
+                withDictionary / 1e6, (double) withDictionary / rows);
+        System.out.printf("retained with per-row names: %8.1f MB (%.1f bytes/row)%n",
+                (withDictionary + perRowStringBytes) / 1e6, (double) (withDictionary + perRowStringBytes) / rows);
+        System.out.printf("saved by dictionary:         %8.1f MB (%.1f%%)%n",
+                perRowStringBytes / 1e6, 100.0 * perRowStringBytes / (withDictionary + perRowStringBytes));
+        // держим ссылки живыми до конца измерений
+        if (perRowNames.length != loaded.size()) System.out.println();
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
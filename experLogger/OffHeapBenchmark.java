@@ -0,0 +1,105 @@
+package experLogger;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import controller.RandomDataGenerator;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import model.Animal;
+import model.OffHeapAnimalStore;
+
+/**
+ * Сравнение пауз GC при хранении популяции в куче (List&lt;Animal&gt;, как в App)
+ * и во внекучевом {@link OffHeapAnimalStore}.
+ * После заполнения популяции запускается одинаковая нагрузка с короткоживущими объектами,
+ * и считаются число, суммарная и максимальная длительность пауз GC за время нагрузки.
+ * Режимы лучше запускать в отдельных JVM, чтобы куча одного не влияла на другой.
+ *
+ * Запуск: java -Xmx8g -cp out experLogger.OffHeapBenchmark [heap|offheap|both] [животных] [секунд нагрузки]
+ */
+public class OffHeapBenchmark {
+    private static final AtomicLong PAUSES = new AtomicLong();
+    private static final AtomicLong TOTAL_PAUSE_MS = new AtomicLong();
+    private static final AtomicLong MAX_PAUSE_MS = new AtomicLong();
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "both";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        installListener();
+
+        if (mode.equals("heap") || mode.equals("both")) {
+            List<Animal> animals = new ArrayList<>(count);
+            for (int filled = 0; filled < count; filled += 100_000) {
+                RandomDataGenerator.fillAnimals(animals, Math.min(100_000, count - filled));
+            }
+            report("heap List<Animal>", count, churn(seconds));
+            if (animals.size() != count) System.out.println("size mismatch");
+            animals = null;
+            System.gc();
+        }
+        if (mode.equals("offheap") || mode.equals("both")) {
+            try (OffHeapAnimalStore store = new OffHeapAnimalStore()) {
+                List<Animal> batch = new ArrayList<>(100_000);
+                for (int filled = 0; filled < count; filled += batch.size()) {
+                    batch.clear();
+                    RandomDataGenerator.fillAnimals(batch, Math.min(100_000, count - filled));
+                    for (Animal a : batch) store.add(a);
+                }
+                batch = null;
+                report("off-heap store", store.size(), churn(seconds));
+                System.out.printf("  off-heap bytes: %.1f MB%n", store.offHeapBytes() / 1e6);
+            }
+        }
+    }
+
+    /**
+     * Нагрузка: непрерывно создаёт короткоживущих животных, держа небольшое окно живыми.
+     *
+     * @return число созданных объектов
+     */
+    private static long churn(int seconds) {
+        System.gc();
+        PAUSES.set(0);
+        TOTAL_PAUSE_MS.set(0);
+        MAX_PAUSE_MS.set(0);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Animal[] window = new Animal[50_000];
+        long created = 0;
+        while (System.nanoTime() < deadline) {
+            List<Animal> tmp = RandomDataGenerator.generateAnimals(1_000, false);
+            for (Animal a : tmp) window[(int) (created++ % window.length)] = a;
+        }
+        return created;
+    }
+
+    private static void report(String label, int population, long created) {
+        System.out.printf("%s: population=%d, churned=%d, gc pauses=%d, total=%d ms, max=%d ms%n",
+                label, population, created, PAUSES.get(), TOTAL_PAUSE_MS.get(), MAX_PAUSE_MS.get());
+    }
+
+    private static void installListener() {
+        NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (info.getGcCause().equals("System.gc()")) return;
+            long ms = info.getGcInfo().getDuration();
+            PAUSES.incrementAndGet();
+            TOTAL_PAUSE_MS.addAndGet(ms);
+            MAX_PAUSE_MS.accumulateAndGet(ms, Math::max);
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import enclosure.Enclosure;
+import enclosure.EnclosureType;
+import java.util.List;
+import model.Animal;
+import model.Aquatic;
+import model.ColdBlooded;
+import model.Feathered;
+import model.Hoofed;
+
+/**
+ * Бенчмарк проверки совместимости животного и вольера:
+ * «до» — прежний switch по EnclosureType с instanceof на каждой пробе,
+ * «после» — AND маски типа вольера и бита вида животного.
+ * Обе версии прогоняются по одним и тем же данным полным перебором (как в Animal.move),
+ * но без заселения, чтобы измерялась только проба.
+ *
+ * Запуск: java -cp out experLogger.PlacementBenchmark [животных] [вольеров] [повторы]
+ */
+public class PlacementBenchmark {
+
+    public static void main(String[] args) {
+        int animalCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int enclosureCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Animal[] animals = RandomDataGenerator.generateAnimals(animalCount, false).toArray(new Animal[0]);
+        List<Enclosure> list = RandomDataGenerator.generateEnclosures(enclosureCount, false);
+        Enclosure[] enclosures = list.toArray(new Enclosure[0]);
+        long probes = (long) animalCount * enclosureCount;
+
+        long legacyBest = Long.MAX_VALUE;
+        long maskBest = Long.MAX_VALUE;
+        long legacyHits = 0;
+        long maskHits = 0;
+        for (int r = 0; r < repeats + 2; r++) { // первые два прогона — прогрев
+            long t0 = System.nanoTime();
+            legacyHits = countLegacy(animals, enclosures);
+            long t1 = System.nanoTime();
+            maskHits = countMask(animals, enclosures);
+            long t2 = System.nanoTime();
+            if (r >= 2) {
+                legacyBest = Math.min(legacyBest, t1 - t0);
+                maskBest = Math.min(maskBest, t2 - t1);
+            }
+        }
+
+        System.out.printf("probes per run: %d (animals=%d, enclosures=%d)%n", probes, animalCount, enclosureCount);
+        System.out.printf("before (switch + instanceof): %8.2f ms, %.3f ns/probe, hits=%d%n",
+                legacyBest / 1e6, (double) legacyBest / probes, legacyHits);
+        System.out.printf("after  (kind mask AND):       %8.2f ms, %.3f ns/probe, hits=%d%n",
+                maskBest / 1e6, (double) maskBest / probes, maskHits);
+        System.out.printf("speedup: x%.2f%s%n", (double) legacyBest / maskBest,
+                legacyHits == maskHits ? "" : "  (MISMATCH)");
+    }
+
+    private static long countLegacy(Animal[] animals, Enclosure[] enclosures) {
+        long hits = 0;
+        for (Animal a : animals) {
+            for (Enclosure e : enclosures) {
+                if (legacyCanAccept(e.getType(), a)) hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static long countMask(Animal[] animals, Enclosure[] enclosures) {
+        long hits = 0;
+        for (Animal a : animals) {
+            int mask = a.getKind().mask();
+            for (Enclosure e : enclosures) {
+                if ((e.getType().acceptMask() & mask) != 0) hits++;
+            }
+        }
+        return hits;
+    }
+
+    /** Прежняя реализация Enclosure.canAccept. */
+    private static boolean legacyCanAccept(EnclosureType type, Animal a) {
+        return switch (type) {
+            case AQUARIUM -> a instanceof Aquatic;
+            case NET_COVERED -> a instanceof Feathered;
+            case OPEN -> a instanceof Hoofed;
+            case INFRARED -> a instanceof ColdBlooded;
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import db.AnimalStats;
+import db.DatabaseFormat;
+import db.DatabaseManager;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import model.Animal;
+
+/**
+ * Отчёт по файлу животных (число по видам, средний вес, гистограмма возрастов):
+ * загрузка списка и проход по нему против агрегатов при просмотре файла
+ * ({@link DatabaseManager#aggregate(String, ForkJoinPool)}) в одном потоке и на общем пуле,
+ * для каждого формата файла.
+ *
+ * Запуск: java -Xmx4g -cp out experLogger.ScanAggregationBenchmark [животных, по умолчанию 5000000] [повторов, по умолчанию 3]
+ */
+public class ScanAggregationBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        List<Animal> animals = RandomDataGenerator.stream(42L, rows).collect(Collectors.toList());
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool common = ForkJoinPool.commonPool();
+        System.out.printf("rows=%,d parallelism=%d%n", rows, common.getParallelism());
+
+        for (DatabaseFormat format : DatabaseFormat.values()) {
+            File file = File.createTempFile("aggregate-bench", "." + format.name().toLowerCase());
+            file.deleteOnExit();
+            DatabaseManager.saveAnimals(animals, file.getPath(), format);
+            for (int r = 1; r <= rounds; r++) {
+                System.gc();
+                long start = System.nanoTime();
+                AnimalStats loaded = AnimalStats.of(DatabaseManager.loadAnimals(file.getPath()));
+                long load = System.nanoTime() - start;
+
+                System.gc();
+                start = System.nanoTime();
+                AnimalStats sequential = DatabaseManager.aggregate(file.getPath(), single);
+                long scan = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                AnimalStats parallel = DatabaseManager.aggregate(file.getPath(), common);
+                long pooled = System.nanoTime() - start;
+
+                System.out.printf("#%d %-10s load+iterate %,6d ms  scan 1 thread %,6d ms  scan pool %,6d ms  x%.1f  same=%b%n",
+                        r, format, load / 1_000_000, scan / 1_000_000, pooled / 1_000_000,
+                        (double) load / Math.max(1, pooled),
+                        loaded.countByKind().equals(parallel.countByKind())
+                                && sequential.ageHistogram().equals(parallel.ageHistogram()));
+            }
+        }
+        single.shutdown();
+    }
+}
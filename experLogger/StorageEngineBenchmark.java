@@ -0,0 +1,88 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import db.StorageEngine;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import model.Animal;
+
+/**
+ * Все хранилища ({@link StorageEngine#NAMES}) на одних и тех же наборах данных:
+ * полное сохранение, загрузка новым экземпляром (как при запуске приложения),
+ * обход записей без списка, сохранение после изменения 1000 животных и размер файлов на диске.
+ *
+ * Запуск: java -Xmx8g -cp out experLogger.StorageEngineBenchmark [размеры через запятую, по умолчанию 1000000,10000000] [повторов, по умолчанию 2]
+ */
+public class StorageEngineBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String sizes = args.length > 0 ? args[0] : "1000000,10000000";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        for (String size : sizes.split(",")) {
+            int rows = Integer.parseInt(size.trim());
+            List<Animal> animals = RandomDataGenerator.stream(42L, rows).collect(Collectors.toList());
+            System.out.printf("rows=%,d%n", rows);
+            for (String name : StorageEngine.NAMES) {
+                for (int r = 1; r <= rounds; r++) {
+                    run(name, r, animals);
+                }
+            }
+        }
+    }
+
+    private static void run(String name, int round, List<Animal> animals) throws IOException {
+        Path dir = Files.createTempDirectory("engine-bench-" + name);
+        try {
+            StorageEngine engine = StorageEngine.create(name, dir);
+            long start = System.nanoTime();
+            engine.saveAnimals(animals);
+            long save = System.nanoTime() - start;
+
+            // новый экземпляр: файловое хранилище читает диск, память отдаёт копию списка
+            StorageEngine reader = name.equals(StorageEngine.MEMORY) ? engine : StorageEngine.create(name, dir);
+            System.gc();
+            start = System.nanoTime();
+            List<Animal> loaded = reader.loadAnimals();
+            long load = System.nanoTime() - start;
+
+            double[] weight = {0};
+            start = System.nanoTime();
+            long visited = reader.forEachAnimal((id, kind, nameId, w, age) -> weight[0] += w);
+            long scan = System.nanoTime() - start;
+
+            for (int i = 0; i < 1000 && i < loaded.size(); i++) {
+                int at = i * (loaded.size() / 1000);
+                Animal a = loaded.get(at);
+                loaded.set(at, a.getKind().create(a.getId(), a.getNameId(), a.getWeight() + 1, a.getAge()));
+            }
+            start = System.nanoTime();
+            reader.saveAnimals(loaded);
+            long update = System.nanoTime() - start;
+
+            System.out.printf("#%d %-10s save %,7d ms  load %,7d ms (%,d)  forEach %,6d ms (%,d)  save 1000 changed %,6d ms  disk %,13d bytes%n",
+                    round, name, save / 1_000_000, load / 1_000_000, loaded.size(), scan / 1_000_000, visited,
+                    update / 1_000_000, size(dir));
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            long total = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                total += Files.size(file);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package experLogger;
+
+import controller.CollectionStrategy;
+import controller.RandomDataGenerator;
+import controller.ZooController;
+import enclosure.Enclosure;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import model.Animal;
+
+/**
+ * Бенчмарк стратегий коллекций {@link ZooController}.
+ * Стратегия выбирает только список неразмещённых животных: вольеры при любой стратегии обслуживает
+ * один и тот же {@link enclosure.EnclosureRegistry}. Поэтому для каждой стратегии и размера партии
+ * 10^3..10^N печатаются две группы столбцов:
+ * <ul>
+ *   <li>расселение целиком — животных в секунду и байт на животное; здесь стратегии почти не отличаются;</li>
+ *   <li>список неразмещённых так, как им пользуется приложение: сборка {@link CollectionStrategy#collectUnassigned}
+ *       в порядке партии, size(), один проход итератором (вывод в {@code ZooView.showUnassigned})
+ *       и toArray при повторном расселении ({@link ZooController#distributeAnimals}) — наносекунд
+ *       и байт на неразмещённое животное.</li>
+ * </ul>
+ *
+ * Запуск: java -cp out experLogger.StrategyBenchmark [макс. степень 10, по умолчанию 7] [повторы]
+ */
+public class StrategyBenchmark {
+
+    public static void main(String[] args) {
+        int maxExp = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        System.out.printf("%-15s %10s %14s %14s %12s %16s %16s%n", "strategy", "animals", "animals/sec",
+                "bytes/animal", "unassigned", "list ns/item", "list bytes/item");
+        long sink = 0;
+        for (int exp = 3; exp <= maxExp; exp++) {
+            int size = (int) Math.pow(10, exp);
+            List<Animal> source = RandomDataGenerator.generateAnimals(size, false);
+            List<Enclosure> template = RandomDataGenerator.generateEnclosures(Math.max(1, size / 5), false);
+            Animal[] batch = source.toArray(new Animal[0]);
+            boolean[] placed = new boolean[size];
+
+            for (CollectionStrategy strategy : CollectionStrategy.values()) {
+                long bestNanos = Long.MAX_VALUE;
+                long bestBytes = Long.MAX_VALUE;
+                int unassigned = 0;
+                for (int r = 0; r < repeats; r++) {
+                    List<Enclosure> enclosures = copyOf(template);
+                    long bytes0 = allocatedBytes();
+                    long t0 = System.nanoTime();
+                    ZooController controller = new ZooController(enclosures, strategy);
+                    List<Animal> rest = controller.distributeAnimals(source);
+                    long elapsed = System.nanoTime() - t0;
+                    long bytes = allocatedBytes() - bytes0;
+                    bestNanos = Math.min(bestNanos, elapsed);
+                    bestBytes = Math.min(bestBytes, bytes);
+                    unassigned = rest.size();
+                    if (r == 0) {
+                        markPlaced(batch, placed, controller);
+                    }
+                }
+
+                long bestListNanos = Long.MAX_VALUE;
+                long bestListBytes = Long.MAX_VALUE;
+                for (int r = 0; r < repeats; r++) {
+                    long bytes0 = allocatedBytes();
+                    long t0 = System.nanoTime();
+                    List<Animal> rest = strategy.collectUnassigned(batch, placed, unassigned);
+                    sink += rest.size();
+                    for (Animal a : rest) {
+                        sink += a.getAge();
+                    }
+                    sink += rest.toArray(new Animal[0]).length;
+                    long elapsed = System.nanoTime() - t0;
+                    long bytes = allocatedBytes() - bytes0;
+                    bestListNanos = Math.min(bestListNanos, elapsed);
+                    bestListBytes = Math.min(bestListBytes, bytes);
+                }
+                int items = Math.max(1, unassigned);
+                System.out.printf("%-15s %10d %14.0f %14.1f %12d %16.1f %16.1f%n", strategy, size,
+                        size / (bestNanos / 1e9), (double) bestBytes / size, unassigned,
+                        (double) bestListNanos / items, (double) bestListBytes / items);
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static List<Enclosure> copyOf(List<Enclosure> template) {
+        List<Enclosure> enclosures = new ArrayList<>(template.size());
+        for (Enclosure e : template) {
+            enclosures.add(new Enclosure(e.getName(), e.getType(), e.getCapacity()));
+        }
+        return enclosures;
+    }
+
+    /** Флаги размещения партии после расселения, как их видит {@link CollectionStrategy#collectUnassigned}. */
+    private static void markPlaced(Animal[] batch, boolean[] placed, ZooController controller) {
+        for (int i = 0; i < batch.length; i++) {
+            placed[i] = controller.findEnclosure(batch[i]) != null;
+        }
+    }
+
+    /**
+     * Байты, выделенные текущим потоком (HotSpot), или -1 если метрика недоступна.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
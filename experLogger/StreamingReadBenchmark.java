@@ -0,0 +1,68 @@
+package experLogger;
+
+import controller.RandomDataGenerator;
+import db.DatabaseFormat;
+import db.DatabaseManager;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import model.Animal;
+
+/**
+ * Средний вес животных базы: полная загрузка списка ({@link DatabaseManager#loadAnimals(String)})
+ * против ленивого потока ({@link DatabaseManager#streamAnimals(String)}) и обхода обработчиком
+ * ({@link DatabaseManager#forEachAnimal}). Кроме времени печатается пик занятой кучи за замер.
+ *
+ * Запуск: java -Xmx4g -cp out experLogger.StreamingReadBenchmark [животных, по умолчанию 5000000]
+ */
+public class StreamingReadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+
+        File binary = File.createTempFile("stream-bench", ".bin");
+        binary.deleteOnExit();
+        List<Animal> animals = RandomDataGenerator.stream(42L, rows).collect(Collectors.toList());
+        DatabaseManager.saveAnimals(animals, binary.getPath(), DatabaseFormat.BINARY);
+        animals = null;
+        String file = binary.getPath();
+
+        System.out.printf("rows=%,d binary=%,d bytes%n", rows, binary.length());
+        for (int round = 1; round <= 2; round++) {
+            report("load", round, () -> DatabaseManager.loadAnimals(file).stream()
+                    .mapToDouble(Animal::getWeight).average().orElse(0));
+            report("stream", round, () -> {
+                try (Stream<Animal> stream = DatabaseManager.streamAnimals(file)) {
+                    return stream.mapToDouble(Animal::getWeight).average().orElse(0);
+                }
+            });
+            report("visitor", round, () -> {
+                double[] sum = {0};
+                long count = DatabaseManager.forEachAnimal(file, (id, kind, nameId, weight, age) -> sum[0] += weight);
+                return count == 0 ? 0 : sum[0] / count;
+            });
+        }
+    }
+
+    private interface Query {
+        double run() throws IOException;
+    }
+
+    private static void report(String label, int round, Query query) throws IOException {
+        System.gc();
+        List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).collect(Collectors.toList());
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        double average = query.run();
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        long peak = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("#%d %-8s %,7d ms  peak heap %,6d MB  avg weight %.4f%n",
+                round, label, ms, peak >> 20, average);
+    }
+}
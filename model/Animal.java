@@ -11,22 +11,53 @@ public abstract class Animal {
     protected double weight;
     /** Возраст животного в годах. */
     protected int age;
-    /** Читабельное имя животного. */
-    protected String name;
+    /** id имени животного в {@link NameDictionary#global()}. */
+    protected int nameId;
+    /** Вид животного (тег для проверки совместимости с вольерами). */
+    private final AnimalKind kind;
+    /** Стабильный идентификатор животного (см. {@link AnimalIds}). */
+    private final long id;
 
     /**
      * Конструктор животного.
      */
-    public Animal(String name, double weight, int age) {
-        this.name = name;
+    protected Animal(String name, double weight, int age, AnimalKind kind) {
+        this(NameDictionary.global().intern(name), weight, age, kind);
+    }
+
+    /**
+     * Конструктор животного по id уже известного имени.
+     */
+    protected Animal(int nameId, double weight, int age, AnimalKind kind) {
+        this(AnimalIds.next(), nameId, weight, age, kind);
+    }
+
+    /**
+     * Конструктор животного с уже назначенным id (например, при загрузке из базы).
+     */
+    protected Animal(long id, int nameId, double weight, int age, AnimalKind kind) {
+        AnimalIds.observe(id);
+        this.id = id;
+        this.nameId = nameId;
         this.weight = weight;
         this.age = age;
+        this.kind = kind;
     }
 
+    /**
+     * Получить стабильный идентификатор животного.
+     */
+    public long getId(){ return id; }
+
     /**
      * Получить имя животного.
      */
-    public String getName(){ return name; }
+    public String getName(){ return NameDictionary.global().name(nameId); }
+
+    /**
+     * Получить id имени животного в общем словаре имён.
+     */
+    public int getNameId(){ return nameId; }
 
     /**
      * Получить вес животного.
@@ -39,13 +70,27 @@ public abstract class Animal {
     public int getAge(){ return age; }
 
     /**
-     * Попытаться расселить это животное в подходящий вольер из списка.
+     * Получить вид животного.
      */
-    public abstract boolean move(List<Enclosure> enclosures);
+    public AnimalKind getKind(){ return kind; }
+
+    /**
+     * Попытаться расселить это животное в первый подходящий вольер из списка.
+     * Совместимость проверяется по маске вида, одинаково для всех подклассов.
+     */
+    public final boolean move(List<Enclosure> enclosures) {
+        int mask = kind.mask();
+        for (Enclosure e : enclosures) {
+            if ((e.getType().acceptMask() & mask) != 0 && e.addAnimal(this)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     @Override
     public String toString() {
         return String.format("%s(name=%s, age=%d, weight=%.1f)",
-            this.getClass().getSimpleName(), name, age, weight);
+            kind.getTypeName(), getName(), getAge(), getWeight());
     }
 }
@@ -0,0 +1,40 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор стабильных 64-битных идентификаторов животных.
+ * Новые id выдаются последовательно; при загрузке из базы генератор
+ * сдвигается за максимальный встреченный id, чтобы не выдавать повторы.
+ */
+public final class AnimalIds {
+    private static final AtomicLong NEXT = new AtomicLong(1);
+
+    private AnimalIds() {
+    }
+
+    /**
+     * Следующий свободный id.
+     */
+    public static long next() {
+        return NEXT.getAndIncrement();
+    }
+
+    /**
+     * Зарезервировать непрерывный диапазон из count id.
+     *
+     * @return первый id диапазона
+     */
+    public static long reserve(long count) {
+        return NEXT.getAndAdd(count);
+    }
+
+    /**
+     * Учесть id, пришедший извне (например, из базы): следующие id будут больше него.
+     */
+    public static void observe(long id) {
+        if (id >= NEXT.get()) {
+            NEXT.accumulateAndGet(id + 1, Math::max);
+        }
+    }
+}
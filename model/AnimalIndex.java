@@ -0,0 +1,670 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Вторичные индексы по животным: имя (id словаря -> список слотов), вид (битовая карта слотов)
+ * и отсортированные примитивные массивы веса и возраста отдельно для каждого вида.
+ * Равенство по имени и виду — O(результата), диапазоны веса и возраста — O(log n + результата),
+ * top-K — O(K), вставка и удаление — O(log n) поиска плюс сдвиг одного блока из 512 пар.
+ * Животные неизменяемы, поэтому изменение записи — удаление старой и вставка новой.
+ * Класс не потокобезопасен.
+ */
+public class AnimalIndex {
+    private static final int KINDS = AnimalKind.values().length;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private Animal[] animals;
+    private int highSlot;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private final IdIndex ids;
+    /** id имени -> слоты животных с этим именем. */
+    private int[][] byName = new int[64][];
+    private int[] byNameSize = new int[64];
+    /** Слот -> его позиция в списке своего имени. */
+    private int[] namePosition = new int[16];
+    private final BitSet[] byKind = new BitSet[KINDS];
+    private final int[] kindSize = new int[KINDS];
+    private final SortedColumn[] byWeight = new SortedColumn[KINDS];
+    private final SortedColumn[] byAge = new SortedColumn[KINDS];
+
+    public AnimalIndex() {
+        this(List.of());
+    }
+
+    /**
+     * Строит индексы по коллекции разом: массивы веса и возраста сортируются один раз.
+     */
+    public AnimalIndex(Collection<? extends Animal> source) {
+        animals = new Animal[Math.max(16, source.size())];
+        ids = new IdIndex(source.size());
+        for (int k = 0; k < KINDS; k++) {
+            byKind[k] = new BitSet();
+            byWeight[k] = new SortedColumn();
+            byAge[k] = new SortedColumn();
+        }
+        List<Animal> duplicates = new ArrayList<>();
+        for (Animal animal : source) {
+            if (ids.containsKey(animal.getId())) {
+                duplicates.add(animal);
+                continue;
+            }
+            int slot = highSlot++;
+            animals[slot] = animal;
+            ids.put(animal.getId(), slot);
+            linkName(animal.getNameId(), slot);
+            int k = animal.getKind().ordinal();
+            byKind[k].set(slot);
+            kindSize[k]++;
+            byWeight[k].append(animal.getWeight(), slot);
+            byAge[k].append(animal.getAge(), slot);
+        }
+        for (int k = 0; k < KINDS; k++) {
+            byWeight[k].sort();
+            byAge[k].sort();
+        }
+        // повтор id заменяет прежнее животное, как и add
+        for (Animal animal : duplicates) {
+            add(animal);
+        }
+    }
+
+    /** Число животных в индексе. */
+    public int size() {
+        return ids.size();
+    }
+
+    public boolean contains(long id) {
+        return ids.containsKey(id);
+    }
+
+    /**
+     * Добавляет животное; животное с тем же id заменяется.
+     */
+    public void add(Animal animal) {
+        remove(animal.getId());
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : highSlot++;
+        if (slot >= animals.length) {
+            animals = Arrays.copyOf(animals, animals.length * 2);
+        }
+        animals[slot] = animal;
+        ids.put(animal.getId(), slot);
+        linkName(animal.getNameId(), slot);
+        int k = animal.getKind().ordinal();
+        byKind[k].set(slot);
+        kindSize[k]++;
+        byWeight[k].insert(animal.getWeight(), slot);
+        byAge[k].insert(animal.getAge(), slot);
+    }
+
+    /**
+     * Удаляет животное с данным id.
+     *
+     * @return true, если оно было в индексе
+     */
+    public boolean remove(long id) {
+        int slot = ids.remove(id);
+        if (slot == IdIndex.NO_SLOT) {
+            return false;
+        }
+        Animal animal = animals[slot];
+        animals[slot] = null;
+        unlinkName(animal.getNameId(), slot);
+        int k = animal.getKind().ordinal();
+        byKind[k].clear(slot);
+        kindSize[k]--;
+        byWeight[k].delete(animal.getWeight(), slot);
+        byAge[k].delete(animal.getAge(), slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    /* ------------------ запросы ------------------ */
+
+    /** Животные с именем name без учёта регистра. */
+    public List<Animal> byName(String name) {
+        return byName(NameDictionary.global().idsIgnoreCase(name));
+    }
+
+    private List<Animal> byName(BitSet nameIds) {
+        List<Animal> result = new ArrayList<>();
+        for (int n = nameIds.nextSetBit(0); n >= 0 && n < byName.length; n = nameIds.nextSetBit(n + 1)) {
+            int[] slots = slotsOfName(n);
+            for (int i = 0; i < byNameSize[n]; i++) {
+                result.add(animals[slots[i]]);
+            }
+        }
+        return result;
+    }
+
+    /** Животные вида kind в порядке слотов. */
+    public List<Animal> byKind(AnimalKind kind) {
+        BitSet slots = byKind[kind.ordinal()];
+        List<Animal> result = new ArrayList<>(kindSize[kind.ordinal()]);
+        for (int s = slots.nextSetBit(0); s >= 0; s = slots.nextSetBit(s + 1)) {
+            result.add(animals[s]);
+        }
+        return result;
+    }
+
+    /**
+     * Животные с весом в [min, max] по возрастанию веса; kind == null — все виды.
+     * Строгую границу задают через {@link Math#nextUp}: вес &gt; 300 — {@code byWeight(kind, Math.nextUp(300.0), Double.MAX_VALUE)}.
+     */
+    public List<Animal> byWeight(AnimalKind kind, double min, double max) {
+        return range(byWeight, kind, min, max);
+    }
+
+    /** Животные с возрастом в [min, max] по возрастанию возраста; kind == null — все виды. */
+    public List<Animal> byAge(AnimalKind kind, int min, int max) {
+        return range(byAge, kind, min, max);
+    }
+
+    /** k самых тяжёлых животных по убыванию веса; kind == null — среди всех видов. */
+    public List<Animal> heaviest(AnimalKind kind, int k) {
+        return top(byWeight, kind, k);
+    }
+
+    /** k самых старых животных по убыванию возраста; kind == null — среди всех видов. */
+    public List<Animal> oldest(AnimalKind kind, int k) {
+        return top(byAge, kind, k);
+    }
+
+    /**
+     * Поиск по нескольким условиям; null у name и kind — без условия.
+     * Перебор начинается с самого узкого индекса (число кандидатов считается по границам диапазонов, без перебора записей),
+     * остальные условия проверяются на кандидатах.
+     */
+    public List<Animal> find(String name, AnimalKind kind, double minWeight, double maxWeight, int minAge, int maxAge) {
+        Query query = new Query(name, kind, minWeight, maxWeight, minAge, maxAge);
+        List<Animal> result = new ArrayList<>();
+        for (Animal animal : candidates(query)) {
+            if (query.matches(animal)) {
+                result.add(animal);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * k самых тяжёлых животных среди найденных {@link #find} с теми же условиями, по убыванию веса.
+     * Если самый узкий индекс — вес, диапазон веса обходится от тяжёлых к лёгким до k совпадений;
+     * иначе кандидаты проверяются с кучей из k самых тяжёлых. Полный результат поиска не собирается и не сортируется.
+     */
+    public List<Animal> findHeaviest(String name, AnimalKind kind, double minWeight, double maxWeight,
+                                     int minAge, int maxAge, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        Query query = new Query(name, kind, minWeight, maxWeight, minAge, maxAge);
+        if (query.source == Query.BY_WEIGHT) {
+            return descending(byWeight, kind, minWeight, maxWeight, k, query);
+        }
+        PriorityQueue<Animal> lightestFirst = new PriorityQueue<>(Math.min(k, 1024),
+                Comparator.comparingDouble(Animal::getWeight));
+        for (Animal animal : candidates(query)) {
+            if (!query.matches(animal)) {
+                continue;
+            }
+            if (lightestFirst.size() < k) {
+                lightestFirst.add(animal);
+            } else if (animal.getWeight() > lightestFirst.peek().getWeight()) {
+                lightestFirst.poll();
+                lightestFirst.add(animal);
+            }
+        }
+        List<Animal> result = new ArrayList<>(lightestFirst);
+        result.sort(Comparator.comparingDouble(Animal::getWeight).reversed());
+        return result;
+    }
+
+    private List<Animal> candidates(Query query) {
+        switch (query.source) {
+            case Query.BY_NAME:
+                return query.nameIds == null ? List.of() : byName(query.nameIds);
+            case Query.BY_WEIGHT:
+                return byWeight(query.kind, query.minWeight, query.maxWeight);
+            default:
+                return byAge(query.kind, query.minAge, query.maxAge);
+        }
+    }
+
+    /** Условия поиска и выбранный для перебора индекс. */
+    private final class Query {
+        static final int BY_NAME = 0;
+        static final int BY_WEIGHT = 1;
+        static final int BY_AGE = 2;
+
+        final BitSet nameIds;
+        final AnimalKind kind;
+        final double minWeight;
+        final double maxWeight;
+        final int minAge;
+        final int maxAge;
+        final int source;
+
+        Query(String name, AnimalKind kind, double minWeight, double maxWeight, int minAge, int maxAge) {
+            this.nameIds = name == null ? null : NameDictionary.global().idsIgnoreCase(name);
+            this.kind = kind;
+            this.minWeight = minWeight;
+            this.maxWeight = maxWeight;
+            this.minAge = minAge;
+            this.maxAge = maxAge;
+            long byNameCount = Long.MAX_VALUE;
+            if (nameIds != null) {
+                byNameCount = 0;
+                for (int n = nameIds.nextSetBit(0); n >= 0 && n < byName.length; n = nameIds.nextSetBit(n + 1)) {
+                    byNameCount += byNameSize[n];
+                }
+            }
+            long weightCount = 0;
+            long ageCount = 0;
+            for (int k = 0; k < KINDS; k++) {
+                if (kind == null || kind.ordinal() == k) {
+                    weightCount += byWeight[k].count(minWeight, maxWeight);
+                    ageCount += byAge[k].count(minAge, maxAge);
+                }
+            }
+            if (byNameCount <= weightCount && byNameCount <= ageCount) {
+                source = BY_NAME;
+            } else if (weightCount <= ageCount) {
+                source = BY_WEIGHT;
+            } else {
+                source = BY_AGE;
+            }
+        }
+
+        boolean matches(Animal animal) {
+            return (kind == null || animal.getKind() == kind)
+                    && (nameIds == null || nameIds.get(animal.getNameId()))
+                    && animal.getWeight() >= minWeight && animal.getWeight() <= maxWeight
+                    && animal.getAge() >= minAge && animal.getAge() <= maxAge;
+        }
+    }
+
+    private List<Animal> range(SortedColumn[] columns, AnimalKind kind, double min, double max) {
+        List<Animal> result = new ArrayList<>();
+        // слияние отсортированных диапазонов выбранных видов
+        long[] pos = new long[KINDS];
+        long[] end = new long[KINDS];
+        for (int k = 0; k < KINDS; k++) {
+            if (kind == null || kind.ordinal() == k) {
+                pos[k] = columns[k].lowerBound(min);
+                end[k] = columns[k].upperBound(max);
+            }
+        }
+        while (true) {
+            int best = -1;
+            for (int k = 0; k < KINDS; k++) {
+                if (pos[k] < end[k] && (best < 0 || columns[k].keyAt(pos[k]) < columns[best].keyAt(pos[best]))) {
+                    best = k;
+                }
+            }
+            if (best < 0) {
+                return result;
+            }
+            result.add(animals[columns[best].slotAt(pos[best])]);
+            pos[best] = columns[best].next(pos[best]);
+        }
+    }
+
+    private List<Animal> top(SortedColumn[] columns, AnimalKind kind, int k) {
+        return descending(columns, kind, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, k, null);
+    }
+
+    /**
+     * До k животных с ключом в [min, max] по убыванию ключа, слиянием столбцов выбранных видов;
+     * query != null — только подходящие под его условия.
+     */
+    private List<Animal> descending(SortedColumn[] columns, AnimalKind kind, double min, double max, int k, Query query) {
+        List<Animal> result = new ArrayList<>(Math.max(0, Math.min(k, size())));
+        long[] pos = new long[KINDS];
+        for (int c = 0; c < KINDS; c++) {
+            pos[c] = kind == null || kind.ordinal() == c ? columns[c].previous(columns[c].upperBound(max)) : -1;
+        }
+        while (result.size() < k) {
+            int best = -1;
+            for (int c = 0; c < KINDS; c++) {
+                if (pos[c] >= 0 && (best < 0 || columns[c].keyAt(pos[c]) > columns[best].keyAt(pos[best]))) {
+                    best = c;
+                }
+            }
+            if (best < 0 || columns[best].keyAt(pos[best]) < min) {
+                break;
+            }
+            Animal animal = animals[columns[best].slotAt(pos[best])];
+            if (query == null || query.matches(animal)) {
+                result.add(animal);
+            }
+            pos[best] = columns[best].previous(pos[best]);
+        }
+        return result;
+    }
+
+    /* ------------------ имя ------------------ */
+
+    private int[] slotsOfName(int nameId) {
+        int[] slots = byName[nameId];
+        return slots == null ? NO_SLOTS : slots;
+    }
+
+    private void linkName(int nameId, int slot) {
+        if (nameId >= byName.length) {
+            int length = Math.max(nameId + 1, byName.length * 2);
+            byName = Arrays.copyOf(byName, length);
+            byNameSize = Arrays.copyOf(byNameSize, length);
+        }
+        if (slot >= namePosition.length) {
+            namePosition = Arrays.copyOf(namePosition, Math.max(slot + 1, namePosition.length * 2));
+        }
+        int[] slots = byName[nameId];
+        int n = byNameSize[nameId];
+        if (slots == null) {
+            slots = byName[nameId] = new int[2];
+        } else if (n == slots.length) {
+            slots = byName[nameId] = Arrays.copyOf(slots, n * 2);
+        }
+        slots[n] = slot;
+        namePosition[slot] = n;
+        byNameSize[nameId] = n + 1;
+    }
+
+    /** Удаление из списка имени за O(1): на место слота переносится последний. */
+    private void unlinkName(int nameId, int slot) {
+        int[] slots = byName[nameId];
+        int last = --byNameSize[nameId];
+        int at = namePosition[slot];
+        slots[at] = slots[last];
+        namePosition[slots[at]] = at;
+    }
+
+    /**
+     * Пары (ключ, слот), отсортированные по ключу, при равных ключах — по слоту,
+     * поэтому позиция конкретной пары находится двоичным поиском.
+     * Пары хранятся блоками до {@link #BLOCK}: вставка и удаление сдвигают только свой блок,
+     * полный блок делится пополам, пустой удаляется.
+     * Позиция — {@code (блок << 32) | номер в блоке}; конец — {@code blocks << 32}.
+     */
+    private static final class SortedColumn {
+        private static final int BLOCK = 512;
+
+        private double[][] keys = new double[1][BLOCK];
+        private int[][] slots = new int[1][BLOCK];
+        private int[] sizes = new int[1];
+        private int blocks = 1;
+        /** Пары массовой загрузки до {@link #sort()}. */
+        private double[] pendingKeys = new double[16];
+        private int[] pendingSlots = new int[16];
+        private int pending;
+
+        void append(double key, int slot) {
+            if (pending == pendingKeys.length) {
+                pendingKeys = Arrays.copyOf(pendingKeys, pending * 2);
+                pendingSlots = Arrays.copyOf(pendingSlots, pending * 2);
+            }
+            pendingKeys[pending] = key;
+            pendingSlots[pending++] = slot;
+        }
+
+        void insert(double key, int slot) {
+            int b = blockOf(key, slot);
+            if (sizes[b] == BLOCK) {
+                split(b);
+                if (before(keys[b + 1][0], slots[b + 1][0], key, slot)) {
+                    b++;
+                }
+            }
+            int n = sizes[b];
+            int at = position(b, key, slot);
+            System.arraycopy(keys[b], at, keys[b], at + 1, n - at);
+            System.arraycopy(slots[b], at, slots[b], at + 1, n - at);
+            keys[b][at] = key;
+            slots[b][at] = slot;
+            sizes[b] = n + 1;
+        }
+
+        void delete(double key, int slot) {
+            int b = blockOf(key, slot);
+            int n = sizes[b];
+            int at = position(b, key, slot);
+            if (at == n || keys[b][at] != key || slots[b][at] != slot) {
+                return;
+            }
+            System.arraycopy(keys[b], at + 1, keys[b], at, n - at - 1);
+            System.arraycopy(slots[b], at + 1, slots[b], at, n - at - 1);
+            sizes[b] = n - 1;
+            if (n == 1 && blocks > 1) {
+                removeBlock(b);
+            }
+        }
+
+        /** Число пар с ключом в [min, max]. */
+        int count(double min, double max) {
+            long from = lowerBound(min);
+            long to = upperBound(max);
+            if (from >= to) {
+                return 0;
+            }
+            int count = (int) to - (int) from;
+            for (int b = (int) (from >>> 32); b < (int) (to >>> 32); b++) {
+                count += sizes[b];
+            }
+            return count;
+        }
+
+        /** Позиция первой пары с ключом &gt;= key. */
+        long lowerBound(double key) {
+            int lo = 0;
+            int hi = blocks;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sizes[mid] == 0 || keys[mid][sizes[mid] - 1] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo == blocks) {
+                return (long) blocks << 32;
+            }
+            double[] k = keys[lo];
+            int l = 0;
+            int h = sizes[lo];
+            while (l < h) {
+                int mid = (l + h) >>> 1;
+                if (k[mid] < key) {
+                    l = mid + 1;
+                } else {
+                    h = mid;
+                }
+            }
+            return ((long) lo << 32) | l;
+        }
+
+        /** Позиция первой пары с ключом &gt; key. */
+        long upperBound(double key) {
+            int lo = 0;
+            int hi = blocks;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sizes[mid] == 0 || keys[mid][sizes[mid] - 1] <= key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo == blocks) {
+                return (long) blocks << 32;
+            }
+            double[] k = keys[lo];
+            int l = 0;
+            int h = sizes[lo];
+            while (l < h) {
+                int mid = (l + h) >>> 1;
+                if (k[mid] <= key) {
+                    l = mid + 1;
+                } else {
+                    h = mid;
+                }
+            }
+            return ((long) lo << 32) | l;
+        }
+
+        double keyAt(long pos) {
+            return keys[(int) (pos >>> 32)][(int) pos];
+        }
+
+        int slotAt(long pos) {
+            return slots[(int) (pos >>> 32)][(int) pos];
+        }
+
+        long next(long pos) {
+            int b = (int) (pos >>> 32);
+            return (int) pos + 1 < sizes[b] ? pos + 1 : (long) (b + 1) << 32;
+        }
+
+        /** Предыдущая позиция или -1. */
+        long previous(long pos) {
+            if ((int) pos > 0) {
+                return pos - 1;
+            }
+            int b = (int) (pos >>> 32) - 1;
+            return b < 0 || sizes[b] == 0 ? -1 : ((long) b << 32) | (sizes[b] - 1);
+        }
+
+        /** Позиция наибольшей пары или -1. */
+        long last() {
+            int b = blocks - 1;
+            return sizes[b] == 0 ? -1 : ((long) b << 32) | (sizes[b] - 1);
+        }
+
+        /** Последний блок, первая пара которого не больше (key, slot). */
+        private int blockOf(double key, int slot) {
+            int lo = 0;
+            int hi = blocks - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (before(key, slot, keys[mid][0], slots[mid][0])) {
+                    hi = mid - 1;
+                } else {
+                    lo = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** Первая позиция блока, где пара не меньше (key, slot). */
+        private int position(int b, double key, int slot) {
+            double[] k = keys[b];
+            int[] s = slots[b];
+            int lo = 0;
+            int hi = sizes[b];
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (before(k[mid], s[mid], key, slot)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static boolean before(double key, int slot, double otherKey, int otherSlot) {
+            return key < otherKey || (key == otherKey && slot < otherSlot);
+        }
+
+        private void split(int b) {
+            ensureBlocks(blocks + 1);
+            System.arraycopy(keys, b + 1, keys, b + 2, blocks - b - 1);
+            System.arraycopy(slots, b + 1, slots, b + 2, blocks - b - 1);
+            System.arraycopy(sizes, b + 1, sizes, b + 2, blocks - b - 1);
+            int half = BLOCK / 2;
+            keys[b + 1] = new double[BLOCK];
+            slots[b + 1] = new int[BLOCK];
+            System.arraycopy(keys[b], half, keys[b + 1], 0, BLOCK - half);
+            System.arraycopy(slots[b], half, slots[b + 1], 0, BLOCK - half);
+            sizes[b] = half;
+            sizes[b + 1] = BLOCK - half;
+            blocks++;
+        }
+
+        private void removeBlock(int b) {
+            System.arraycopy(keys, b + 1, keys, b, blocks - b - 1);
+            System.arraycopy(slots, b + 1, slots, b, blocks - b - 1);
+            System.arraycopy(sizes, b + 1, sizes, b, blocks - b - 1);
+            blocks--;
+        }
+
+        private void ensureBlocks(int count) {
+            if (count > keys.length) {
+                int length = Math.max(count, keys.length * 2);
+                keys = Arrays.copyOf(keys, length);
+                slots = Arrays.copyOf(slots, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+        }
+
+        /**
+         * Сортирует пары массовой загрузки слиянием снизу вверх и раскладывает по блокам,
+         * заполненным на три четверти, чтобы последующие вставки не делили их сразу.
+         */
+        void sort() {
+            double[] k1 = pendingKeys;
+            int[] s1 = pendingSlots;
+            double[] k2 = new double[pending];
+            int[] s2 = new int[pending];
+            for (int width = 1; width < pending; width *= 2) {
+                for (int lo = 0; lo < pending; lo += 2 * width) {
+                    int mid = Math.min(lo + width, pending);
+                    int hi = Math.min(lo + 2 * width, pending);
+                    int i = lo;
+                    int j = mid;
+                    for (int out = lo; out < hi; out++) {
+                        if (j >= hi || (i < mid && !before(k1[j], s1[j], k1[i], s1[i]))) {
+                            k2[out] = k1[i];
+                            s2[out] = s1[i++];
+                        } else {
+                            k2[out] = k1[j];
+                            s2[out] = s1[j++];
+                        }
+                    }
+                }
+                double[] tk = k1;
+                k1 = k2;
+                k2 = tk;
+                int[] ts = s1;
+                s1 = s2;
+                s2 = ts;
+            }
+            int fill = BLOCK * 3 / 4;
+            int count = Math.max(1, (pending + fill - 1) / fill);
+            keys = new double[count][];
+            slots = new int[count][];
+            sizes = new int[count];
+            for (int b = 0; b < count; b++) {
+                int from = b * fill;
+                int n = Math.max(0, Math.min(fill, pending - from));
+                keys[b] = new double[BLOCK];
+                slots[b] = new int[BLOCK];
+                System.arraycopy(k1, from, keys[b], 0, n);
+                System.arraycopy(s1, from, slots[b], 0, n);
+                sizes[b] = n;
+            }
+            blocks = count;
+            pendingKeys = null;
+            pendingSlots = null;
+            pending = 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package model;
+
+/**
+ * Вид животного — компактный тег, который хранится в каждом {@link Animal}.
+ * Каждому виду соответствует один бит маски, что позволяет проверять
+ * совместимость с вольером одной операцией AND.
+ */
+public enum AnimalKind {
+    /** Водоплавающие. */
+    AQUATIC("Aquatic"),
+    /** Пернатые. */
+    FEATHERED("Feathered"),
+    /** Копытные. */
+    HOOFED("Hoofed"),
+    /** Хладнокровные. */
+    COLD_BLOODED("ColdBlooded");
+
+    private static final AnimalKind[] VALUES = values();
+
+    /** Имя класса модели, используемое в файлах и таблицах. */
+    private final String typeName;
+    /** Бит вида в маске совместимости. */
+    private final int mask;
+
+    AnimalKind(String typeName) {
+        this.typeName = typeName;
+        this.mask = 1 << ordinal();
+    }
+
+    /**
+     * Имя вида в формате имени класса модели (Aquatic, Feathered, ...).
+     */
+    public String getTypeName() { return typeName; }
+
+    /**
+     * Бит вида для масок совместимости.
+     */
+    public int mask() { return mask; }
+
+    /**
+     * Вид по порядковому номеру (например, из байтового тега).
+     */
+    public static AnimalKind ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Вид по имени класса модели.
+     *
+     * @throws IllegalArgumentException для неизвестного имени
+     */
+    public static AnimalKind fromTypeName(String typeName) {
+        for (AnimalKind k : VALUES) {
+            if (k.typeName.equals(typeName)) return k;
+        }
+        throw new IllegalArgumentException("Unknown animal type: " + typeName);
+    }
+
+    /**
+     * Создать животное этого вида.
+     */
+    public Animal create(String name, double weight, int age) {
+        return switch (this) {
+            case AQUATIC -> new Aquatic(name, weight, age);
+            case FEATHERED -> new Feathered(name, weight, age);
+            case HOOFED -> new Hoofed(name, weight, age);
+            case COLD_BLOODED -> new ColdBlooded(name, weight, age);
+        };
+    }
+
+    /**
+     * Создать животное этого вида по id имени из {@link NameDictionary}.
+     */
+    public Animal create(int nameId, double weight, int age) {
+        return switch (this) {
+            case AQUATIC -> new Aquatic(nameId, weight, age);
+            case FEATHERED -> new Feathered(nameId, weight, age);
+            case HOOFED -> new Hoofed(nameId, weight, age);
+            case COLD_BLOODED -> new ColdBlooded(nameId, weight, age);
+        };
+    }
+
+    /**
+     * Создать животное этого вида с уже назначенным id.
+     */
+    public Animal create(long id, int nameId, double weight, int age) {
+        return switch (this) {
+            case AQUATIC -> new Aquatic(id, nameId, weight, age);
+            case FEATHERED -> new Feathered(id, nameId, weight, age);
+            case HOOFED -> new Hoofed(id, nameId, weight, age);
+            case COLD_BLOODED -> new ColdBlooded(id, nameId, weight, age);
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package model;
+
+/**
+ * Общий интерфейс построчных хранилищ животных (колоночного в куче и внекучевого).
+ * Строки адресуются номером, поля читаются как примитивы.
+ */
+public interface AnimalStorage {
+
+    /**
+     * Обработчик строки при массовом обходе. Получает поля строки как примитивы.
+     */
+    @FunctionalInterface
+    interface RowVisitor {
+        void visit(int row, byte kind, int nameId, double weight, int age);
+    }
+
+    /**
+     * Добавить животное по id имени из {@link NameDictionary}.
+     *
+     * @return номер строки
+     */
+    int add(AnimalKind kind, int nameId, double weight, int age);
+
+    /**
+     * Добавить животное, скопировав его поля.
+     *
+     * @return номер строки
+     */
+    default int add(Animal a) {
+        return add(a.getKind(), a.getNameId(), a.getWeight(), a.getAge());
+    }
+
+    /**
+     * Количество строк.
+     */
+    int size();
+
+    double weight(int row);
+
+    int age(int row);
+
+    int nameId(int row);
+
+    AnimalKind kind(int row);
+
+    /**
+     * Представление строки в виде {@link Animal}. Поля не копируются,
+     * а читаются из хранилища; каждый вызов создаёт новое лёгкое представление.
+     */
+    default Animal get(int row) {
+        return new StoredAnimal(this, row, kind(row));
+    }
+
+    /**
+     * Обойти все строки, передавая поля как примитивы.
+     */
+    void scan(RowVisitor visitor);
+}
@@ -0,0 +1,181 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Колоночное хранилище животных (struct-of-arrays).
+ * Поля животных лежат в параллельных примитивных массивах, разбитых на чанки
+ * фиксированного размера: рост хранилища добавляет новый чанк и не копирует старые данные.
+ * Для совместимости с остальным кодом строку можно получить как {@link Animal}-представление,
+ * а массовые обходы и агрегаты работают напрямую по массивам, не создавая объектов.
+ * Класс не потокобезопасен.
+ */
+public class AnimalStore implements AnimalStorage {
+    /** log2 размера чанка. */
+    private static final int CHUNK_BITS = 16;
+    /** Число строк в чанке. */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final AnimalKind[] KINDS = AnimalKind.values();
+
+    private double[][] weight = new double[0][];
+    private int[][] age = new int[0][];
+    private byte[][] kind = new byte[0][];
+    private int[][] nameId = new int[0][];
+    private int size;
+
+    /** Словарь имён, в котором хранятся id колонки nameId. */
+    private final NameDictionary names = NameDictionary.global();
+
+    /**
+     * Добавить животное.
+     *
+     * @return номер строки
+     */
+    public int add(AnimalKind k, String name, double w, int a) {
+        return add(k, names.intern(name), w, a);
+    }
+
+    @Override
+    public int add(AnimalKind k, int nameIdValue, double w, int a) {
+        int row = size;
+        int chunk = row >>> CHUNK_BITS;
+        if (chunk == weight.length) grow();
+        int i = row & CHUNK_MASK;
+        weight[chunk][i] = w;
+        age[chunk][i] = a;
+        kind[chunk][i] = (byte) k.ordinal();
+        nameId[chunk][i] = nameIdValue;
+        size++;
+        return row;
+    }
+
+    /**
+     * Добавить всех животных коллекции.
+     */
+    public void addAll(Collection<? extends Animal> animals) {
+        for (Animal a : animals) add(a);
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public double weight(int row) { checkRow(row); return weight[row >>> CHUNK_BITS][row & CHUNK_MASK]; }
+
+    @Override
+    public int age(int row) { checkRow(row); return age[row >>> CHUNK_BITS][row & CHUNK_MASK]; }
+
+    @Override
+    public AnimalKind kind(int row) { checkRow(row); return KINDS[kind[row >>> CHUNK_BITS][row & CHUNK_MASK]]; }
+
+    @Override
+    public int nameId(int row) { checkRow(row); return nameId[row >>> CHUNK_BITS][row & CHUNK_MASK]; }
+
+    public String name(int row) { return names.name(nameId(row)); }
+
+    @Override
+    public void scan(RowVisitor visitor) {
+        for (int chunk = 0, base = 0; base < size; chunk++, base += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, size - base);
+            double[] w = weight[chunk];
+            int[] a = age[chunk];
+            byte[] k = kind[chunk];
+            int[] id = nameId[chunk];
+            for (int i = 0; i < n; i++) {
+                visitor.visit(base + i, k[i], id[i], w[i], a[i]);
+            }
+        }
+    }
+
+    /**
+     * Количество животных каждого вида (индекс — ordinal {@link AnimalKind}).
+     */
+    public long[] countByKind() {
+        long[] counts = new long[KINDS.length];
+        for (int chunk = 0, base = 0; base < size; chunk++, base += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, size - base);
+            byte[] k = kind[chunk];
+            for (int i = 0; i < n; i++) counts[k[i]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Суммарный вес животных вида (null — всех видов).
+     */
+    public double sumWeight(AnimalKind filter) {
+        double sum = 0;
+        int want = filter == null ? -1 : filter.ordinal();
+        for (int chunk = 0, base = 0; base < size; chunk++, base += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, size - base);
+            double[] w = weight[chunk];
+            byte[] k = kind[chunk];
+            for (int i = 0; i < n; i++) {
+                if (want < 0 || k[i] == want) sum += w[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Средний вес животных вида (null — всех видов); 0 если таких нет.
+     */
+    public double averageWeight(AnimalKind filter) {
+        long count = filter == null ? size : countByKind()[filter.ordinal()];
+        return count == 0 ? 0.0 : sumWeight(filter) / count;
+    }
+
+    /**
+     * Максимальный возраст животных вида (null — всех видов); -1 если таких нет.
+     */
+    public int maxAge(AnimalKind filter) {
+        int max = -1;
+        int want = filter == null ? -1 : filter.ordinal();
+        for (int chunk = 0, base = 0; base < size; chunk++, base += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, size - base);
+            int[] a = age[chunk];
+            byte[] k = kind[chunk];
+            for (int i = 0; i < n; i++) {
+                if ((want < 0 || k[i] == want) && a[i] > max) max = a[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Количество животных вида (null — всех видов) с весом строго больше minWeight.
+     */
+    public long countHeavierThan(AnimalKind filter, double minWeight) {
+        long count = 0;
+        int want = filter == null ? -1 : filter.ordinal();
+        for (int chunk = 0, base = 0; base < size; chunk++, base += CHUNK_SIZE) {
+            int n = Math.min(CHUNK_SIZE, size - base);
+            double[] w = weight[chunk];
+            byte[] k = kind[chunk];
+            for (int i = 0; i < n; i++) {
+                if ((want < 0 || k[i] == want) && w[i] > minWeight) count++;
+            }
+        }
+        return count;
+    }
+
+    private void grow() {
+        int chunks = weight.length + 1;
+        weight = Arrays.copyOf(weight, chunks);
+        age = Arrays.copyOf(age, chunks);
+        kind = Arrays.copyOf(kind, chunks);
+        nameId = Arrays.copyOf(nameId, chunks);
+        weight[chunks - 1] = new double[CHUNK_SIZE];
+        age[chunks - 1] = new int[CHUNK_SIZE];
+        kind[chunks - 1] = new byte[CHUNK_SIZE];
+        nameId[chunks - 1] = new int[CHUNK_SIZE];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package model;
 
-import enclosure.Enclosure;
-import java.util.List;
-
 /**
  * Водоплавающее животное. Для расселения ищет вольер, подходящий для водоплавающих.
  */
@@ -15,22 +12,20 @@ public class Aquatic extends Animal {
      * @param age возраст
      */
     public Aquatic(String name, double weight, int age) {
-        super(name, weight, age);
+        super(name, weight, age, AnimalKind.AQUATIC);
     }
 
     /**
-     * Реализация расселения: перебирает вольеры и пытается разместиться в первом подходящем.
-     *
-     * @param enclosures список доступных вольеров
-     * @return true если размещено, иначе false
+     * Конструктор по id имени из {@link NameDictionary}.
+     */
+    public Aquatic(int nameId, double weight, int age) {
+        super(nameId, weight, age, AnimalKind.AQUATIC);
+    }
+
+    /**
+     * Конструктор с уже назначенным id (загрузка из базы).
      */
-    @Override
-    public boolean move(List<Enclosure> enclosures) {
-        for (Enclosure e : enclosures) {
-            if (e.canAccept(this) && e.addAnimal(this)) {
-                return true;
-            }
-        }
-        return false;
+    public Aquatic(long id, int nameId, double weight, int age) {
+        super(id, nameId, weight, age, AnimalKind.AQUATIC);
     }
 }
@@ -1,29 +1,24 @@
 package model;
 
-import enclosure.Enclosure;
-import java.util.List;
-
 /**
  * Хладнокровное животное (рептилии, амфибии).
  */
 public class ColdBlooded extends Animal {
     public ColdBlooded(String name, double weight, int age) {
-        super(name, weight, age);
+        super(name, weight, age, AnimalKind.COLD_BLOODED);
+    }
+
+    /**
+     * Конструктор по id имени из {@link NameDictionary}.
+     */
+    public ColdBlooded(int nameId, double weight, int age) {
+        super(nameId, weight, age, AnimalKind.COLD_BLOODED);
     }
 
     /**
-     * Ищет вольер с инфракрасным/специализированным освещением.
-     *
-     * @param enclosures список вольеров
-     * @return true если размещено
+     * Конструктор с уже назначенным id (загрузка из базы).
      */
-    @Override
-    public boolean move(List<Enclosure> enclosures) {
-        for (Enclosure e : enclosures) {
-            if (e.canAccept(this) && e.addAnimal(this)) {
-                return true;
-            }
-        }
-        return false;
+    public ColdBlooded(long id, int nameId, double weight, int age) {
+        super(id, nameId, weight, age, AnimalKind.COLD_BLOODED);
     }
 }
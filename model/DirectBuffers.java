@@ -0,0 +1,51 @@
+package model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Явное освобождение прямых и отображённых (mapped) буферов.
+ */
+public final class DirectBuffers {
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * Немедленно освобождает память прямого буфера или снимает отображение файла
+     * через sun.misc.Unsafe.invokeCleaner (модуль jdk.unsupported).
+     * Если механизм недоступен, память вернётся при сборке буфера.
+     * После вызова к буферу обращаться нельзя.
+     */
+    public static void release(ByteBuffer buf) {
+        if (Cleaner.INVOKE == null || buf == null || !buf.isDirect()) return;
+        try {
+            Cleaner.INVOKE.invoke(Cleaner.UNSAFE, buf);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // буфер будет освобождён сборщиком мусора
+        }
+    }
+
+    /** Ленивая загрузка доступа к invokeCleaner. */
+    private static final class Cleaner {
+        static final Object UNSAFE;
+        static final Method INVOKE;
+
+        static {
+            Object unsafe = null;
+            Method invoke = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafe = theUnsafe.get(null);
+                invoke = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // недоступно в этой среде выполнения
+            }
+            UNSAFE = unsafe;
+            INVOKE = invoke;
+        }
+    }
+}
@@ -1,29 +1,24 @@
 package model;
 
-import enclosure.Enclosure;
-import java.util.List;
-
 /**
  * Пернатое животное (птица).
  */
 public class Feathered extends Animal {
     public Feathered(String name, double weight, int age) {
-        super(name, weight, age);
+        super(name, weight, age, AnimalKind.FEATHERED);
+    }
+
+    /**
+     * Конструктор по id имени из {@link NameDictionary}.
+     */
+    public Feathered(int nameId, double weight, int age) {
+        super(nameId, weight, age, AnimalKind.FEATHERED);
     }
 
     /**
-     * Перебирает вольеры и пытается разместиться в первом вольере, который принимает пернатых.
-     *
-     * @param enclosures список вольеров
-     * @return true при успешном размещении
+     * Конструктор с уже назначенным id (загрузка из базы).
      */
-    @Override
-    public boolean move(List<Enclosure> enclosures) {
-        for (Enclosure e : enclosures) {
-            if (e.canAccept(this) && e.addAnimal(this)) {
-                return true;
-            }
-        }
-        return false;
+    public Feathered(long id, int nameId, double weight, int age) {
+        super(id, nameId, weight, age, AnimalKind.FEATHERED);
     }
 }
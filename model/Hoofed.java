@@ -1,29 +1,24 @@
 package model;
 
-import enclosure.Enclosure;
-import java.util.List;
-
 /**
  * Копытное животное (например, олень, козёл).
  */
 public class Hoofed extends Animal {
     public Hoofed(String name, double weight, int age) {
-        super(name, weight, age);
+        super(name, weight, age, AnimalKind.HOOFED);
+    }
+
+    /**
+     * Конструктор по id имени из {@link NameDictionary}.
+     */
+    public Hoofed(int nameId, double weight, int age) {
+        super(nameId, weight, age, AnimalKind.HOOFED);
     }
 
     /**
-     * Расселение в подходящий открытый вольер.
-     *
-     * @param enclosures список вольеров
-     * @return true если размещено
+     * Конструктор с уже назначенным id (загрузка из базы).
      */
-    @Override
-    public boolean move(List<Enclosure> enclosures) {
-        for (Enclosure e : enclosures) {
-            if (e.canAccept(this) && e.addAnimal(this)) {
-                return true;
-            }
-        }
-        return false;
+    public Hoofed(long id, int nameId, double weight, int age) {
+        super(id, nameId, weight, age, AnimalKind.HOOFED);
     }
 }
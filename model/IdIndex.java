@@ -0,0 +1,140 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Примитивный хеш-индекс long -> int (id животного -> номер слота) с открытой адресацией.
+ * Линейное пробирование, удаление со сдвигом назад (без «надгробий»), без упаковки в объекты.
+ * Поиск, вставка и удаление — O(1) в среднем. Класс не потокобезопасен.
+ */
+public class IdIndex {
+    /** Пустая ячейка. Ключ Long.MIN_VALUE хранить нельзя. */
+    private static final long EMPTY = Long.MIN_VALUE;
+    /** Значение «не найдено». */
+    public static final int NO_SLOT = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public IdIndex() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize ожидаемое число ключей
+     */
+    public IdIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.min(1 << 30, expectedSize * 2L)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Записать слот для ключа.
+     *
+     * @return прежний слот или {@link #NO_SLOT}
+     */
+    public int put(long key, int slot) {
+        checkKey(key);
+        int i = indexOf(key);
+        if (keys[i] == key) {
+            int old = values[i];
+            values[i] = slot;
+            return old;
+        }
+        keys[i] = key;
+        values[i] = slot;
+        if (++size > resizeAt) rehash(keys.length * 2);
+        return NO_SLOT;
+    }
+
+    /**
+     * Слот ключа или {@link #NO_SLOT}.
+     */
+    public int get(long key) {
+        if (key == EMPTY) return NO_SLOT;
+        int i = indexOf(key);
+        return keys[i] == key ? values[i] : NO_SLOT;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != NO_SLOT;
+    }
+
+    /**
+     * Удалить ключ.
+     *
+     * @return удалённый слот или {@link #NO_SLOT}
+     */
+    public int remove(long key) {
+        if (key == EMPTY) return NO_SLOT;
+        int i = indexOf(key);
+        if (keys[i] != key) return NO_SLOT;
+        int old = values[i];
+        // сдвигаем следующие элементы цепочки на освободившееся место
+        int hole = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /** Ячейка с ключом или первая пустая ячейка его цепочки. */
+    private int indexOf(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = indexOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeAt = capacity / 2;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) throw new IllegalArgumentException("Long.MIN_VALUE is reserved");
+    }
+}
@@ -0,0 +1,99 @@
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь имён животных: отображает имя в целочисленный id и обратно.
+ * Одинаковые имена хранятся в одном экземпляре строки, а сравнение имён
+ * сводится к сравнению id. Потокобезопасен: чтение без блокировок,
+ * добавление нового имени — под блокировкой словаря.
+ */
+public final class NameDictionary {
+    private static final NameDictionary GLOBAL = new NameDictionary();
+
+    /** имя -> id. */
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    /** имя в нижнем регистре -> id всех его написаний; массивы заменяются, а не меняются. */
+    private final ConcurrentHashMap<String, int[]> idsByLowerCase = new ConcurrentHashMap<>();
+    /** id -> имя; массив публикуется заново после каждой записи. */
+    private volatile String[] names = new String[64];
+    private int size;
+
+    /**
+     * Общий словарь приложения, которым пользуются модель, генератор и загрузчик.
+     */
+    public static NameDictionary global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Получить id имени, добавив его в словарь при первом обращении.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    private synchronized int add(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        String[] table = names;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, size * 2);
+        }
+        table[size] = name;
+        names = table;
+        ids.put(name, size);
+        int added = size;
+        idsByLowerCase.merge(name.toLowerCase(Locale.ROOT), new int[] {added}, (old, single) -> {
+            int[] merged = Arrays.copyOf(old, old.length + 1);
+            merged[old.length] = added;
+            return merged;
+        });
+        return size++;
+    }
+
+    /**
+     * Имя по id.
+     *
+     * @throws IndexOutOfBoundsException для неизвестного id
+     */
+    public String name(int id) {
+        String[] table = names;
+        String name = id >= 0 && id < table.length ? table[id] : null;
+        if (name == null) throw new IndexOutOfBoundsException("Unknown name id: " + id);
+        return name;
+    }
+
+    /**
+     * id имени или -1, если такого имени в словаре нет.
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Множество id всех имён, совпадающих с заданным без учёта регистра
+     * (сравниваются формы {@code toLowerCase(Locale.ROOT)}).
+     * Одно обращение к таблице по нижнему регистру, после чего проверка животного — это проверка бита.
+     */
+    public BitSet idsIgnoreCase(String name) {
+        BitSet result = new BitSet();
+        int[] found = idsByLowerCase.get(name.toLowerCase(Locale.ROOT));
+        if (found != null) {
+            for (int id : found) result.set(id);
+        }
+        return result;
+    }
+
+    /**
+     * Количество различных имён.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Внекучевое хранилище животных. Каждая запись — фиксированные 24 байта
+ * в прямом (direct) ByteBuffer:
+ * <pre>
+ *   0..7   weight  (double)
+ *   8..11  age     (int)
+ *   12..15 nameId  (int, id в {@link NameDictionary})
+ *   16     kind    (byte, ordinal {@link AnimalKind})
+ *   17..23 выравнивание
+ * </pre>
+ * Буферы выделяются чанками, куча содержит только массив ссылок на них,
+ * поэтому сборщик мусора не обходит записи. Память освобождается явно через {@link #close()}.
+ * MemorySegment в JDK 17 есть только в инкубаторном модуле jdk.incubator.foreign,
+ * поэтому используются прямые ByteBuffer.
+ * Класс не потокобезопасен.
+ */
+public class OffHeapAnimalStore implements AnimalStorage, AutoCloseable {
+    /** Размер записи в байтах. */
+    public static final int RECORD_SIZE = 24;
+    private static final int WEIGHT = 0;
+    private static final int AGE = 8;
+    private static final int NAME_ID = 12;
+    private static final int KIND = 16;
+
+    /** log2 числа записей в чанке (1M записей = 24 МБ). */
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+    private static final AnimalKind[] KINDS = AnimalKind.values();
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int size;
+    private boolean closed;
+
+    @Override
+    public int add(AnimalKind kind, int nameId, double weight, int age) {
+        ensureOpen();
+        int row = size;
+        int chunk = row >>> CHUNK_BITS;
+        if (chunk == chunks.length) grow();
+        ByteBuffer buf = chunks[chunk];
+        int off = (row & CHUNK_MASK) * RECORD_SIZE;
+        buf.putDouble(off + WEIGHT, weight);
+        buf.putInt(off + AGE, age);
+        buf.putInt(off + NAME_ID, nameId);
+        buf.put(off + KIND, (byte) kind.ordinal());
+        size++;
+        return row;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public double weight(int row) { return chunkOf(row).getDouble(offsetOf(row) + WEIGHT); }
+
+    @Override
+    public int age(int row) { return chunkOf(row).getInt(offsetOf(row) + AGE); }
+
+    @Override
+    public int nameId(int row) { return chunkOf(row).getInt(offsetOf(row) + NAME_ID); }
+
+    @Override
+    public AnimalKind kind(int row) { return KINDS[chunkOf(row).get(offsetOf(row) + KIND)]; }
+
+    @Override
+    public void scan(RowVisitor visitor) {
+        ensureOpen();
+        for (int chunk = 0, base = 0; base < size; chunk++, base += CHUNK_RECORDS) {
+            int n = Math.min(CHUNK_RECORDS, size - base);
+            ByteBuffer buf = chunks[chunk];
+            for (int i = 0, off = 0; i < n; i++, off += RECORD_SIZE) {
+                visitor.visit(base + i, buf.get(off + KIND), buf.getInt(off + NAME_ID),
+                        buf.getDouble(off + WEIGHT), buf.getInt(off + AGE));
+            }
+        }
+    }
+
+    /**
+     * Объём выделенной внекучевой памяти в байтах.
+     */
+    public long offHeapBytes() {
+        return (long) chunks.length * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+    /**
+     * Освобождает внекучевую память. После закрытия хранилище использовать нельзя.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        for (ByteBuffer buf : chunks) {
+            DirectBuffers.release(buf);
+        }
+        chunks = new ByteBuffer[0];
+        size = 0;
+    }
+
+    private void grow() {
+        chunks = Arrays.copyOf(chunks, chunks.length + 1);
+        chunks[chunks.length - 1] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    private ByteBuffer chunkOf(int row) {
+        ensureOpen();
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+        return chunks[row >>> CHUNK_BITS];
+    }
+
+    private static int offsetOf(int row) {
+        return (row & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("OffHeapAnimalStore is closed");
+    }
+}
@@ -0,0 +1,29 @@
+package model;
+
+/**
+ * Лёгкое представление строки {@link AnimalStorage} в виде Animal:
+ * поля не копируются, а читаются из хранилища при каждом обращении.
+ * Хранилища не держат id животных, поэтому у представления id = -1.
+ */
+final class StoredAnimal extends Animal {
+    private final AnimalStorage storage;
+    private final int row;
+
+    StoredAnimal(AnimalStorage storage, int row, AnimalKind kind) {
+        super(-1L, -1, 0, 0, kind);
+        this.storage = storage;
+        this.row = row;
+    }
+
+    @Override
+    public String getName() { return NameDictionary.global().name(getNameId()); }
+
+    @Override
+    public int getNameId() { return storage.nameId(row); }
+
+    @Override
+    public double getWeight() { return storage.weight(row); }
+
+    @Override
+    public int getAge() { return storage.age(row); }
+}
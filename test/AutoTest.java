@@ -1,14 +1,53 @@
 package test;
 
 import config.Settings;
+import controller.Placement;
+import controller.RandomDataGenerator;
 import controller.ZooController;
+import db.AnimalCursor;
+import db.AnimalStats;
+import db.BackgroundSaver;
+import db.DatabaseFormat;
 import db.DatabaseManager;
+import db.StorageEngine;
+import enclosure.ConcurrentEnclosure;
 import enclosure.Enclosure;
+import enclosure.EnclosureRegistry;
 import enclosure.EnclosureType;
 import experLogger.OperationLogger;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import model.Animal;
+import model.AnimalIndex;
+import model.AnimalIds;
+import model.AnimalKind;
+import model.AnimalStore;
+import model.IdIndex;
+import model.OffHeapAnimalStore;
 import model.Aquatic;
 import model.ColdBlooded;
 import model.Feathered;
@@ -145,7 +184,8 @@ public class AutoTest {
 
             // Проверяем, что данные совпадают
             boolean success = !loadedAnimals.isEmpty() && 
-                    loadedAnimals.get(0).getName().equals("TestFish");
+                    loadedAnimals.get(0).getName().equals("TestFish") &&
+                    loadedAnimals.get(0).getId() == testAnimals.get(0).getId();
 
             if (success) {
                 passedTests++;
@@ -277,6 +317,1162 @@ public class AutoTest {
         }
     }
 
+    /**
+     * Тестирует реестр вольеров: порядок заполнения и пропуск заполненных типов.
+     */
+    public void testEnclosureRegistry() {
+        totalTests++;
+        try {
+            List<Enclosure> testEnclosures = new ArrayList<>();
+            testEnclosures.add(new Enclosure("Aqua1", EnclosureType.AQUARIUM, 1));
+            testEnclosures.add(new Enclosure("Open1", EnclosureType.OPEN, 2));
+            testEnclosures.add(new Enclosure("Aqua2", EnclosureType.AQUARIUM, 1));
+            EnclosureRegistry registry = new EnclosureRegistry(testEnclosures);
+
+            boolean test1 = registry.place(new Aquatic("Fish1", 1.0, 1)) == testEnclosures.get(0);
+            boolean test2 = registry.place(new Aquatic("Fish2", 1.0, 1)) == testEnclosures.get(2);
+            boolean test3 = registry.place(new Aquatic("Fish3", 1.0, 1)) == null;
+            boolean test4 = registry.freeSlots(EnclosureType.AQUARIUM) == 0
+                    && registry.freeSlots(EnclosureType.OPEN) == 2;
+            boolean test5 = registry.place(new Feathered("Bird", 0.5, 1)) == null;
+
+            if (test1 && test2 && test3 && test4 && test5) {
+                passedTests++;
+                appLogger.logInfo("Enclosure registry test: PASSED");
+            } else {
+                appLogger.logError("Enclosure registry test: FAILED - placement mismatch", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Enclosure registry test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тестирует, что параллельное расселение даёт те же размещения, что и последовательное.
+     */
+    public void testParallelDistribution() {
+        totalTests++;
+        try {
+            List<Animal> batch = RandomDataGenerator.generateAnimals(60_000, false);
+            batch.add(batch.get(0)); // повтор той же ссылки не занимает второе место
+            batch.add(batch.get(30_000));
+            List<Enclosure> seqEnclosures = RandomDataGenerator.generateEnclosures(12_000, false);
+            List<Enclosure> parEnclosures = new ArrayList<>();
+            for (Enclosure e : seqEnclosures) {
+                parEnclosures.add(new Enclosure(e.getName(), e.getType(), e.getCapacity()));
+            }
+
+            List<Animal> seqUnassigned = new ZooController(seqEnclosures).distributeAnimals(batch);
+            List<Animal> parUnassigned = new ZooController(parEnclosures).distributeAnimalsParallel(batch);
+
+            boolean success = seqUnassigned.equals(parUnassigned);
+            for (int i = 0; success && i < seqEnclosures.size(); i++) {
+                success = seqEnclosures.get(i).getAnimals().equals(parEnclosures.get(i).getAnimals());
+            }
+
+            Animal d = new Aquatic("дельфин", 150, 5);
+            Animal g = new Aquatic("гуппи", 0.1, 1);
+            List<Enclosure> small = new ArrayList<>(List.of(new Enclosure("Small", EnclosureType.AQUARIUM, 2)));
+            List<Animal> rejected = new ZooController(small).distributeAnimalsParallel(List.of(d, d, g));
+            success = success && rejected.isEmpty() && small.get(0).getAnimals().equals(List.of(d, g));
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Parallel distribution test: PASSED");
+            } else {
+                appLogger.logError("Parallel distribution test: FAILED - placement mismatch", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Parallel distribution test: FAILED", e);
+        }
+    }
+
+    /**
+     * Нагрузочный тест потокобезопасного вольера: много потоков заселяют один вольер.
+     */
+    public void testConcurrentEnclosureStress() {
+        totalTests++;
+        try {
+            int capacity = 5_000;
+            int threads = 16;
+            int attemptsPerThread = 1_000;
+            ConcurrentEnclosure enclosure = new ConcurrentEnclosure("Stress", EnclosureType.AQUARIUM, capacity);
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (enclosure.addAnimal(new Aquatic("Fish", 1.0, 1))) accepted.incrementAndGet();
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            start.countDown();
+            for (Thread worker : workers) worker.join();
+
+            List<Animal> inside = enclosure.getAnimals();
+            Set<Animal> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+            unique.addAll(inside);
+            boolean success = accepted.get() == capacity
+                    && inside.size() == capacity
+                    && unique.size() == capacity
+                    && enclosure.freeSlots() == 0
+                    && !enclosure.addAnimal(new Aquatic("Late", 1.0, 1));
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Concurrent enclosure stress test: PASSED");
+            } else {
+                appLogger.logError("Concurrent enclosure stress test: FAILED - accepted=" + accepted.get()
+                        + ", stored=" + inside.size() + ", unique=" + unique.size(), null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Concurrent enclosure stress test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тестирует потоковое расселение через Flow.Publisher с запросом по одному элементу.
+     */
+    public void testStreamingDistribution() {
+        totalTests++;
+        try {
+            List<Enclosure> testEnclosures = new ArrayList<>();
+            testEnclosures.add(new Enclosure("Aqua", EnclosureType.AQUARIUM, 3));
+            ZooController controller = new ZooController(testEnclosures);
+
+            List<Placement> results = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(1);
+            SubmissionPublisher<Animal> arrivals = new SubmissionPublisher<>(ForkJoinPool.commonPool(), 2);
+            controller.distribute(arrivals).subscribe(new Flow.Subscriber<Placement>() {
+                private Flow.Subscription subscription;
+                @Override public void onSubscribe(Flow.Subscription s) { subscription = s; s.request(1); }
+                @Override public void onNext(Placement p) { results.add(p); subscription.request(1); }
+                @Override public void onError(Throwable t) { done.countDown(); }
+                @Override public void onComplete() { done.countDown(); }
+            });
+            for (int i = 0; i < 5; i++) {
+                arrivals.submit(new Aquatic("Fish" + i, 1.0, 1));
+            }
+            arrivals.close();
+
+            boolean finished = done.await(5, TimeUnit.SECONDS);
+            long placed = results.stream().filter(Placement::isPlaced).count();
+            boolean success = finished && results.size() == 5 && placed == 3
+                    && testEnclosures.get(0).getAnimals().size() == 3;
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Streaming distribution test: PASSED");
+            } else {
+                appLogger.logError("Streaming distribution test: FAILED - results=" + results.size(), null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Streaming distribution test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тестирует обратный индекс размещений: поиск, переселение и выселение.
+     */
+    public void testPlacementIndex() {
+        totalTests++;
+        try {
+            Enclosure first = new Enclosure("Open1", EnclosureType.OPEN, 1);
+            Enclosure second = new Enclosure("Open2", EnclosureType.OPEN, 1);
+            List<Enclosure> testEnclosures = new ArrayList<>();
+            testEnclosures.add(first);
+            testEnclosures.add(second);
+            ZooController controller = new ZooController(testEnclosures);
+
+            Animal deer = new Hoofed("Deer", 150.0, 3);
+            Animal goat = new Hoofed("Goat", 40.0, 2);
+            controller.distributeAnimals(List.of(deer));
+            boolean test1 = controller.findEnclosure(deer) == first;
+
+            boolean test2 = controller.moveAnimal(deer, second)
+                    && controller.findEnclosure(deer) == second
+                    && first.getAnimals().isEmpty();
+
+            boolean test3 = controller.place(goat).getEnclosure() == first;
+
+            boolean test4 = controller.evict(deer)
+                    && controller.findEnclosure(deer) == null
+                    && second.getAnimals().isEmpty()
+                    && controller.place(new Hoofed("Cow", 300.0, 5)).getEnclosure() == second;
+
+            // занятие и освобождение места в обход place не ставит вольер в очередь второй раз
+            Enclosure tank1 = new Enclosure("Tank1", EnclosureType.AQUARIUM, 2);
+            Enclosure tank2 = new Enclosure("Tank2", EnclosureType.AQUARIUM, 2);
+            EnclosureRegistry registry = new EnclosureRegistry(List.of(tank1, tank2));
+            Animal fish = new Aquatic("Fish", 1.0, 1);
+            tank2.addAnimal(fish);
+            registry.occupy(tank2);
+            tank2.removeAnimal(fish);
+            registry.release(tank2);
+            registry.occupy(new Enclosure("Unknown", EnclosureType.AQUARIUM, 2));
+            boolean test5 = registry.openEnclosures(EnclosureType.AQUARIUM).length == 2
+                    && registry.freeSlots(EnclosureType.AQUARIUM) == 4;
+
+            // из вольера только на заселение выселить нельзя, и индекс при этом не меняется
+            ConcurrentEnclosure appendOnly = new ConcurrentEnclosure("AppendOnly", EnclosureType.OPEN, 2);
+            ZooController concurrent = new ZooController(new ArrayList<>(List.of(appendOnly)));
+            Animal elk = new Hoofed("Elk", 200.0, 4);
+            concurrent.place(elk);
+            boolean rejected = false;
+            try {
+                concurrent.evict(elk);
+            } catch (UnsupportedOperationException e) {
+                rejected = true;
+            }
+            boolean test6 = rejected && concurrent.findEnclosure(elk) == appendOnly
+                    && appendOnly.getAnimals().equals(List.of(elk));
+
+            if (test1 && test2 && test3 && test4 && test5 && test6) {
+                passedTests++;
+                appLogger.logInfo("Placement index test: PASSED");
+            } else {
+                appLogger.logError("Placement index test: FAILED - index mismatch", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Placement index test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тестирует колоночное хранилище: представления строк и агрегаты без объектов.
+     */
+    public void testAnimalStore() {
+        totalTests++;
+        try {
+            List<Animal> source = RandomDataGenerator.generateAnimals(70_000, false);
+            AnimalStore store = new AnimalStore();
+            store.addAll(source);
+
+            double hoofedWeight = 0;
+            long hoofedCount = 0;
+            int maxAge = -1;
+            for (Animal a : source) {
+                if (a.getKind() == AnimalKind.HOOFED) {
+                    hoofedWeight += a.getWeight();
+                    hoofedCount++;
+                }
+                maxAge = Math.max(maxAge, a.getAge());
+            }
+
+            Animal last = store.get(source.size() - 1);
+            Animal expected = source.get(source.size() - 1);
+            boolean test1 = store.size() == source.size()
+                    && last.getKind() == expected.getKind()
+                    && last.getName().equals(expected.getName())
+                    && last.getWeight() == expected.getWeight()
+                    && last.getAge() == expected.getAge();
+            boolean test2 = store.countByKind()[AnimalKind.HOOFED.ordinal()] == hoofedCount
+                    && Math.abs(store.sumWeight(AnimalKind.HOOFED) - hoofedWeight) < 1e-6
+                    && store.maxAge(null) == maxAge;
+
+            if (test1 && test2) {
+                passedTests++;
+                appLogger.logInfo("Animal store test: PASSED");
+            } else {
+                appLogger.logError("Animal store test: FAILED - data mismatch", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Animal store test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тестирует внекучевое хранилище: запись, чтение, обход и явное освобождение.
+     */
+    public void testOffHeapStore() {
+        totalTests++;
+        try {
+            List<Animal> source = RandomDataGenerator.generateAnimals(10_000, false);
+            boolean success;
+            OffHeapAnimalStore store = new OffHeapAnimalStore();
+            try {
+                for (Animal a : source) store.add(a);
+                double[] scannedWeight = new double[1];
+                store.scan((row, kind, nameId, weight, age) -> scannedWeight[0] += weight);
+                double expectedWeight = 0;
+                for (Animal a : source) expectedWeight += a.getWeight();
+
+                Animal view = store.get(42);
+                Animal expected = source.get(42);
+                success = store.size() == source.size()
+                        && view.getKind() == expected.getKind()
+                        && view.getName().equals(expected.getName())
+                        && view.getAge() == expected.getAge()
+                        && scannedWeight[0] == expectedWeight;
+            } finally {
+                store.close();
+            }
+            try {
+                store.size();
+                store.get(0);
+                success = false;
+            } catch (IllegalStateException | IndexOutOfBoundsException expectedAfterClose) {
+                // после close() чтение недопустимо
+            }
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Off-heap store test: PASSED");
+            } else {
+                appLogger.logError("Off-heap store test: FAILED - data mismatch", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Off-heap store test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тестирует примитивный индекс id -> слот на случайной последовательности операций.
+     */
+    public void testIdIndex() {
+        totalTests++;
+        try {
+            IdIndex index = new IdIndex();
+            Map<Long, Integer> reference = new HashMap<>();
+            Random rnd = new Random(7);
+            boolean success = true;
+            for (int op = 0; op < 200_000 && success; op++) {
+                long id = rnd.nextInt(5_000);
+                int choice = rnd.nextInt(3);
+                if (choice == 0) {
+                    int slot = rnd.nextInt(1_000_000);
+                    Integer old = reference.put(id, slot);
+                    success = index.put(id, slot) == (old == null ? IdIndex.NO_SLOT : old);
+                } else if (choice == 1) {
+                    Integer old = reference.remove(id);
+                    success = index.remove(id) == (old == null ? IdIndex.NO_SLOT : old);
+                } else {
+                    Integer expected = reference.get(id);
+                    success = index.get(id) == (expected == null ? IdIndex.NO_SLOT : expected);
+                }
+            }
+            success = success && index.size() == reference.size();
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Id index test: PASSED");
+            } else {
+                appLogger.logError("Id index test: FAILED - mismatch with reference map", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Id index test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест воспроизводимости генератора: один seed — одинаковые животные
+     * в последовательном и параллельном потоке.
+     */
+    public void testReproducibleGenerator() {
+        totalTests++;
+        try {
+            int count = 50_000;
+            List<Animal> sequential = RandomDataGenerator.stream(2024L, count).collect(Collectors.toList());
+            List<Animal> parallel = RandomDataGenerator.stream(2024L, count).parallel().collect(Collectors.toList());
+            List<Animal> other = RandomDataGenerator.stream(2025L, count).collect(Collectors.toList());
+
+            boolean success = sequential.size() == count && parallel.size() == count;
+            long seqBase = sequential.get(0).getId();
+            long parBase = parallel.get(0).getId();
+            boolean differs = false;
+            for (int i = 0; i < count && success; i++) {
+                Animal s = sequential.get(i);
+                Animal p = parallel.get(i);
+                success = s.getKind() == p.getKind()
+                        && s.getNameId() == p.getNameId()
+                        && s.getWeight() == p.getWeight()
+                        && s.getAge() == p.getAge()
+                        && s.getId() - seqBase == i
+                        && p.getId() - parBase == i;
+                Animal o = other.get(i);
+                differs |= o.getKind() != s.getKind() || o.getWeight() != s.getWeight();
+            }
+            success = success && differs;
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Reproducible generator test: PASSED");
+            } else {
+                appLogger.logError("Reproducible generator test: FAILED - sequential and parallel streams differ", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Reproducible generator test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест пакетной генерации в колонки: совпадает с потоком объектов,
+     * в том числе с невыровненного начала и при параллельном заполнении.
+     */
+    public void testBulkColumns() {
+        totalTests++;
+        try {
+            int count = 20_000;
+            int from = 5_000; // не на границе блока
+            List<Animal> reference = RandomDataGenerator.stream(77L, count).collect(Collectors.toList());
+
+            byte[] kind = new byte[count - from];
+            int[] nameId = new int[kind.length];
+            double[] weight = new double[kind.length];
+            int[] age = new int[kind.length];
+            RandomDataGenerator.fillColumnsParallel(77L, from, kind, nameId, weight, age);
+
+            boolean success = true;
+            for (int i = 0; i < kind.length && success; i++) {
+                Animal a = reference.get(from + i);
+                success = a.getKind().ordinal() == kind[i]
+                        && a.getNameId() == nameId[i]
+                        && a.getWeight() == weight[i]
+                        && a.getAge() == age[i];
+            }
+
+            AnimalStore store = new AnimalStore();
+            RandomDataGenerator.fillStorage(store, 77L, count);
+            success = success && store.size() == count;
+            for (int row = 0; row < count && success; row++) {
+                Animal a = reference.get(row);
+                success = store.kind(row) == a.getKind() && store.weight(row) == a.getWeight()
+                        && store.age(row) == a.getAge() && store.nameId(row) == a.getNameId();
+            }
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Bulk columns test: PASSED");
+            } else {
+                appLogger.logError("Bulk columns test: FAILED - columns differ from generated animals", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Bulk columns test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест двоичного формата базы: сохранение/загрузка, автоопределение формата
+     * и экспорт в текст дают одинаковых животных.
+     */
+    public void testBinaryDatabaseFormat() {
+        totalTests++;
+        try {
+            List<Animal> animals = RandomDataGenerator.stream(11L, 10_000).collect(Collectors.toList());
+            animals.add(new Hoofed("лошадь Пржевальского", 310.25, 7));
+
+            File binary = File.createTempFile("autotest-animals", ".bin");
+            File text = File.createTempFile("autotest-animals", ".txt");
+            binary.deleteOnExit();
+            text.deleteOnExit();
+            DatabaseManager.saveAnimals(animals, binary.getPath(), DatabaseFormat.BINARY);
+            DatabaseManager.saveAnimals(animals, text.getPath(), DatabaseFormat.TEXT);
+
+            boolean success = DatabaseManager.detectFormat(binary.getPath()) == DatabaseFormat.BINARY
+                    && DatabaseManager.detectFormat(text.getPath()) == DatabaseFormat.TEXT
+                    && sameAnimals(animals, DatabaseManager.loadAnimals(binary.getPath()))
+                    && sameAnimals(animals, DatabaseManager.loadAnimals(text.getPath()));
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Binary database format test: PASSED");
+            } else {
+                appLogger.logError("Binary database format test: FAILED - loaded animals differ", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Binary database format test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест загрузки через отображение в память: CRLF, пустые и некорректные строки,
+     * последняя строка без перевода строки.
+     */
+    public void testMappedLoader() {
+        totalTests++;
+        try {
+            File file = File.createTempFile("autotest-mapped", ".db");
+            file.deleteOnExit();
+            Files.writeString(file.toPath(), "Hoofed|лось|310.25|7|900001\r\n"
+                    + "broken line\n\n"
+                    + "Aquatic|сом|x|2\n"
+                    + "Aquatic|сом|0.05|2\n"
+                    + "ColdBlooded|угорь|-1.5|3|900002", StandardCharsets.UTF_8);
+
+            List<Animal> loaded = DatabaseManager.loadAnimals(file.getPath());
+            boolean success = loaded.size() == 3
+                    && loaded.get(0).getName().equals("лось")
+                    && loaded.get(0).getWeight() == 310.25
+                    && loaded.get(0).getId() == 900001L
+                    && loaded.get(1).getKind() == AnimalKind.AQUATIC
+                    && loaded.get(1).getWeight() == 0.05
+                    && loaded.get(2).getWeight() == -1.5
+                    && loaded.get(2).getId() == 900002L;
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Mapped loader test: PASSED");
+            } else {
+                appLogger.logError("Mapped loader test: FAILED - unexpected records " + loaded, null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Mapped loader test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест журнала базы: после загрузки сохранение дописывает только изменения,
+     * загрузка применяет журнал к снимку, недописанный хвост журнала отбрасывается.
+     */
+    public void testAnimalJournal() {
+        totalTests++;
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("autotest-journal");
+            StorageEngine engine = StorageEngine.create(StorageEngine.MMAP, dir);
+            File snapshot = dir.resolve("animals.db").toFile();
+            File journal = dir.resolve("animals.db.journal").toFile();
+            List<Animal> animals = RandomDataGenerator.stream(5L, 5_000).collect(Collectors.toList());
+            engine.saveAnimals(animals);
+            animals = engine.loadAnimals();
+            long snapshotBytes = snapshot.length();
+            long journalBefore = journal.length();
+
+            Animal updated = animals.get(10);
+            animals.set(10, updated.getKind().create(updated.getId(), updated.getNameId(), updated.getWeight() + 1, updated.getAge()));
+            animals.remove(20);
+            animals.add(new Feathered("журавль", 4.5, 3));
+            engine.saveAnimals(animals);
+            long journalBytes = journal.length();
+            engine.saveAnimals(animals); // без изменений — журнал не растёт
+
+            boolean success = snapshot.length() == snapshotBytes
+                    && journal.exists()
+                    && journal.length() == journalBytes
+                    && journalBytes - journalBefore < 200
+                    && sameAnimals(animals, engine.loadAnimals());
+
+            // обход без загрузки: новый экземпляр читает снимок курсором и досылает изменения журнала;
+            // файловый курсор снимок с непустым журналом не открывает
+            Map<Long, Double> visited = new HashMap<>();
+            long visitedCount = StorageEngine.create(StorageEngine.MMAP, dir)
+                    .forEachAnimal((id, kind, nameId, w, age) -> visited.put(id, w));
+            Map<Long, Double> expectedWeights = new HashMap<>();
+            for (Animal a : animals) {
+                expectedWeights.put(a.getId(), a.getWeight());
+            }
+            success = success && visitedCount == animals.size() && visited.equals(expectedWeights)
+                    && StorageEngine.create(StorageEngine.MMAP, dir).aggregate().countByKind()
+                            .equals(AnimalStats.of(animals).countByKind());
+            try (AnimalCursor stale = DatabaseManager.openCursor(snapshot.getPath())) {
+                success = false;
+            } catch (IOException expected) {
+                // снимок без журнала устарел
+            }
+
+            // сбой посреди дозаписи: обрывок записи в конце журнала игнорируется
+            Files.write(journal.toPath(), new byte[] {1, 0, 0}, StandardOpenOption.APPEND);
+            List<Animal> recovered = engine.loadAnimals();
+            success = success && sameAnimals(animals, recovered);
+            recovered.remove(0);
+            engine.saveAnimals(recovered);
+            success = success && sameAnimals(recovered, engine.loadAnimals());
+
+            // сбой при первой дозаписи: журнал короче заголовка считается пустым, следующая дозапись пишет заголовок
+            Files.deleteIfExists(journal.toPath());
+            List<Animal> compacted = engine.loadAnimals();
+            Files.write(journal.toPath(), new byte[] {(byte) 0x89, 0x5A, 0x4F});
+            success = success && sameAnimals(compacted, engine.loadAnimals());
+            compacted.add(new Feathered("цапля", 2.5, 1));
+            engine.saveAnimals(compacted);
+            success = success && journal.exists() && sameAnimals(compacted, engine.loadAnimals());
+            Files.write(journal.toPath(), new byte[] {(byte) 0x89, 0x5A, 0x4F});
+            StorageEngine cold = StorageEngine.create(StorageEngine.MMAP, dir);
+            List<Animal> beforeJournal = cold.loadAnimals();
+            beforeJournal.add(new Feathered("аист", 3.5, 2));
+            cold.saveAnimals(beforeJournal);
+            success = success && sameAnimals(beforeJournal, StorageEngine.create(StorageEngine.MMAP, dir).loadAnimals());
+            recovered = beforeJournal;
+
+            // сбой посреди уплотнения: временный снимок без метки не заменяет снимок, даже без журнала
+            File pending = dir.resolve("animals.db.tmp").toFile();
+            Files.deleteIfExists(journal.toPath());
+            List<Animal> snapshotOnly = engine.loadAnimals();
+            Files.write(pending.toPath(), Arrays.copyOf(Files.readAllBytes(snapshot.toPath()), 100));
+            success = success && sameAnimals(snapshotOnly, engine.loadAnimals()) && !pending.exists();
+            engine.saveAnimals(recovered);
+            success = success && sameAnimals(recovered, engine.loadAnimals());
+
+            // файлы изменил другой экземпляр: запомненное состояние устарело и не используется
+            StorageEngine other = StorageEngine.create(StorageEngine.MMAP, dir);
+            List<Animal> changed = other.loadAnimals();
+            changed.remove(0);
+            changed.add(new Feathered("пеликан", 7.5, 4));
+            other.saveAnimals(changed);
+            Map<Long, Double> seen = new HashMap<>();
+            long seenCount = engine.forEachAnimal((id, kind, nameId, w, age) -> seen.put(id, w));
+            Map<Long, Double> changedWeights = new HashMap<>();
+            for (Animal a : changed) {
+                changedWeights.put(a.getId(), a.getWeight());
+            }
+            success = success && seenCount == changed.size() && seen.equals(changedWeights)
+                    && engine.aggregate().countByKind().equals(AnimalStats.of(changed).countByKind());
+            // сохранение поверх чужих файлов переписывает снимок целиком, а не дописывает разницу к устаревшему
+            engine.saveAnimals(recovered);
+            success = success && sameAnimals(recovered, StorageEngine.create(StorageEngine.MMAP, dir).loadAnimals());
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Animal journal test: PASSED");
+            } else {
+                appLogger.logError("Animal journal test: FAILED - journal did not reproduce saved state", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Animal journal test: FAILED", e);
+        } finally {
+            deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * Тест параллельной загрузки текстовой базы: куски по 4 КБ с границами посреди строк
+     * дают тех же животных в том же порядке, что и последовательная загрузка.
+     */
+    public void testParallelTextLoad() {
+        totalTests++;
+        try {
+            List<Animal> animals = RandomDataGenerator.stream(13L, 20_000).collect(Collectors.toList());
+            File text = File.createTempFile("autotest-parallel", ".txt");
+            text.deleteOnExit();
+            DatabaseManager.saveAnimals(animals, text.getPath(), DatabaseFormat.TEXT);
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            List<Animal> loaded;
+            try {
+                loaded = DatabaseManager.loadAnimalsParallel(text.getPath(), pool, 4096);
+            } finally {
+                pool.shutdown();
+            }
+            boolean success = sameAnimals(animals, loaded);
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Parallel text load test: PASSED");
+            } else {
+                appLogger.logError("Parallel text load test: FAILED - order or content differs", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Parallel text load test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест сохранения размещения: после загрузки животные возвращаются в свои вольеры,
+     * а повторное расселение не трогает уже размещённых. База — во временном каталоге,
+     * размещение проходит через assignments.db хранилища.
+     */
+    public void testAssignmentPersistence() {
+        totalTests++;
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("autotest-assignments");
+            StorageEngine engine = StorageEngine.create(StorageEngine.MMAP, dir);
+            List<Enclosure> enclosures = new ArrayList<>();
+            for (EnclosureType type : EnclosureType.values()) {
+                enclosures.add(new Enclosure("Persist-" + type, type, 50));
+            }
+            List<Animal> animals = RandomDataGenerator.stream(17L, 300).collect(Collectors.toList());
+            new ZooController(enclosures).distributeAnimals(animals);
+            Map<Long, String> expected = new HashMap<>();
+            for (Enclosure e : enclosures) {
+                e.forEachAnimal(a -> expected.put(a.getId(), e.getName()));
+            }
+
+            engine.saveAnimals(animals);
+            engine.saveEnclosures(enclosures);
+            StorageEngine reader = StorageEngine.create(StorageEngine.MMAP, dir);
+            List<Animal> loadedAnimals = reader.loadAnimals();
+            List<Enclosure> loadedEnclosures = reader.loadEnclosures(loadedAnimals);
+
+            Map<Long, String> actual = new HashMap<>();
+            for (Enclosure e : loadedEnclosures) {
+                e.forEachAnimal(a -> actual.put(a.getId(), e.getName()));
+            }
+            ZooController controller = new ZooController(loadedEnclosures);
+            int unassigned = controller.distributeAnimals(loadedAnimals).size();
+            int occupied = 0;
+            for (Enclosure e : loadedEnclosures) {
+                occupied += e.size();
+            }
+            boolean success = expected.size() == 200
+                    && Files.size(dir.resolve("assignments.db")) > 0
+                    && expected.equals(actual)
+                    && controller.placedCount() == 200
+                    && occupied == 200
+                    && unassigned == 100;
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Assignment persistence test: PASSED");
+            } else {
+                appLogger.logError("Assignment persistence test: FAILED - restored placements differ", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Assignment persistence test: FAILED", e);
+        } finally {
+            deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * Тест потокового чтения базы: ленивый поток и обход обработчиком дают те же записи,
+     * что и полная загрузка; закрытый курсор больше не читает файл.
+     */
+    public void testStreamingRead() {
+        totalTests++;
+        try {
+            List<Animal> animals = RandomDataGenerator.stream(19L, 10_000).collect(Collectors.toList());
+            File text = File.createTempFile("autotest-stream", ".txt");
+            File binary = File.createTempFile("autotest-stream", ".bin");
+            text.deleteOnExit();
+            binary.deleteOnExit();
+            DatabaseManager.saveAnimals(animals, text.getPath(), DatabaseFormat.TEXT);
+            DatabaseManager.saveAnimals(animals, binary.getPath(), DatabaseFormat.BINARY);
+
+            double expectedWeight = 0;
+            for (Animal a : animals) {
+                expectedWeight += a.getWeight();
+            }
+            boolean success = true;
+            for (File file : new File[] {text, binary}) {
+                List<Animal> streamed;
+                try (Stream<Animal> stream = DatabaseManager.streamAnimals(file.getPath())) {
+                    streamed = stream.collect(Collectors.toList());
+                }
+                double[] weight = {0};
+                long count = DatabaseManager.forEachAnimal(file.getPath(),
+                        (id, kind, nameId, w, age) -> weight[0] += w);
+                List<Animal> firstTen;
+                try (Stream<Animal> stream = DatabaseManager.streamAnimals(file.getPath())) {
+                    firstTen = stream.limit(10).collect(Collectors.toList());
+                }
+                success = success && sameAnimals(animals, streamed)
+                        && count == animals.size()
+                        && weight[0] == expectedWeight
+                        && sameAnimals(animals.subList(0, 10), firstTen);
+            }
+
+            // строки старого формата без id: обход не расходует id, объекту id выдаётся один раз
+            File legacy = File.createTempFile("autotest-stream", ".legacy");
+            legacy.deleteOnExit();
+            List<String> legacyLines = new ArrayList<>();
+            for (String line : Files.readAllLines(text.toPath(), StandardCharsets.UTF_8)) {
+                legacyLines.add(line.substring(0, line.lastIndexOf('|')));
+            }
+            Files.write(legacy.toPath(), legacyLines, StandardCharsets.UTF_8);
+            long before = AnimalIds.next();
+            long[] legacyIds = {0};
+            DatabaseManager.forEachAnimal(legacy.getPath(), (id, kind, nameId, w, age) -> legacyIds[0] |= id);
+            success = success && legacyIds[0] == 0 && AnimalIds.next() == before + 1;
+            try (AnimalCursor legacyCursor = DatabaseManager.openCursor(legacy.getPath())) {
+                success = success && legacyCursor.next() && legacyCursor.id() == 0;
+                long assigned = legacyCursor.toAnimal().getId();
+                success = success && assigned > before + 1
+                        && legacyCursor.toAnimal().getId() == assigned && legacyCursor.id() == assigned;
+            }
+
+            AnimalCursor cursor = DatabaseManager.openCursor(binary.getPath());
+            cursor.close();
+            try {
+                cursor.next();
+                success = false;
+            } catch (IOException expected) {
+                // курсор закрыт
+            }
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Streaming read test: PASSED");
+            } else {
+                appLogger.logError("Streaming read test: FAILED - streamed records differ", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Streaming read test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест индексов: равенство, диапазоны, top-K и поиск по нескольким условиям
+     * совпадают с линейным просмотром списка после добавлений и удалений.
+     */
+    public void testAnimalIndex() {
+        totalTests++;
+        try {
+            List<Animal> animals = RandomDataGenerator.stream(23L, 5_000).collect(Collectors.toList());
+            AnimalIndex index = new AnimalIndex(animals);
+            Random random = new Random(23);
+            for (int i = 0; i < 500; i++) {
+                index.remove(animals.remove(random.nextInt(animals.size())).getId());
+            }
+            for (Animal added : RandomDataGenerator.stream(29L, 500).collect(Collectors.toList())) {
+                animals.add(added);
+                index.add(added);
+            }
+
+            double over = Math.nextUp(300.0);
+            List<Animal> heavyHoofed = animals.stream()
+                    .filter(a -> a.getKind() == AnimalKind.HOOFED && a.getWeight() >= over)
+                    .collect(Collectors.toList());
+            List<Animal> aged = animals.stream()
+                    .filter(a -> a.getAge() >= 3 && a.getAge() <= 5)
+                    .collect(Collectors.toList());
+            String name = animals.get(0).getName();
+            // то же имя другим регистром — другой id в словаре, но находится тем же запросом
+            Animal shouted = AnimalKind.AQUATIC.create(name.toUpperCase(), 1.0, 2);
+            animals.add(shouted);
+            index.add(shouted);
+            List<Animal> named = animals.stream()
+                    .filter(a -> a.getName().equalsIgnoreCase(name))
+                    .collect(Collectors.toList());
+            List<Animal> heaviest = animals.stream()
+                    .sorted((a, b) -> Double.compare(b.getWeight(), a.getWeight()))
+                    .limit(10).collect(Collectors.toList());
+            List<Animal> combined = named.stream()
+                    .filter(a -> a.getWeight() <= 50 && a.getAge() >= 2)
+                    .collect(Collectors.toList());
+
+            boolean success = index.size() == animals.size()
+                    && sameSet(heavyHoofed, index.byWeight(AnimalKind.HOOFED, over, Double.MAX_VALUE))
+                    && sameSet(aged, index.byAge(null, 3, 5))
+                    && sameSet(named, index.byName(name.toUpperCase()))
+                    && sameSet(animals.stream().filter(a -> a.getKind() == AnimalKind.AQUATIC)
+                            .collect(Collectors.toList()), index.byKind(AnimalKind.AQUATIC))
+                    && sameSet(combined, index.find(name, null, -Double.MAX_VALUE, 50, 2, Integer.MAX_VALUE))
+                    && index.heaviest(null, 10).stream().mapToDouble(Animal::getWeight).boxed()
+                            .collect(Collectors.toList())
+                            .equals(heaviest.stream().mapToDouble(Animal::getWeight).boxed()
+                                    .collect(Collectors.toList()));
+
+            // top-K по условиям: узкий диапазон веса (обход по весу) и имя (куча из K)
+            Comparator<Animal> heavierFirst = Comparator.comparingDouble(Animal::getWeight).reversed();
+            List<Animal> narrowWeight = index.find(null, null, 40, 45, 1, Integer.MAX_VALUE);
+            narrowWeight.sort(heavierFirst);
+            List<Animal> namedSorted = new ArrayList<>(combined);
+            namedSorted.sort(heavierFirst);
+            success = success
+                    && weights(index.findHeaviest(null, null, 40, 45, 1, Integer.MAX_VALUE, 7))
+                            .equals(weights(narrowWeight.subList(0, Math.min(7, narrowWeight.size()))))
+                    && weights(index.findHeaviest(name, null, -Double.MAX_VALUE, 50, 2, Integer.MAX_VALUE, 3))
+                            .equals(weights(namedSorted.subList(0, Math.min(3, namedSorted.size()))))
+                    && index.findHeaviest(name, null, -Double.MAX_VALUE, Double.MAX_VALUE, 0, Integer.MAX_VALUE, 0).isEmpty();
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Animal index test: PASSED");
+            } else {
+                appLogger.logError("Animal index test: FAILED - index results differ from linear scan", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Animal index test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест сжатого формата: загрузка, чтение диапазона через индекс блоков и курсор
+     * дают те же записи, файл меньше двоичного, обрезанный файл не загружается.
+     */
+    public void testCompressedDatabase() {
+        totalTests++;
+        try {
+            List<Animal> animals = RandomDataGenerator.stream(31L, 100_000).collect(Collectors.toList());
+            animals.add(AnimalKind.HOOFED.create("пи", Math.PI, 3)); // вес не в копейках
+            animals.add(AnimalKind.AQUATIC.create("минус", -0.0, -1));
+            File binary = File.createTempFile("autotest-compressed", ".bin");
+            File compressed = File.createTempFile("autotest-compressed", ".dbz");
+            binary.deleteOnExit();
+            compressed.deleteOnExit();
+            DatabaseManager.saveAnimals(animals, binary.getPath(), DatabaseFormat.BINARY);
+            DatabaseManager.saveAnimals(animals, compressed.getPath(), DatabaseFormat.COMPRESSED);
+
+            List<Animal> streamed;
+            try (Stream<Animal> stream = DatabaseManager.streamAnimals(compressed.getPath())) {
+                streamed = stream.collect(Collectors.toList());
+            }
+            boolean success = DatabaseManager.detectFormat(compressed.getPath()) == DatabaseFormat.COMPRESSED
+                    && compressed.length() * 2 < binary.length()
+                    && sameAnimals(animals, DatabaseManager.loadAnimals(compressed.getPath()))
+                    && sameAnimals(animals.subList(40_000, 70_000),
+                            DatabaseManager.loadAnimalRange(compressed.getPath(), 40_000, 70_000))
+                    && sameAnimals(animals.subList(99_990, animals.size()),
+                            DatabaseManager.loadAnimalRange(compressed.getPath(), 99_990, 200_000))
+                    && sameAnimals(animals, streamed);
+
+            byte[] bytes = Files.readAllBytes(compressed.toPath());
+            Files.write(compressed.toPath(), Arrays.copyOf(bytes, bytes.length - 5));
+            success = success && DatabaseManager.loadAnimals(compressed.getPath()).isEmpty();
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Compressed database test: PASSED");
+            } else {
+                appLogger.logError("Compressed database test: FAILED - compressed records differ", null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Compressed database test: FAILED", e);
+        }
+    }
+
+    /**
+     * Тест фонового сохранения: серия запросов сливается в меньшее число записей,
+     * на диске оказывается последнее состояние, закрытый сохранитель запросы не принимает.
+     */
+    public void testBackgroundSaver() {
+        totalTests++;
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("bg-saver");
+            StorageEngine engine = StorageEngine.create(StorageEngine.MMAP, dir);
+            List<Animal> animals = RandomDataGenerator.stream(37L, 20_000).collect(Collectors.toList());
+            List<Enclosure> enclosures = new ArrayList<>();
+            enclosures.add(new Enclosure("Async-1", EnclosureType.OPEN, 10));
+            BackgroundSaver saver = new BackgroundSaver(engine);
+            CompletableFuture<Void> last = null;
+            int requests = 50;
+            for (int i = 0; i < requests; i++) {
+                animals.add(new Hoofed("зебра", 300 + i, 4));
+                last = saver.save(animals, enclosures);
+            }
+            animals.add(new Hoofed("после", 1, 1)); // изменения после save не попадают в запись
+            last.get(30, TimeUnit.SECONDS);
+            long writes = saver.writes();
+            boolean dirty = saver.isDirty();
+            saver.close();
+            boolean rejected = saver.save(animals, enclosures).isCompletedExceptionally();
+
+            animals.remove(animals.size() - 1);
+            boolean success = writes < requests
+                    && !dirty
+                    && rejected
+                    && sameAnimals(animals, engine.loadAnimals())
+                    && engine.loadEnclosures(List.of()).size() == 1;
+
+            if (success) {
+                passedTests++;
+                appLogger.logInfo("Background saver test: PASSED (" + requests + " requests, " + writes + " writes)");
+            } else {
+                appLogger.logError("Background saver test: FAILED - writes=" + writes + " dirty=" + dirty, null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Background saver test: FAILED", e);
+        } finally {
+            deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * Общий набор проверок для всех хранилищ ({@link StorageEngine#NAMES}): пустая база,
+     * сохранение и загрузка, повторное сохранение после изменений, обход записей,
+     * вольеры с размещением; файловые хранилища — ещё и чтение новым экземпляром.
+     */
+    public void testStorageEngines() {
+        totalTests++;
+        List<String> failed = new ArrayList<>();
+        for (String name : StorageEngine.NAMES) {
+            try {
+                Path dir = Files.createTempDirectory("autotest-engine-" + name);
+                String failure = checkStorageEngine(name, dir);
+                if (failure != null) {
+                    failed.add(name + ": " + failure);
+                }
+                deleteDirectory(dir);
+            } catch (Exception e) {
+                failed.add(name + ": " + e);
+            }
+        }
+        if (failed.isEmpty()) {
+            passedTests++;
+            appLogger.logInfo("Storage engines test: PASSED " + StorageEngine.NAMES);
+        } else {
+            appLogger.logError("Storage engines test: FAILED - " + failed, null);
+        }
+    }
+
+    /** @return описание первого расхождения или null */
+    private static String checkStorageEngine(String name, Path dir) throws IOException {
+        StorageEngine engine = StorageEngine.create(name, dir);
+        if (!engine.name().equals(name)) {
+            return "name " + engine.name();
+        }
+        if (!engine.loadAnimals().isEmpty() || !engine.loadEnclosures(List.of()).isEmpty()) {
+            return "fresh storage is not empty";
+        }
+        List<Animal> animals = RandomDataGenerator.stream(41L, 60_000).collect(Collectors.toList());
+        engine.saveAnimals(animals);
+        if (!sameAnimals(animals, engine.loadAnimals())) {
+            return "roundtrip";
+        }
+
+        animals.subList(100, 200).clear();
+        Animal old = animals.get(500);
+        animals.set(500, old.getKind().create(old.getId(), old.getNameId(), old.getWeight() + 1, old.getAge() + 1));
+        animals.add(new Hoofed("новичок", 123.45, 2));
+        engine.saveAnimals(animals);
+        List<Animal> loaded = engine.loadAnimals();
+        if (!sameAnimals(animals, loaded)) {
+            return "roundtrip after changes";
+        }
+
+        double[] weight = {0};
+        long visited = engine.forEachAnimal((id, kind, nameId, w, age) -> weight[0] += w);
+        double expected = 0;
+        for (Animal a : animals) {
+            expected += a.getWeight();
+        }
+        if (visited != animals.size() || weight[0] != expected) {
+            return "forEachAnimal visited " + visited;
+        }
+        AnimalStats stats = engine.aggregate();
+        if (!stats.countByKind().equals(AnimalStats.of(animals).countByKind())) {
+            return "aggregate " + stats;
+        }
+        // изменения из журнала видны агрегатам без промежуточной загрузки, в том числе новому экземпляру
+        animals.remove(0);
+        animals.add(new Feathered("поздний", 0.5, 1));
+        engine.saveAnimals(animals);
+        AnimalStats expectedStats = AnimalStats.of(animals);
+        stats = engine.aggregate();
+        AnimalStats reopenedStats = StorageEngine.create(name, dir).aggregate();
+        if (!stats.countByKind().equals(expectedStats.countByKind())
+                || !stats.ageHistogram().equals(expectedStats.ageHistogram())
+                || (!name.equals(StorageEngine.MEMORY)
+                        && !reopenedStats.countByKind().equals(expectedStats.countByKind()))) {
+            return "aggregate after journal " + stats;
+        }
+
+        List<Enclosure> enclosures = new ArrayList<>();
+        enclosures.add(new Enclosure("Engine-Open", EnclosureType.OPEN, 5));
+        enclosures.add(new Enclosure("Engine-Aqua", EnclosureType.AQUARIUM, 5));
+        for (Animal a : loaded.subList(0, 50)) {
+            for (Enclosure enclosure : enclosures) {
+                if (enclosure.canAccept(a) && enclosure.addAnimal(a)) {
+                    break;
+                }
+            }
+        }
+        engine.saveEnclosures(enclosures);
+        StorageEngine reader = name.equals(StorageEngine.MEMORY) ? engine : StorageEngine.create(name, dir);
+        List<Animal> reloaded = reader.loadAnimals();
+        if (!sameAnimals(animals, reloaded)) {
+            return "reopened storage";
+        }
+        List<Enclosure> restored = reader.loadEnclosures(reloaded);
+        if (restored.size() != enclosures.size()) {
+            return "enclosures " + restored.size();
+        }
+        for (int i = 0; i < enclosures.size(); i++) {
+            Enclosure e = enclosures.get(i);
+            Enclosure r = restored.get(i);
+            List<Long> expectedIds = e.getAnimals().stream().map(Animal::getId).collect(Collectors.toList());
+            List<Long> restoredIds = r.getAnimals().stream().map(Animal::getId).collect(Collectors.toList());
+            if (!e.getName().equals(r.getName()) || e.getType() != r.getType()
+                    || e.getCapacity() != r.getCapacity() || !expectedIds.equals(restoredIds)) {
+                return "enclosure " + e.getName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Тест агрегатов при просмотре файла: для текстового, двоичного и сжатого файлов
+     * (в несколько кусков, на пуле из 4 потоков) совпадают с агрегатами загруженного списка.
+     */
+    public void testScanAggregation() {
+        totalTests++;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Animal> animals = RandomDataGenerator.stream(43L, 300_000).collect(Collectors.toList());
+            animals.add(new Hoofed("долгожитель", 12.34, 300));
+            animals.add(new Hoofed("ошибка", 1, -1));
+            AnimalStats expected = AnimalStats.of(animals);
+            List<String> failed = new ArrayList<>();
+            for (DatabaseFormat format : DatabaseFormat.values()) {
+                File file = File.createTempFile("autotest-aggregate", "." + format.name().toLowerCase());
+                file.deleteOnExit();
+                DatabaseManager.saveAnimals(animals, file.getPath(), format);
+                AnimalStats actual = DatabaseManager.aggregate(file.getPath(), pool);
+                boolean same = actual.count() == animals.size()
+                        && actual.countByKind().equals(expected.countByKind())
+                        && actual.ageHistogram().equals(expected.ageHistogram())
+                        && actual.maxAge() == 300
+                        && actual.maxAge(AnimalKind.HOOFED) == expected.maxAge(AnimalKind.HOOFED)
+                        && actual.minWeight() == expected.minWeight()
+                        && actual.maxWeight() == expected.maxWeight()
+                        && Math.abs(actual.averageWeight() - expected.averageWeight()) < 1e-9 * expected.averageWeight();
+                if (!same) {
+                    failed.add(format + " " + actual);
+                }
+            }
+            if (failed.isEmpty()) {
+                passedTests++;
+                appLogger.logInfo("Scan aggregation test: PASSED " + expected);
+            } else {
+                appLogger.logError("Scan aggregation test: FAILED - " + failed + ", expected " + expected, null);
+            }
+        } catch (Exception e) {
+            appLogger.logError("Scan aggregation test: FAILED", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Удаляет временный каталог теста вместе с файлами; ошибки удаления не мешают результату теста. */
+    private static void deleteDirectory(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            dir.toFile().deleteOnExit();
+        }
+    }
+
+    private static List<Double> weights(List<Animal> animals) {
+        return animals.stream().map(Animal::getWeight).collect(Collectors.toList());
+    }
+
+    private static boolean sameSet(List<Animal> expected, List<Animal> actual) {
+        return expected.size() == actual.size()
+                && new HashSet<>(expected).equals(new HashSet<>(actual));
+    }
+
+    private static boolean sameAnimals(List<Animal> expected, List<Animal> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            Animal e = expected.get(i);
+            Animal a = actual.get(i);
+            if (e.getId() != a.getId() || e.getKind() != a.getKind() || e.getNameId() != a.getNameId()
+                    || e.getWeight() != a.getWeight() || e.getAge() != a.getAge()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Запускает расширенный набор тестов (включая дополнительные тесты).
      */
@@ -296,6 +1492,27 @@ public class AutoTest {
         
         // Расширенные тесты
         testAnimalEnclosureCompatibility();
+        testEnclosureRegistry();
+        testParallelDistribution();
+        testConcurrentEnclosureStress();
+        testStreamingDistribution();
+        testPlacementIndex();
+        testAnimalStore();
+        testOffHeapStore();
+        testIdIndex();
+        testReproducibleGenerator();
+        testBulkColumns();
+        testBinaryDatabaseFormat();
+        testMappedLoader();
+        testAnimalJournal();
+        testParallelTextLoad();
+        testAssignmentPersistence();
+        testStreamingRead();
+        testAnimalIndex();
+        testCompressedDatabase();
+        testBackgroundSaver();
+        testStorageEngines();
+        testScanAggregation();
 
         appLogger.logInfo("Extended auto tests completed: " + passedTests + "/" + totalTests + " passed");
 
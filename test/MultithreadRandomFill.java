@@ -6,7 +6,6 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -14,10 +13,11 @@ import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
-import java.util.UUID;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import model.Animal;
+import model.IdIndex;
+import model.NameDictionary;
 
 /**
  * Потоки теперь генерируют и сразу добавляют одно животное в общий список (sharedList).
@@ -35,6 +35,9 @@ public class MultithreadRandomFill extends JFrame {
     // общий список — инициализируется при старте (ArrayList или LinkedList)
     private List<Animal> sharedList = null;
 
+    // индекс ключ -> позиция в sharedList (ключ = вид + id имени); защищён блокировкой sharedList
+    private final IdIndex keyIndex = new IdIndex();
+
     // список активных производителей (Thread'ов)
     private final List<Thread> producerThreads = Collections.synchronizedList(new ArrayList<>());
 
@@ -109,6 +112,7 @@ public class MultithreadRandomFill extends JFrame {
             } else {
                 sharedList = new ArrayList<>();
             }
+            synchronized (sharedList) { keyIndex.clear(); }
 
             startBtn.setEnabled(false);
             stopBtn.setEnabled(true);
@@ -166,7 +170,7 @@ public class MultithreadRandomFill extends JFrame {
 
         clearBtn.addActionListener(e -> {
             if (sharedList != null) {
-                synchronized (sharedList) { sharedList.clear(); }
+                synchronized (sharedList) { sharedList.clear(); keyIndex.clear(); }
             }
             log("Общий список очищен.");
             refreshTable();
@@ -213,15 +217,16 @@ public class MultithreadRandomFill extends JFrame {
                     continue;
                 }
 
-                String key = detectKey(a);
-                if (key == null) key = UUID.randomUUID().toString();
+                long keyValue = keyOf(a);
+                String key = displayKey(a);
 
                 // Синхронизированная вставка — один поток в критической секции за раз
                 synchronized (sharedList) {
-                    int idx = findIndexByKey(sharedList, key);
+                    int idx = keyIndex.get(keyValue);
                     switch (strategy) {
                         case SKIP:
-                            if (idx == -1) {
+                            if (idx == IdIndex.NO_SLOT) {
+                                keyIndex.put(keyValue, sharedList.size());
                                 sharedList.add(a);
                                 log(producerName + " добавил (SKIP) [" + key + "] -> " + shortRepr(a));
                             } else {
@@ -229,17 +234,30 @@ public class MultithreadRandomFill extends JFrame {
                             }
                             break;
                         case OVERWRITE:
-                            if (idx == -1) sharedList.add(a);
-                            else sharedList.set(idx, a);
+                            if (idx == IdIndex.NO_SLOT) {
+                                keyIndex.put(keyValue, sharedList.size());
+                                sharedList.add(a);
+                            } else {
+                                sharedList.set(idx, a);
+                            }
                             log(producerName + " записал (OVERWRITE) [" + key + "] -> " + shortRepr(a));
                             break;
                         case MERGE:
-                            if (idx == -1) {
+                            if (idx == IdIndex.NO_SLOT) {
+                                keyIndex.put(keyValue, sharedList.size());
                                 sharedList.add(a);
                             } else {
                                 Animal old = sharedList.get(idx);
                                 Animal merged = mergeAnimals(old, a);
                                 sharedList.set(idx, merged);
+                                // после слияния у элемента новое имя, а значит и новый ключ;
+                                // если этот ключ уже у другого элемента, его позицию не трогаем,
+                                // а слитый элемент остаётся в списке без записи в индексе
+                                keyIndex.remove(keyValue);
+                                long mergedKey = keyOf(merged);
+                                if (!keyIndex.containsKey(mergedKey)) {
+                                    keyIndex.put(mergedKey, idx);
+                                }
                             }
                             log(producerName + " обработал (MERGE) [" + key + "] -> " + shortRepr(a));
                             break;
@@ -261,29 +279,18 @@ public class MultithreadRandomFill extends JFrame {
         log(producerName + " завершён.");
     }
 
-    // возвращает индекс найденного элемента с ключом или -1
-    private int findIndexByKey(List<Animal> list, String key) {
-        for (int i = 0; i < list.size(); i++) {
-            Animal a = list.get(i);
-            String k = detectKey(a);
-            if (k != null && k.equals(key)) return i;
-        }
-        return -1;
+    // ключ коллизии: вид в старших 32 битах, id имени в младших
+    private static long keyOf(Animal a) {
+        return ((long) a.getKind().ordinal() << 32) | (a.getNameId() & 0xFFFFFFFFL);
     }
 
-    private String detectKey(Animal a) {
-        try {
-            Method m = findMethodIgnoreCase(a.getClass(), "getName");
-            if (m != null && Modifier.isPublic(m.getModifiers())) {
-                Object v = m.invoke(a);
-                if (v != null) return a.getClass().getSimpleName() + ":" + v;
-            }
-        } catch (Throwable ignored) {}
-        return a.getClass().getSimpleName() + ":" + a.toString();
+    // читаемый ключ для лога и таблицы, со стабильным id животного
+    private static String displayKey(Animal a) {
+        return a.getKind().getTypeName() + ":" + a.getName() + "#" + a.getId();
     }
 
     /**
-     * Попытка объединить два Animal: если можем — переписываем protected поле name через рефлексию,
+     * Попытка объединить два Animal: если можем — переписываем protected поле nameId через рефлексию,
      * иначе возвращаем новый (newA).
      */
     private Animal mergeAnimals(Animal oldA, Animal newA) {
@@ -293,18 +300,21 @@ public class MultithreadRandomFill extends JFrame {
 
             String oldName = (getOld != null) ? String.valueOf(getOld.invoke(oldA)) : null;
             String newName = (getNew != null) ? String.valueOf(getNew.invoke(newA)) : null;
-            String mergedName = (oldName == null ? "" : oldName) + "/" + (newName == null ? "" : newName);
+            // берём только исходные имена без прежних слияний: иначе имя растёт с каждым слиянием,
+            // а словарь имён глобальный и не очищается. Так различных составных имён не больше,
+            // чем пар исходных имён генератора.
+            String mergedName = baseName(oldName) + "/" + baseName(newName);
 
-            // ищем поле name в иерархии классов
+            // ищем поле nameId в иерархии классов (имя хранится как id в словаре имён)
             Field nameField = null;
             Class<?> cls = oldA.getClass();
             while (cls != null) {
-                try { nameField = cls.getDeclaredField("name"); break; }
+                try { nameField = cls.getDeclaredField("nameId"); break; }
                 catch (NoSuchFieldException ex) { cls = cls.getSuperclass(); }
             }
             if (nameField != null) {
                 nameField.setAccessible(true);
-                nameField.set(oldA, mergedName);
+                nameField.setInt(oldA, NameDictionary.global().intern(mergedName));
                 return oldA;
             }
         } catch (Throwable ignored) {}
@@ -312,6 +322,13 @@ public class MultithreadRandomFill extends JFrame {
         return newA;
     }
 
+    // имя до первого "/", то есть без добавленных слияниями частей
+    private static String baseName(String name) {
+        if (name == null) return "";
+        int slash = name.indexOf('/');
+        return slash < 0 ? name : name.substring(0, slash);
+    }
+
     private Method findMethodIgnoreCase(Class<?> cls, String name, Class<?>... params) {
         for (Method m : cls.getMethods()) {
             if (m.getName().equalsIgnoreCase(name) && Arrays.equals(m.getParameterTypes(), params)) return m;
@@ -332,7 +349,7 @@ public class MultithreadRandomFill extends JFrame {
             if (sharedList == null) return;
             synchronized (sharedList) {
                 for (Animal a : sharedList) {
-                    String key = detectKey(a);
+                    String key = displayKey(a);
                     String name = tryInvokeString(a, "getName");
                     String other = tryInvokeString(a, "getAge");
                     tableModel.addRow(new Object[]{key, a.getClass().getSimpleName(), name, other});
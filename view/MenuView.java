@@ -2,13 +2,20 @@ package view;
 
 import config.Settings;
 import controller.ZooController;
+import db.AnimalStats;
+import db.BackgroundSaver;
 import db.DatabaseManager;
 import enclosure.Enclosure;
 import enclosure.EnclosureType;
 import experLogger.OperationLogger;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 import model.Animal;
+import model.AnimalIndex;
+import model.AnimalKind;
 import model.Aquatic;
 import model.ColdBlooded;
 import model.Feathered;
@@ -22,10 +29,14 @@ public class MenuView {
     private final Settings settings;
     private final OperationLogger appLogger;
     private List<Animal> animals;
+    /** Индексы по animals; обновляются вместе со списком. */
+    private AnimalIndex index;
     private List<Enclosure> enclosures;
     private final Scanner scanner;
     private final ZooView zooView;
     private final AutoTest autoTest;
+    /** Сохранение в фоне: меню не ждёт записи базы. */
+    private final BackgroundSaver saver = new BackgroundSaver();
 
     /**
      * Конструктор класса MenuView.
@@ -35,6 +46,7 @@ public class MenuView {
         this.settings = settings;
         this.appLogger = appLogger;
         this.animals = animals;
+        this.index = new AnimalIndex(animals);
         this.enclosures = enclosures;
         this.scanner = scanner;
         this.zooView = new ZooView();
@@ -128,6 +140,8 @@ public class MenuView {
             System.out.println("7. Создать вольер");
             System.out.println("8. Эксперименты с коллекциями");
             System.out.println("9. Вывести график экспериментов с коллекциями");
+            System.out.println("13. Поиск животных");
+            System.out.println("15. Статистика базы данных");
 
             
             // Дополнительные пункты меню для root пользователей
@@ -160,6 +174,8 @@ public class MenuView {
                 case 7: addEnclosure(); break;
                 case 8: runCollectionExperiments(); break;
                 case 9: GraphFromLogs.showWindowAutoScan(); break;
+                case 13: searchAnimals(); break;
+                case 15: showStatistics(); break;
                 case 10: 
                     if (settings.isRoot()) runDebug(); 
                     else System.out.println("Доступ запрещен. Требуются права root.");
@@ -174,6 +190,10 @@ public class MenuView {
                     break;
                 case 0: 
                     System.out.println("Выход из программы...");
+                    if (saver.isDirty()) {
+                        System.out.println("Дожидаемся завершения сохранения...");
+                    }
+                    saver.close();
                     return;
                 default: 
                     System.out.println("Неверный выбор. Пожалуйста, выберите пункт из меню.");
@@ -334,14 +354,17 @@ public class MenuView {
     }
 
     /**
-     * Загружает данные из базы данных.
+     * Загружает данные из базы данных, дождавшись записи уже поставленных сохранений.
      */
     private void loadFromDatabase() {
+        // ошибку сохранения уже сообщил saveToDatabase; загружается то, что есть в базе
+        saver.flush().exceptionally(error -> null).join();
         List<Animal> loadedAnimals = DatabaseManager.loadAnimals();
-        List<Enclosure> loadedEnclosures = DatabaseManager.loadEnclosures();
+        List<Enclosure> loadedEnclosures = DatabaseManager.loadEnclosures(loadedAnimals);
         
         if (!loadedAnimals.isEmpty() || !loadedEnclosures.isEmpty()) {
             animals = loadedAnimals;
+            index = new AnimalIndex(animals);
             enclosures = loadedEnclosures;
             System.out.println("Данные загружены из базы данных: " + 
                              animals.size() + " животных, " + 
@@ -363,14 +386,21 @@ public class MenuView {
             return;
         }
         
-        DatabaseManager.saveAnimals(animals);
-        DatabaseManager.saveEnclosures(enclosures);
-        System.out.println("Данные сохранены в базу данных: " + 
-                         animals.size() + " животных, " + 
-                         enclosures.size() + " вольеров");
-        
-        appLogger.logInfo("Data saved to database: " + animals.size() + " animals, " + 
-                         enclosures.size() + " enclosures");
+        int animalCount = animals.size();
+        int enclosureCount = enclosures.size();
+        // результат сообщается не из потока записи, чтобы вывод не задерживал его
+        saver.save(animals, enclosures).whenCompleteAsync((ignored, error) -> {
+            if (error == null) {
+                appLogger.logInfo("Data saved to database: " + animalCount + " animals, " + 
+                                 enclosureCount + " enclosures");
+            } else {
+                System.out.println("Ошибка сохранения в базу данных: " + error.getMessage());
+                appLogger.logError("Failed to save data to database", error);
+            }
+        });
+        System.out.println("Сохранение запущено в фоне: " + 
+                         animalCount + " животных, " + 
+                         enclosureCount + " вольеров");
     }
 
     /**
@@ -462,6 +492,7 @@ public class MenuView {
         
         if (animal != null) {
             animals.add(animal);
+            index.add(animal);
             System.out.println("Животное '" + name + "' успешно добавлено!");
             appLogger.logInfo("Added animal: " + animal);
         }
@@ -485,8 +516,13 @@ public class MenuView {
             return;
         }
         
-        boolean removed = animals.removeIf(animal -> 
-            animal.getName().equalsIgnoreCase(name.trim()));
+        // Кандидаты берутся из индекса имён; список проходится, только если они есть
+        Set<Long> ids = new HashSet<>();
+        for (Animal animal : index.byName(name.trim())) {
+            ids.add(animal.getId());
+        }
+        boolean removed = !ids.isEmpty() && animals.removeIf(animal -> ids.contains(animal.getId()));
+        ids.forEach(index::remove);
         
         if (removed) {
             System.out.println("Животное '" + name + "' успешно удалено!");
@@ -497,6 +533,92 @@ public class MenuView {
         }
     }
 
+    /**
+     * Поиск животных по имени, типу, диапазонам веса и возраста через индексы.
+     * Пустой ввод — условие не задано.
+     */
+    private void searchAnimals() {
+        System.out.println("\n=== ПОИСК ЖИВОТНЫХ ===");
+        AnimalKind[] kinds = AnimalKind.values();
+        String name;
+        AnimalKind kind;
+        double minWeight;
+        double maxWeight;
+        int minAge;
+        int maxAge;
+        int top;
+        try {
+            System.out.print("Имя (пусто — любое): ");
+            name = scanner.nextLine().trim();
+            System.out.print("Тип: 0 — любой, 1 — Aquatic, 2 — Feathered, 3 — Hoofed, 4 — ColdBlooded: ");
+            int typeChoice = (int) readNumber(0);
+            if (typeChoice < 0 || typeChoice > kinds.length) {
+                System.out.println("Неверный выбор типа. Операция отменена.");
+                return;
+            }
+            kind = typeChoice == 0 ? null : kinds[typeChoice - 1];
+            System.out.print("Вес от: ");
+            minWeight = readNumber(-Double.MAX_VALUE);
+            System.out.print("Вес до: ");
+            maxWeight = readNumber(Double.MAX_VALUE);
+            System.out.print("Возраст от: ");
+            minAge = (int) readNumber(Integer.MIN_VALUE);
+            System.out.print("Возраст до: ");
+            maxAge = (int) readNumber(Integer.MAX_VALUE);
+            System.out.print("Показать K самых тяжёлых (пусто — все найденные): ");
+            top = (int) readNumber(Integer.MAX_VALUE);
+        } catch (NumberFormatException e) {
+            System.out.println("Ошибка ввода числа. Операция отменена.");
+            return;
+        }
+
+        String query = name.isEmpty() ? null : name;
+        List<Animal> found = top == Integer.MAX_VALUE
+                ? index.find(query, kind, minWeight, maxWeight, minAge, maxAge)
+                : index.findHeaviest(query, kind, minWeight, maxWeight, minAge, maxAge, top);
+        if (found.isEmpty()) {
+            System.out.println("Животные не найдены.");
+        } else {
+            for (int i = 0; i < found.size(); i++) {
+                System.out.printf("%d. %s\n", i + 1, found.get(i));
+            }
+        }
+        appLogger.logInfo("Animal search: " + found.size() + " found");
+    }
+
+    /**
+     * Сводка по сохранённой базе: число животных по типам, средний вес, наибольший возраст,
+     * распределение по возрасту. Считается при просмотре файла, без загрузки животных.
+     */
+    private void showStatistics() {
+        System.out.println("\n=== СТАТИСТИКА БАЗЫ ДАННЫХ ===");
+        AnimalStats stats;
+        try {
+            saver.flush().join();
+            stats = DatabaseManager.aggregate();
+        } catch (IOException | RuntimeException e) {
+            appLogger.logError("Failed to aggregate database", e);
+            System.out.println("Не удалось прочитать базу данных: " + e.getMessage());
+            return;
+        }
+        System.out.println("Всего животных: " + stats.count());
+        stats.countByKind().forEach((kind, count) -> System.out.printf(
+                "%s: %d, средний вес %.2f кг, наибольший возраст %d\n",
+                kind.getTypeName(), count, stats.averageWeight(kind), stats.maxAge(kind)));
+        if (stats.count() > 0) {
+            System.out.printf("Средний вес: %.2f кг\n", stats.averageWeight());
+            System.out.println("Возраст: число животных");
+            stats.ageHistogram().forEach((age, count) -> System.out.printf("%4d: %d\n", age, count));
+        }
+        appLogger.logInfo("Database statistics: " + stats);
+    }
+
+    /** Число из строки ввода; пустая строка — значение по умолчанию. */
+    private double readNumber(double defaultValue) {
+        String line = scanner.nextLine().trim();
+        return line.isEmpty() ? defaultValue : Double.parseDouble(line.replace(',', '.'));
+    }
+
     /**
      * Запускает эксперименты с коллекциями.
      */
@@ -540,14 +662,14 @@ public class MenuView {
             Enclosure enclosure = enclosures.get(i);
             appLogger.logDebug(String.format("Enclosure %d: %s, Type: %s, Capacity: %d, Current: %d", 
                 i + 1, enclosure.getName(), enclosure.getType(), 
-                enclosure.getCapacity(), enclosure.getAnimals().size()));
+                enclosure.getCapacity(), enclosure.size()));
         }
         
         // Детальная информация о животных
         for (int i = 0; i < Math.min(animals.size(), 10); i++) { // Ограничим вывод первыми 10 животными
             Animal animal = animals.get(i);
             appLogger.logDebug(String.format("Animal %d: %s, Type: %s, Age: %d, Weight: %.2f", 
-                i + 1, animal.getName(), animal.getClass().getSimpleName(), 
+                i + 1, animal.getName(), animal.getKind().getTypeName(), 
                 animal.getAge(), animal.getWeight()));
         }
         
@@ -24,13 +24,10 @@ public class ZooView {
         
         for (Enclosure e : enclosures) {
             System.out.println(e);
-            List<Animal> animalsInEnclosure = e.getAnimals();
-            if (animalsInEnclosure.isEmpty()) {
+            if (e.size() == 0) {
                 System.out.println("  - Вольер пуст");
             } else {
-                for (Animal a : animalsInEnclosure) {
-                    System.out.println("  - " + a);
-                }
+                e.forEachAnimal(a -> System.out.println("  - " + a));
             }
             System.out.println();
         }
@@ -52,17 +49,14 @@ public class ZooView {
             System.out.printf("%d. %s\n", i + 1, e);
             System.out.printf("   Тип: %s\n", e.getType());
             System.out.printf("   Вместимость: %d животных\n", e.getCapacity());
-            System.out.printf("   Текущее количество: %d животных\n", e.getAnimals().size());
-            System.out.printf("   Свободных мест: %d\n", e.getCapacity() - e.getAnimals().size());
+            System.out.printf("   Текущее количество: %d животных\n", e.size());
+            System.out.printf("   Свободных мест: %d\n", e.freeSlots());
             
-            List<Animal> animals = e.getAnimals();
-            if (animals.isEmpty()) {
+            if (e.size() == 0) {
                 System.out.println("   Животные: нет");
             } else {
                 System.out.println("   Животные:");
-                for (Animal a : animals) {
-                    System.out.printf("     - %s\n", a);
-                }
+                e.forEachAnimal(a -> System.out.printf("     - %s\n", a));
             }
             System.out.println();
         }
@@ -51,7 +51,7 @@ public class AnimalTableModel extends AbstractTableModel {
         return switch (col) {
             case 0 -> row + 1;
             case 1 -> a.getName();
-            case 2 -> a.getClass().getSimpleName();
+            case 2 -> a.getKind().getTypeName();
             case 3 -> a.getAge();
             case 4 -> a.getWeight();
             default -> "";
@@ -51,7 +51,7 @@ public class EnclosureTableModel extends AbstractTableModel {
             case 1 -> e.getName();
             case 2 -> e.getType().toString();
             case 3 -> e.getCapacity();
-            case 4 -> e.getAnimals().size();
+            case 4 -> e.size();
             default -> "";
         };
     }
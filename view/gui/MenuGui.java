@@ -2,14 +2,21 @@ package view.gui;
 
 import config.Settings;
 import controller.ZooController;
+import db.BackgroundSaver;
 import db.DatabaseManager;
 import enclosure.Enclosure;
 import experLogger.CollectionExperiment;
 import experLogger.OperationLogger;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import javax.swing.*;
 import model.Animal;
+import model.AnimalIndex;
+import model.AnimalKind;
 import test.AutoTest;
 import test.MultithreadRandomFill;
 import view.GraphFromLogs;
@@ -23,6 +30,8 @@ public class MenuGui extends JFrame {
     private final Settings settings;
     private final OperationLogger appLogger;
     private List<Animal> animals;
+    /** Индексы по animals; обновляются вместе со списком. */
+    private AnimalIndex index;
     private List<Enclosure> enclosures;
 
     private final AnimalTableModel animalTableModel;
@@ -31,6 +40,8 @@ public class MenuGui extends JFrame {
     private final JTable enclosuresTable;
 
     private final AutoTest autoTest;
+    /** Сохранение в фоне, чтобы запись базы не блокировала EDT. */
+    private final BackgroundSaver saver = new BackgroundSaver();
 
     /**
      * Создаёт главное окно GUI.
@@ -48,6 +59,7 @@ public class MenuGui extends JFrame {
         this.settings = settings;
         this.appLogger = appLogger;
         this.animals = animals;
+        this.index = new AnimalIndex(animals);
         this.enclosures = enclosures;
 
         this.autoTest = new AutoTest(settings, appLogger);
@@ -59,6 +71,18 @@ public class MenuGui extends JFrame {
         this.enclosuresTable = new JTable(enclosureTableModel);
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // перед выходом дописываем поставленные сохранения
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saver.close();
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                saver.close();
+            }
+        });
         setPreferredSize(new Dimension(950, 600));
 
         initUI();
@@ -82,6 +106,8 @@ public class MenuGui extends JFrame {
         JButton btnSave = new JButton("Сохранить в БД");
         JButton btnAddAnimal = new JButton("Добавить животное");
         JButton btnRemoveAnimal = new JButton("Удалить животное");
+        JButton btnSearch = new JButton("Поиск животных");
+        JButton btnStatistics = new JButton("Статистика БД");
         JButton btnAddEnclosure = new JButton("Создать вольер");
         JButton btnExperiments = new JButton("Эксперименты");
         JButton btnGraph = new JButton("График логов");
@@ -94,6 +120,8 @@ public class MenuGui extends JFrame {
         leftPanel.add(btnSave);
         leftPanel.add(btnAddAnimal);
         leftPanel.add(btnRemoveAnimal);
+        leftPanel.add(btnSearch);
+        leftPanel.add(btnStatistics);
         leftPanel.add(btnAddEnclosure);
         leftPanel.add(btnExperiments);
         leftPanel.add(btnGraph);
@@ -135,26 +163,30 @@ public class MenuGui extends JFrame {
             refreshTables();
         });
 
-        btnLoad.addActionListener(e -> {
-            loadFromDatabase();
-            refreshTables();
-        });
+        btnLoad.addActionListener(e -> loadFromDatabase());
 
         btnSave.addActionListener(e -> saveToDatabase());
 
         btnAddAnimal.addActionListener(e -> {
+            int before = animals.size();
             new AddAnimalDialog(this, animals);
+            for (int i = before; i < animals.size(); i++) {
+                index.add(animals.get(i));
+            }
             refreshTables();
         });
 
         btnRemoveAnimal.addActionListener(e -> {
             int row = animalsTable.getSelectedRow();
             if (row >= 0) {
-                animals.remove(row);
+                index.remove(animals.remove(row).getId());
                 refreshTables();
             }
         });
 
+        btnSearch.addActionListener(e -> searchAnimals());
+        btnStatistics.addActionListener(e -> showStatistics());
+
         btnAddEnclosure.addActionListener(e -> {
             new AddEnclosureDialog(this, enclosures);
             refreshTables();
@@ -192,22 +224,152 @@ public class MenuGui extends JFrame {
     }
 
     /**
-     * Загружает данные из БД.
+     * Загружает данные из БД в фоне, после записи уже поставленных сохранений;
+     * таблицы обновляются в потоке событий.
      */
     private void loadFromDatabase() {
-        animals = DatabaseManager.loadAnimals();
-        enclosures = DatabaseManager.loadEnclosures();
+        // ошибку сохранения уже показал saveToDatabase; загружается то, что есть в базе
+        saver.flush().handleAsync((ignored, saveError) -> {
+            List<Animal> loadedAnimals = DatabaseManager.loadAnimals();
+            return new Loaded(loadedAnimals, DatabaseManager.loadEnclosures(loadedAnimals));
+        }).whenComplete((loaded, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                appLogger.logError("Failed to load data from database", error);
+                JOptionPane.showMessageDialog(this, "Не удалось загрузить данные:\n" + error.getMessage(),
+                        "Ошибка", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            animals = loaded.animals;
+            index = new AnimalIndex(animals);
+            enclosures = loaded.enclosures;
+            animalTableModel.setAnimals(animals);
+            enclosureTableModel.setEnclosures(enclosures);
+            refreshTables();
+        }));
+    }
+
+    /** Животные и вольеры, загруженные из БД в фоне. */
+    private static final class Loaded {
+        final List<Animal> animals;
+        final List<Enclosure> enclosures;
+
+        Loaded(List<Animal> animals, List<Enclosure> enclosures) {
+            this.animals = animals;
+            this.enclosures = enclosures;
+        }
+    }
 
-        animalTableModel.setAnimals(animals);
-        enclosureTableModel.setEnclosures(enclosures);
+    /**
+     * Поиск животных по имени, типу, диапазонам веса и возраста через индексы.
+     * Пустое поле — условие не задано.
+     */
+    private void searchAnimals() {
+        JTextField name = new JTextField();
+        JComboBox<Object> kind = new JComboBox<>();
+        kind.addItem("Любой");
+        for (AnimalKind k : AnimalKind.values()) {
+            kind.addItem(k);
+        }
+        JTextField minWeight = new JTextField();
+        JTextField maxWeight = new JTextField();
+        JTextField minAge = new JTextField();
+        JTextField maxAge = new JTextField();
+        JTextField top = new JTextField();
+
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        panel.add(new JLabel("Имя:"));
+        panel.add(name);
+        panel.add(new JLabel("Тип:"));
+        panel.add(kind);
+        panel.add(new JLabel("Вес от:"));
+        panel.add(minWeight);
+        panel.add(new JLabel("Вес до:"));
+        panel.add(maxWeight);
+        panel.add(new JLabel("Возраст от:"));
+        panel.add(minAge);
+        panel.add(new JLabel("Возраст до:"));
+        panel.add(maxAge);
+        panel.add(new JLabel("K самых тяжёлых:"));
+        panel.add(top);
+
+        int res = JOptionPane.showConfirmDialog(this, panel, "Поиск животных", JOptionPane.OK_CANCEL_OPTION);
+        if (res != JOptionPane.OK_OPTION) return;
+
+        List<Animal> found;
+        try {
+            String text = name.getText().trim();
+            String query = text.isEmpty() ? null : text;
+            AnimalKind selected = kind.getSelectedItem() instanceof AnimalKind k ? k : null;
+            double fromWeight = number(minWeight, -Double.MAX_VALUE);
+            double toWeight = number(maxWeight, Double.MAX_VALUE);
+            int fromAge = (int) number(minAge, Integer.MIN_VALUE);
+            int toAge = (int) number(maxAge, Integer.MAX_VALUE);
+            int k = (int) number(top, Integer.MAX_VALUE);
+            found = k == Integer.MAX_VALUE
+                    ? index.find(query, selected, fromWeight, toWeight, fromAge, toAge)
+                    : index.findHeaviest(query, selected, fromWeight, toWeight, fromAge, toAge, k);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Ошибка ввода числа", "Ошибка", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JScrollPane table = new JScrollPane(new JTable(new AnimalTableModel(found)));
+        table.setPreferredSize(new Dimension(600, 300));
+        JOptionPane.showMessageDialog(this, table, "Найдено: " + found.size(), JOptionPane.PLAIN_MESSAGE);
+        appLogger.logInfo("Animal search: " + found.size() + " found");
+    }
+
+    /**
+     * Сводка по сохранённой базе: дожидается фонового сохранения и считает агрегаты
+     * при просмотре файла в фоне, без загрузки животных.
+     */
+    private void showStatistics() {
+        saver.flush().handleAsync((ignored, saveError) -> {
+            try {
+                return DatabaseManager.aggregate();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((stats, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                appLogger.logError("Failed to aggregate database", error);
+                JOptionPane.showMessageDialog(this, "Не удалось прочитать базу данных:\n" + error.getMessage(),
+                        "Ошибка", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            StringBuilder text = new StringBuilder("Всего животных: " + stats.count() + "\n");
+            stats.countByKind().forEach((kind, count) -> text.append(String.format(
+                    "%s: %d, средний вес %.2f кг, наибольший возраст %d\n",
+                    kind.getTypeName(), count, stats.averageWeight(kind), stats.maxAge(kind))));
+            if (stats.count() > 0) {
+                text.append(String.format("Средний вес: %.2f кг\n\nВозраст: число животных\n", stats.averageWeight()));
+                stats.ageHistogram().forEach((age, count) -> text.append(age).append(": ").append(count).append('\n'));
+            }
+            JTextArea area = new JTextArea(text.toString());
+            area.setEditable(false);
+            JScrollPane pane = new JScrollPane(area);
+            pane.setPreferredSize(new Dimension(450, 300));
+            JOptionPane.showMessageDialog(this, pane, "Статистика базы данных", JOptionPane.PLAIN_MESSAGE);
+            appLogger.logInfo("Database statistics: " + stats);
+        }));
+    }
+
+    private static double number(JTextField field, double defaultValue) {
+        String text = field.getText().trim();
+        return text.isEmpty() ? defaultValue : Double.parseDouble(text.replace(',', '.'));
     }
 
     /**
      * Сохраняет данные в БД.
      */
     private void saveToDatabase() {
-        DatabaseManager.saveAnimals(animals);
-        DatabaseManager.saveEnclosures(enclosures);
+        saver.save(animals, enclosures).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                appLogger.logError("Failed to save data to database", error);
+                JOptionPane.showMessageDialog(this, "Не удалось сохранить данные:\n" + error.getMessage(),
+                        "Ошибка", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
     }
 
     /**